@@ -0,0 +1,65 @@
+package de.jplag.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jplag.GreedyStringTiling;
+import de.jplag.JPlagComparison;
+import de.jplag.Submission;
+import de.jplag.options.JPlagOptions;
+
+/**
+ * Measures {@link GreedyStringTiling#generateBaseCodeMarking} for a submission that contains a slightly modified copy of
+ * the base code. A new algorithm instance is used for each invocation, as the marking changes the cached data of the
+ * submission.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BaseCodeMarkingBenchmark {
+
+    @Param({"1000", "10000"})
+    private int numberOfTokens;
+
+    @Param({"0.2", "0.8"})
+    private double baseCodeShare;
+
+    private Submission submission;
+    private Submission baseCode;
+    private JPlagOptions options;
+
+    @Setup
+    public void setUp() {
+        SyntheticSubmissions generator = new SyntheticSubmissions(BenchmarkSupport.SEED);
+        int baseCodeLength = (int) (numberOfTokens * baseCodeShare);
+        int[] baseCodeValues = generator.randomValues(baseCodeLength);
+        int[] copiedBaseCode = generator.variantOf(baseCodeValues, 0.95);
+        int[] ownValues = generator.randomValues(numberOfTokens - baseCodeLength);
+        int[] submissionValues = Arrays.copyOf(copiedBaseCode, copiedBaseCode.length + ownValues.length);
+        System.arraycopy(ownValues, 0, submissionValues, copiedBaseCode.length, ownValues.length);
+
+        baseCode = generator.submission("basecode", baseCodeValues);
+        submission = generator.submission("submission", submissionValues);
+        options = BenchmarkSupport.syntheticOptions();
+    }
+
+    @Benchmark
+    public JPlagComparison generateBaseCodeMarking() {
+        return new GreedyStringTiling(options).generateBaseCodeMarking(submission, baseCode);
+    }
+}
@@ -0,0 +1,65 @@
+package de.jplag.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import de.jplag.options.JPlagOptions;
+
+/**
+ * Shared setup of the benchmarks.
+ */
+final class BenchmarkSupport {
+    /** Seed of the synthetic submissions, fixed so that all runs measure the same inputs. */
+    static final long SEED = 42;
+
+    private static final String RESOURCE_SETS_DIRECTORY = "endtoend-testing/src/test/resources/languageTestFiles";
+    private static final String RESOURCE_SETS_PROPERTY = "jplag.benchmark.resources";
+
+    private BenchmarkSupport() {
+        // private constructor to prevent instantiation
+    }
+
+    /**
+     * @return options for comparing synthetic submissions, using the Java language and its minimum match length.
+     */
+    static JPlagOptions syntheticOptions() {
+        return new JPlagOptions(new de.jplag.java.Language(), Set.of(), Set.of());
+    }
+
+    /**
+     * Locates a resource set of the end-to-end tests. The directory of the resource sets can be set with the system
+     * property {@value #RESOURCE_SETS_PROPERTY}, otherwise it is searched relative to the working directory and its parent.
+     * @param language is the identifier of the language of the set.
+     * @param name is the name of the set.
+     * @return the directory of the set.
+     */
+    static File resourceSet(String language, String name) {
+        String configuredDirectory = System.getProperty(RESOURCE_SETS_PROPERTY);
+        Stream<Path> candidates = configuredDirectory != null ? Stream.of(Path.of(configuredDirectory))
+                : Stream.of(Path.of(RESOURCE_SETS_DIRECTORY), Path.of("..", RESOURCE_SETS_DIRECTORY));
+        return candidates.map(directory -> directory.resolve(language).resolve(name).toFile()).filter(File::isDirectory).findFirst()
+                .orElseThrow(() -> new IllegalStateException("Resource set " + language + "/" + name + " not found, set the system property "
+                        + RESOURCE_SETS_PROPERTY + " to the directory " + RESOURCE_SETS_DIRECTORY));
+    }
+
+    /**
+     * Deletes a directory and its contents.
+     * @param directory is the directory to delete.
+     * @throws IOException if a file cannot be deleted.
+     */
+    static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package de.jplag.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jplag.GreedyStringTiling;
+import de.jplag.JPlagComparison;
+import de.jplag.Submission;
+import de.jplag.clustering.ClusteringAlgorithm;
+import de.jplag.clustering.ClusteringFactory;
+import de.jplag.clustering.ClusteringOptions;
+import de.jplag.clustering.ClusteringResult;
+
+/**
+ * Measures {@link ClusteringFactory#getClusterings} on the comparisons of all pairs of synthetic submissions, which form
+ * groups of similar submissions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClusteringBenchmark {
+    private static final int GROUP_SIZE = 5;
+    private static final int NUMBER_OF_TOKENS = 300;
+    private static final double SIMILARITY = 0.7;
+
+    @Param({"50", "200"})
+    private int numberOfSubmissions;
+
+    @Param({"SPECTRAL", "AGGLOMERATIVE"})
+    private ClusteringAlgorithm algorithm;
+
+    private List<JPlagComparison> comparisons;
+    private ClusteringOptions clusteringOptions;
+
+    @Setup
+    public void setUp() {
+        List<Submission> submissions = new SyntheticSubmissions(BenchmarkSupport.SEED).submissionGroups(numberOfSubmissions, GROUP_SIZE,
+                NUMBER_OF_TOKENS, SIMILARITY);
+        GreedyStringTiling greedyStringTiling = new GreedyStringTiling(BenchmarkSupport.syntheticOptions());
+        greedyStringTiling.prepareSubmissions(submissions);
+        comparisons = new ArrayList<>();
+        for (int first = 0; first < submissions.size(); first++) {
+            for (int second = first + 1; second < submissions.size(); second++) {
+                comparisons.add(greedyStringTiling.compare(submissions.get(first), submissions.get(second)));
+            }
+        }
+        clusteringOptions = new ClusteringOptions().withAlgorithm(algorithm);
+    }
+
+    @Benchmark
+    public List<ClusteringResult<Submission>> getClusterings() {
+        return ClusteringFactory.getClusterings(comparisons, clusteringOptions);
+    }
+}
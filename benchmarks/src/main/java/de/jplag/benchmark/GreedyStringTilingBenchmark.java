@@ -0,0 +1,68 @@
+package de.jplag.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jplag.GreedyStringTiling;
+import de.jplag.JPlagComparison;
+import de.jplag.Submission;
+import de.jplag.options.JPlagOptions;
+
+/**
+ * Measures the comparison of two synthetic submissions with {@link GreedyStringTiling#compare}, once with the prepared
+ * per-submission data (as during a regular run) and once recomputing it for every comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GreedyStringTilingBenchmark {
+
+    @Param({"1000", "10000"})
+    private int numberOfTokens;
+
+    @Param({"0.2", "0.8", "1.0"})
+    private double similarity;
+
+    private Submission first;
+    private Submission second;
+    private GreedyStringTiling preparedAlgorithm;
+    private GreedyStringTiling uncachedAlgorithm;
+
+    @Setup
+    public void setUp() {
+        SyntheticSubmissions generator = new SyntheticSubmissions(BenchmarkSupport.SEED);
+        int[] original = generator.randomValues(numberOfTokens);
+        first = generator.submission("first", original);
+        second = generator.submission("second", generator.variantOf(original, similarity));
+
+        JPlagOptions options = BenchmarkSupport.syntheticOptions();
+        preparedAlgorithm = new GreedyStringTiling(options);
+        preparedAlgorithm.prepareSubmissions(List.of(first, second));
+        uncachedAlgorithm = new GreedyStringTiling(options, 0);
+    }
+
+    @Benchmark
+    public JPlagComparison compare() {
+        return preparedAlgorithm.compare(first, second);
+    }
+
+    @Benchmark
+    public JPlagComparison compareWithoutCache() {
+        return uncachedAlgorithm.compare(first, second);
+    }
+}
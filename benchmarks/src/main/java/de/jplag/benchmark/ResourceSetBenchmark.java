@@ -0,0 +1,81 @@
+package de.jplag.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.jplag.GreedyStringTiling;
+import de.jplag.JPlag;
+import de.jplag.JPlagResult;
+import de.jplag.Submission;
+import de.jplag.exceptions.ExitException;
+import de.jplag.options.JPlagOptions;
+import de.jplag.reporting.reportobject.ReportObjectFactory;
+
+/**
+ * Measures the comparison of all pairs and the report generation on the Java resource sets of the end-to-end tests, so
+ * that real token streams are covered as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResourceSetBenchmark {
+
+    @Param({"sortAlgo"})
+    private String resourceSet;
+
+    private JPlagResult result;
+    private List<Submission> submissions;
+    private GreedyStringTiling algorithm;
+    private Path reportDirectory;
+
+    @Setup
+    public void setUp() throws ExitException, IOException {
+        JPlagOptions options = new JPlagOptions(new de.jplag.java.Language(), Set.of(BenchmarkSupport.resourceSet("java", resourceSet)),
+                Set.of());
+        result = new JPlag(options).run();
+        submissions = result.getSubmissions().getSubmissions();
+        algorithm = new GreedyStringTiling(options);
+        algorithm.prepareSubmissions(submissions);
+        reportDirectory = Files.createTempDirectory("jplag-benchmark");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkSupport.deleteRecursively(reportDirectory);
+    }
+
+    @Benchmark
+    public void compareAllPairs(Blackhole blackhole) {
+        for (int first = 0; first < submissions.size(); first++) {
+            for (int second = first + 1; second < submissions.size(); second++) {
+                blackhole.consume(algorithm.compare(submissions.get(first), submissions.get(second)));
+            }
+        }
+    }
+
+    @Benchmark
+    public void createAndSaveReport() {
+        new ReportObjectFactory().createAndSaveReport(result, reportDirectory.resolve("report").toString());
+    }
+}
@@ -0,0 +1,54 @@
+package de.jplag.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.jplag.GreedyStringTiling;
+import de.jplag.Submission;
+import de.jplag.options.JPlagOptions;
+
+/**
+ * Measures the construction of the subsequence hash lookup tables. As the table itself is internal to the core, it is
+ * measured through {@link GreedyStringTiling#prepareSubmissions}, which builds the table together with the initial token
+ * marking of each submission.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SubsequenceHashLookupTableBenchmark {
+    private static final int NUMBER_OF_SUBMISSIONS = 16;
+
+    @Param({"1000", "10000", "100000"})
+    private int numberOfTokens;
+
+    private List<Submission> submissions;
+    private JPlagOptions options;
+
+    @Setup
+    public void setUp() {
+        submissions = new SyntheticSubmissions(BenchmarkSupport.SEED).submissionGroups(NUMBER_OF_SUBMISSIONS, 4, numberOfTokens, 0.8);
+        options = BenchmarkSupport.syntheticOptions();
+    }
+
+    @Benchmark
+    public GreedyStringTiling prepareSubmissions() {
+        GreedyStringTiling algorithm = new GreedyStringTiling(options);
+        algorithm.prepareSubmissions(submissions);
+        return algorithm;
+    }
+}
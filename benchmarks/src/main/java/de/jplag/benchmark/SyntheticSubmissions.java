@@ -0,0 +1,116 @@
+package de.jplag.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import de.jplag.Language;
+import de.jplag.Submission;
+import de.jplag.Token;
+import de.jplag.TokenTypeRegistry;
+
+/**
+ * Generates submissions with synthetic token streams, such that the size of the submissions and their similarity can be
+ * controlled without parsing source code. Generation is deterministic for a given seed.
+ */
+public class SyntheticSubmissions {
+    /** Number of distinct token types, roughly the number of frequently used token types of real languages. */
+    public static final int NUMBER_OF_TOKEN_TYPES = 40;
+    private static final int TOKENS_PER_LINE = 4;
+
+    private final Random random;
+    private final Language language;
+    private final TokenTypeRegistry typeRegistry = new TokenTypeRegistry(); // shared by all generated submissions
+
+    /**
+     * @param seed is the seed of the random generator.
+     */
+    public SyntheticSubmissions(long seed) {
+        this.random = new Random(seed);
+        this.language = new de.jplag.java.Language();
+    }
+
+    /**
+     * @param length is the number of tokens.
+     * @return uniformly distributed random token type values.
+     */
+    public int[] randomValues(int length) {
+        int[] values = new int[length];
+        for (int index = 0; index < length; index++) {
+            values[index] = random.nextInt(NUMBER_OF_TOKEN_TYPES);
+        }
+        return values;
+    }
+
+    /**
+     * Derives a variant of the given values. Each token is kept with the given probability, otherwise it is replaced by a
+     * random token, removed, or a random token is inserted before it. This resembles the local edits of obfuscated
+     * plagiarism.
+     * @param original are the original values.
+     * @param similarity is the probability that a token is kept unchanged.
+     * @return the values of the variant.
+     */
+    public int[] variantOf(int[] original, double similarity) {
+        List<Integer> values = new ArrayList<>(original.length + original.length / 4);
+        for (int value : original) {
+            if (random.nextDouble() < similarity) {
+                values.add(value);
+                continue;
+            }
+            switch (random.nextInt(3)) {
+                case 0 -> values.add(random.nextInt(NUMBER_OF_TOKEN_TYPES));
+                case 1 -> {
+                    values.add(random.nextInt(NUMBER_OF_TOKEN_TYPES));
+                    values.add(value);
+                }
+                default -> {
+                    // token removed
+                }
+            }
+        }
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Creates a parsed submission from token values. The tokens are placed in a single virtual file that ends with a
+     * {@link de.jplag.SharedTokenType#FILE_END FILE_END} token.
+     * @param name is the name of the submission.
+     * @param values are the token type values.
+     * @return the submission, which has the given tokens but no files on disk.
+     */
+    public Submission submission(String name, int[] values) {
+        File file = new File(name, "Main.java");
+        List<Token> tokens = new ArrayList<>(values.length + 1);
+        for (int index = 0; index < values.length; index++) {
+            int line = index / TOKENS_PER_LINE + 1;
+            int column = index % TOKENS_PER_LINE * 8 + 1;
+            tokens.add(new Token(new SyntheticTokenType(values[index]), file, line, column, 4));
+        }
+        tokens.add(Token.fileEnd(file));
+        Submission submission = new Submission(name, new File(name), true, List.of(file), language, typeRegistry);
+        submission.setTokenList(tokens);
+        return submission;
+    }
+
+    /**
+     * Creates groups of similar submissions. The submissions of a group are variants of a common original, submissions of
+     * different groups are unrelated.
+     * @param numberOfSubmissions is the total number of submissions.
+     * @param groupSize is the number of submissions per group.
+     * @param length is the number of tokens of each original.
+     * @param similarity is the similarity of each variant to its original.
+     * @return the submissions.
+     */
+    public List<Submission> submissionGroups(int numberOfSubmissions, int groupSize, int length, double similarity) {
+        List<Submission> submissions = new ArrayList<>(numberOfSubmissions);
+        int[] original = randomValues(length);
+        for (int index = 0; index < numberOfSubmissions; index++) {
+            if (index % groupSize == 0) {
+                original = randomValues(length);
+            }
+            submissions.add(submission("submission" + index, variantOf(original, similarity)));
+        }
+        return submissions;
+    }
+}
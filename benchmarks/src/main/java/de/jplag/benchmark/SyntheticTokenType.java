@@ -0,0 +1,14 @@
+package de.jplag.benchmark;
+
+import de.jplag.TokenType;
+
+/**
+ * Token type of synthetic token streams, identified by a number.
+ * @param value is the number of the type.
+ */
+public record SyntheticTokenType(int value) implements TokenType {
+    @Override
+    public String getDescription() {
+        return "T" + value;
+    }
+}
@@ -1,6 +1,9 @@
 package de.jplag.cli;
 
+import static de.jplag.cli.CommandLineArgument.ARCHIVE_INDEX;
 import static de.jplag.cli.CommandLineArgument.BASE_CODE;
+import static de.jplag.cli.CommandLineArgument.CANDIDATE_FILTER;
+import static de.jplag.cli.CommandLineArgument.CANDIDATE_JACCARD;
 import static de.jplag.cli.CommandLineArgument.CLUSTER_AGGLOMERATIVE_INTER_CLUSTER_SIMILARITY;
 import static de.jplag.cli.CommandLineArgument.CLUSTER_AGGLOMERATIVE_THRESHOLD;
 import static de.jplag.cli.CommandLineArgument.CLUSTER_ALGORITHM;
@@ -15,18 +18,32 @@ import static de.jplag.cli.CommandLineArgument.CLUSTER_SPECTRAL_KMEANS_ITERATION
 import static de.jplag.cli.CommandLineArgument.CLUSTER_SPECTRAL_MAX_RUNS;
 import static de.jplag.cli.CommandLineArgument.CLUSTER_SPECTRAL_MIN_RUNS;
 import static de.jplag.cli.CommandLineArgument.CLUSTER_SPECTRAL_NOISE;
+import static de.jplag.cli.CommandLineArgument.COMPARISON_BLOCK_TOKENS;
+import static de.jplag.cli.CommandLineArgument.COMPARISON_THREADS;
 import static de.jplag.cli.CommandLineArgument.DEBUG;
 import static de.jplag.cli.CommandLineArgument.EXCLUDE_FILE;
+import static de.jplag.cli.CommandLineArgument.INCREMENTAL;
 import static de.jplag.cli.CommandLineArgument.LANGUAGE;
+import static de.jplag.cli.CommandLineArgument.LOAD_SNAPSHOT;
+import static de.jplag.cli.CommandLineArgument.MATCHING_ALGORITHM;
+import static de.jplag.cli.CommandLineArgument.MERGE_SHARDS;
 import static de.jplag.cli.CommandLineArgument.MIN_TOKEN_MATCH;
 import static de.jplag.cli.CommandLineArgument.NEW_DIRECTORY;
 import static de.jplag.cli.CommandLineArgument.OLD_DIRECTORY;
+import static de.jplag.cli.CommandLineArgument.PARSING_THREADS;
+import static de.jplag.cli.CommandLineArgument.PIPELINED;
 import static de.jplag.cli.CommandLineArgument.RESULT_FOLDER;
 import static de.jplag.cli.CommandLineArgument.ROOT_DIRECTORY;
+import static de.jplag.cli.CommandLineArgument.SAVE_SNAPSHOT;
+import static de.jplag.cli.CommandLineArgument.SHARD_COUNT;
+import static de.jplag.cli.CommandLineArgument.SHARD_DIRECTORY;
+import static de.jplag.cli.CommandLineArgument.SHARD_INDEX;
 import static de.jplag.cli.CommandLineArgument.SHOWN_COMPARISONS;
 import static de.jplag.cli.CommandLineArgument.SIMILARITY_THRESHOLD;
+import static de.jplag.cli.CommandLineArgument.STREAM_COMPARISONS;
 import static de.jplag.cli.CommandLineArgument.SUBDIRECTORY;
 import static de.jplag.cli.CommandLineArgument.SUFFIXES;
+import static de.jplag.cli.CommandLineArgument.TOKEN_CACHE;
 
 import java.io.File;
 import java.security.SecureRandom;
@@ -42,11 +59,14 @@ import org.slf4j.LoggerFactory;
 
 import de.jplag.JPlag;
 import de.jplag.JPlagResult;
+import de.jplag.ResultSnapshot;
 import de.jplag.cli.logger.CollectedLoggerFactory;
 import de.jplag.clustering.ClusteringOptions;
 import de.jplag.clustering.Preprocessing;
 import de.jplag.exceptions.ExitException;
 import de.jplag.options.JPlagOptions;
+import de.jplag.options.PerformanceOptions;
+import de.jplag.options.ShardingOptions;
 import de.jplag.reporting.reportobject.ReportObjectFactory;
 
 import net.sourceforge.argparse4j.ArgumentParsers;
@@ -88,7 +108,20 @@ public final class CLI {
             JPlagOptions options = cli.buildOptionsFromArguments(arguments);
             JPlag jplag = new JPlag(options);
             logger.debug("JPlag initialized");
-            JPlagResult result = jplag.run();
+            JPlagResult result;
+            if (LOAD_SNAPSHOT.isSet(arguments)) {
+                result = jplag.restore(new File(LOAD_SNAPSHOT.<String>getFrom(arguments)));
+            } else {
+                result = jplag.run();
+            }
+            if (SAVE_SNAPSHOT.isSet(arguments)) {
+                ResultSnapshot.write(result, new File(SAVE_SNAPSHOT.<String>getFrom(arguments)));
+            }
+            ShardingOptions sharding = options.performanceOptions().sharding();
+            if (sharding.enabled() && !sharding.isMerge()) {
+                logger.info("Wrote the comparisons of shard {} to {}", sharding.shardIndex(), sharding.shardFile(sharding.shardIndex()));
+                return;
+            }
             ReportObjectFactory reportObjectFactory = new ReportObjectFactory();
             reportObjectFactory.createAndSaveReport(result, arguments.getString(RESULT_FOLDER.flagWithoutDash()));
         } catch (ExitException exception) {
@@ -123,7 +156,9 @@ public final class CLI {
      */
     public Namespace parseArguments(String[] arguments) {
         try {
-            return parser.parseArgs(arguments);
+            Namespace namespace = parser.parseArgs(arguments);
+            validateShardingArguments(namespace);
+            return namespace;
         } catch (ArgumentParserException exception) {
             parser.handleError(exception);
             System.exit(1);
@@ -131,6 +166,36 @@ public final class CLI {
         return null;
     }
 
+    /**
+     * Checks the sharding arguments against each other, which the parser cannot do on its own.
+     * @param namespace encapsulates the parsed arguments in a {@link Namespace} format.
+     * @throws ArgumentParserException if the sharding arguments are invalid.
+     */
+    void validateShardingArguments(Namespace namespace) throws ArgumentParserException {
+        boolean merge = MERGE_SHARDS.<Boolean>getFrom(namespace);
+        if (!SHARD_COUNT.isSet(namespace)) {
+            if (SHARD_INDEX.isSet(namespace) || merge || SHARD_DIRECTORY.isSet(namespace)) {
+                throw new ArgumentParserException("arguments %s, %s and %s require %s".formatted(SHARD_INDEX.flag(), MERGE_SHARDS.flag(),
+                        SHARD_DIRECTORY.flag(), SHARD_COUNT.flag()), parser);
+            }
+            return;
+        }
+        int numberOfShards = SHARD_COUNT.getFrom(namespace);
+        if (numberOfShards < 1) {
+            throw new ArgumentParserException("argument %s: must be positive".formatted(SHARD_COUNT.flag()), parser);
+        }
+        if (SHARD_INDEX.isSet(namespace)) {
+            int shardIndex = SHARD_INDEX.getFrom(namespace);
+            if (merge) {
+                String message = "argument %s: not allowed with %s".formatted(SHARD_INDEX.flag(), MERGE_SHARDS.flag());
+                throw new ArgumentParserException(message, parser);
+            } else if (shardIndex < 0 || shardIndex >= numberOfShards) {
+                String message = "argument %s: must be between 0 and %d".formatted(SHARD_INDEX.flag(), numberOfShards - 1);
+                throw new ArgumentParserException(message, parser);
+            }
+        }
+    }
+
     /**
      * Builds a options instance from parsed arguments.
      * @param namespace encapsulates the parsed arguments in a {@link Namespace} format.
@@ -158,7 +223,7 @@ public final class CLI {
         JPlagOptions options = new JPlagOptions(language, MIN_TOKEN_MATCH.getFrom(namespace), submissionDirectories, oldSubmissionDirectories, null,
                 SUBDIRECTORY.getFrom(namespace), Arrays.stream(fileSuffixes).toList(), EXCLUDE_FILE.getFrom(namespace),
                 JPlagOptions.DEFAULT_SIMILARITY_METRIC, SIMILARITY_THRESHOLD.getFrom(namespace), SHOWN_COMPARISONS.getFrom(namespace),
-                clusteringOptions, DEBUG.getFrom(namespace));
+                clusteringOptions, DEBUG.getFrom(namespace), getPerformanceOptions(namespace));
 
         String baseCodePath = BASE_CODE.getFrom(namespace);
         File baseCodeDirectory = baseCodePath == null ? null : new File(baseCodePath);
@@ -221,6 +286,60 @@ public final class CLI {
         return clusteringOptions;
     }
 
+    private static PerformanceOptions getPerformanceOptions(Namespace namespace) {
+        PerformanceOptions performanceOptions = new PerformanceOptions();
+        if (STREAM_COMPARISONS.isSet(namespace)) {
+            performanceOptions = performanceOptions.withStreamComparisons(STREAM_COMPARISONS.getFrom(namespace));
+        }
+        if (CANDIDATE_FILTER.isSet(namespace)) {
+            performanceOptions = performanceOptions.withCandidateFilter(CANDIDATE_FILTER.getFrom(namespace));
+        }
+        if (CANDIDATE_JACCARD.isSet(namespace)) {
+            performanceOptions = performanceOptions.withMinimumEstimatedJaccard(CANDIDATE_JACCARD.getFrom(namespace));
+        }
+        if (ARCHIVE_INDEX.isSet(namespace)) {
+            performanceOptions = performanceOptions.withArchiveIndexFile(new File(ARCHIVE_INDEX.<String>getFrom(namespace)));
+        }
+        if (TOKEN_CACHE.isSet(namespace)) {
+            performanceOptions = performanceOptions.withTokenCacheDirectory(new File(TOKEN_CACHE.<String>getFrom(namespace)));
+        }
+        if (PARSING_THREADS.isSet(namespace)) {
+            performanceOptions = performanceOptions.withParsingThreads(PARSING_THREADS.getFrom(namespace));
+        }
+        if (MATCHING_ALGORITHM.isSet(namespace)) {
+            performanceOptions = performanceOptions.withMatchingAlgorithm(MATCHING_ALGORITHM.getFrom(namespace));
+        }
+        if (COMPARISON_THREADS.isSet(namespace)) {
+            performanceOptions = performanceOptions.withComparisonThreads(COMPARISON_THREADS.getFrom(namespace));
+        }
+        if (COMPARISON_BLOCK_TOKENS.isSet(namespace)) {
+            performanceOptions = performanceOptions.withComparisonBlockTokens(COMPARISON_BLOCK_TOKENS.getFrom(namespace));
+        }
+        if (SHARD_COUNT.isSet(namespace)) {
+            performanceOptions = performanceOptions.withSharding(getShardingOptions(namespace));
+        }
+        if (INCREMENTAL.isSet(namespace)) {
+            performanceOptions = performanceOptions.withPreviousResult(new File(INCREMENTAL.<String>getFrom(namespace)));
+        }
+        if (PIPELINED.isSet(namespace)) {
+            performanceOptions = performanceOptions.withPipelined(PIPELINED.getFrom(namespace));
+        }
+        return performanceOptions;
+    }
+
+    private static ShardingOptions getShardingOptions(Namespace namespace) {
+        ShardingOptions sharding = new ShardingOptions().withNumberOfShards(SHARD_COUNT.getFrom(namespace));
+        if (MERGE_SHARDS.<Boolean>getFrom(namespace)) {
+            sharding = sharding.withShardIndex(ShardingOptions.MERGE);
+        } else if (SHARD_INDEX.isSet(namespace)) {
+            sharding = sharding.withShardIndex(SHARD_INDEX.getFrom(namespace));
+        }
+        if (SHARD_DIRECTORY.isSet(namespace)) {
+            sharding = sharding.withShardDirectory(new File(SHARD_DIRECTORY.<String>getFrom(namespace)));
+        }
+        return sharding;
+    }
+
     private String generateDescription() {
         var randomDescription = DESCRIPTIONS[RANDOM.nextInt(DESCRIPTIONS.length)];
         return String.format("JPlag - %s%n%n%s", randomDescription, CREDITS);
@@ -18,6 +18,9 @@ import de.jplag.NumberOfArgumentValues;
 import de.jplag.clustering.ClusteringAlgorithm;
 import de.jplag.clustering.ClusteringOptions;
 import de.jplag.clustering.algorithm.InterClusterSimilarity;
+import de.jplag.options.CandidateFilter;
+import de.jplag.options.MatchingAlgorithm;
+import de.jplag.options.PerformanceOptions;
 import de.jplag.options.SimilarityMetric;
 
 import net.sourceforge.argparse4j.impl.Arguments;
@@ -79,7 +82,30 @@ public enum CommandLineArgument {
     CLUSTER_PREPROCESSING_NONE(new Builder("--cluster-pp-none", Boolean.class).action(Arguments.storeTrue()).hidden()),
     CLUSTER_PREPROCESSING_CDF(new Builder("--cluster-pp-cdf", Boolean.class).action(Arguments.storeTrue()).hidden()),
     CLUSTER_PREPROCESSING_PERCENTILE(new Builder("--cluster-pp-percentile", Double.class).metaVar("percentile").hidden()),
-    CLUSTER_PREPROCESSING_THRESHOLD(new Builder("--cluster-pp-threshold", Double.class).metaVar("threshold").hidden());
+    CLUSTER_PREPROCESSING_THRESHOLD(new Builder("--cluster-pp-threshold", Double.class).metaVar("threshold").hidden()),
+    STREAM_COMPARISONS(new Builder("--stream-comparisons", Boolean.class).argumentGroup(ADVANCED_GROUP).action(Arguments.storeTrue())),
+    CANDIDATE_FILTER(
+            new Builder("--candidate-filter", CandidateFilter.class).argumentGroup(ADVANCED_GROUP)
+                    .defaultsTo(new PerformanceOptions().candidateFilter())),
+    CANDIDATE_JACCARD(
+            new Builder("--candidate-jaccard", Double.class).metaVar("jaccard").argumentGroup(ADVANCED_GROUP)
+                    .defaultsTo(PerformanceOptions.DEFAULT_MINIMUM_ESTIMATED_JACCARD)),
+    ARCHIVE_INDEX(new Builder("--archive-index", String.class).metaVar("file").argumentGroup(ADVANCED_GROUP)),
+    TOKEN_CACHE(new Builder("--token-cache", String.class).metaVar("directory").argumentGroup(ADVANCED_GROUP)),
+    PARSING_THREADS(new Builder("--parsing-threads", Integer.class).metaVar("threads").argumentGroup(ADVANCED_GROUP)),
+    MATCHING_ALGORITHM(
+            new Builder("--matching-algorithm", MatchingAlgorithm.class).argumentGroup(ADVANCED_GROUP)
+                    .defaultsTo(new PerformanceOptions().matchingAlgorithm())),
+    COMPARISON_THREADS(new Builder("--comparison-threads", Integer.class).metaVar("threads").argumentGroup(ADVANCED_GROUP)),
+    COMPARISON_BLOCK_TOKENS(new Builder("--comparison-block-tokens", Integer.class).metaVar("tokens").argumentGroup(ADVANCED_GROUP)),
+    SHARD_COUNT(new Builder("--shard-count", Integer.class).metaVar("shards").argumentGroup(ADVANCED_GROUP)),
+    SHARD_INDEX(new Builder("--shard-index", Integer.class).metaVar("index").argumentGroup(ADVANCED_GROUP)),
+    SHARD_DIRECTORY(new Builder("--shard-directory", String.class).metaVar("directory").argumentGroup(ADVANCED_GROUP)),
+    MERGE_SHARDS(new Builder("--merge-shards", Boolean.class).argumentGroup(ADVANCED_GROUP).action(Arguments.storeTrue())),
+    SAVE_SNAPSHOT(new Builder("--save-snapshot", String.class).metaVar("file").argumentGroup(ADVANCED_GROUP)),
+    LOAD_SNAPSHOT(new Builder("--load-snapshot", String.class).metaVar("file").argumentGroup(ADVANCED_GROUP)),
+    INCREMENTAL(new Builder("--incremental", String.class).metaVar("file").argumentGroup(ADVANCED_GROUP)),
+    PIPELINED(new Builder("--pipelined", Boolean.class).argumentGroup(ADVANCED_GROUP).action(Arguments.storeTrue()));
 
     /**
      * The identifier of the default {@link Language}.
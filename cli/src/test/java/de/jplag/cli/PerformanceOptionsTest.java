@@ -0,0 +1,152 @@
+package de.jplag.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import de.jplag.options.CandidateFilter;
+import de.jplag.options.MatchingAlgorithm;
+import de.jplag.options.PerformanceOptions;
+import de.jplag.options.ShardingOptions;
+
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+class PerformanceOptionsTest extends CommandLineInterfaceTest {
+
+    @Test
+    void testDefault() {
+        buildOptionsFromCLI(CURRENT_DIRECTORY);
+        assertFalse(options.performanceOptions().streamComparisons());
+    }
+
+    @Test
+    void testStreamComparisons() {
+        buildOptionsFromCLI(CommandLineArgument.STREAM_COMPARISONS.flag(), CURRENT_DIRECTORY);
+        assertTrue(options.performanceOptions().streamComparisons());
+    }
+
+    @Test
+    void testCandidateFilter() {
+        String filterArgument = buildArgument(CommandLineArgument.CANDIDATE_FILTER, CandidateFilter.MIN_HASH.name());
+        String jaccardArgument = buildArgument(CommandLineArgument.CANDIDATE_JACCARD, "0.3");
+        buildOptionsFromCLI(filterArgument, jaccardArgument, CURRENT_DIRECTORY);
+        assertEquals(CandidateFilter.MIN_HASH, options.performanceOptions().candidateFilter());
+        assertEquals(0.3, options.performanceOptions().minimumEstimatedJaccard());
+    }
+
+    @Test
+    void testCandidateFilterDefault() {
+        buildOptionsFromCLI(CURRENT_DIRECTORY);
+        assertEquals(CandidateFilter.NONE, options.performanceOptions().candidateFilter());
+        assertEquals(PerformanceOptions.DEFAULT_MINIMUM_ESTIMATED_JACCARD, options.performanceOptions().minimumEstimatedJaccard());
+    }
+
+    @Test
+    void testArchiveIndex() {
+        String argument = buildArgument(CommandLineArgument.ARCHIVE_INDEX, "archive.index");
+        buildOptionsFromCLI(argument, CURRENT_DIRECTORY);
+        assertEquals(new File("archive.index"), options.performanceOptions().archiveIndexFile());
+    }
+
+    @Test
+    void testTokenCache() {
+        String argument = buildArgument(CommandLineArgument.TOKEN_CACHE, "tokens");
+        buildOptionsFromCLI(argument, CURRENT_DIRECTORY);
+        assertEquals(new File("tokens"), options.performanceOptions().tokenCacheDirectory());
+    }
+
+    @Test
+    void testParsingThreads() {
+        String argument = buildArgument(CommandLineArgument.PARSING_THREADS, "3");
+        buildOptionsFromCLI(argument, CURRENT_DIRECTORY);
+        assertEquals(3, options.performanceOptions().parsingThreads());
+    }
+
+    @Test
+    void testMatchingAlgorithm() {
+        String argument = buildArgument(CommandLineArgument.MATCHING_ALGORITHM, MatchingAlgorithm.SUFFIX_ARRAY.name());
+        buildOptionsFromCLI(argument, CURRENT_DIRECTORY);
+        assertEquals(MatchingAlgorithm.SUFFIX_ARRAY, options.performanceOptions().matchingAlgorithm());
+    }
+
+    @Test
+    void testMatchingAlgorithmDefault() {
+        buildOptionsFromCLI(CURRENT_DIRECTORY);
+        assertEquals(MatchingAlgorithm.GREEDY_STRING_TILING, options.performanceOptions().matchingAlgorithm());
+    }
+
+    @Test
+    void testComparisonThreads() {
+        String argument = buildArgument(CommandLineArgument.COMPARISON_THREADS, "5");
+        buildOptionsFromCLI(argument, CURRENT_DIRECTORY);
+        assertEquals(5, options.performanceOptions().comparisonThreads());
+    }
+
+    @Test
+    void testComparisonBlockTokens() {
+        String argument = buildArgument(CommandLineArgument.COMPARISON_BLOCK_TOKENS, "100000");
+        buildOptionsFromCLI(argument, CURRENT_DIRECTORY);
+        assertEquals(100000, options.performanceOptions().comparisonBlockTokens());
+    }
+
+    @Test
+    void testShardIndex() {
+        String countArgument = buildArgument(CommandLineArgument.SHARD_COUNT, "4");
+        String indexArgument = buildArgument(CommandLineArgument.SHARD_INDEX, "2");
+        String directoryArgument = buildArgument(CommandLineArgument.SHARD_DIRECTORY, "shards");
+        buildOptionsFromCLI(countArgument, indexArgument, directoryArgument, CURRENT_DIRECTORY);
+        assertEquals(new ShardingOptions(4, 2, new File("shards")), options.performanceOptions().sharding());
+    }
+
+    @Test
+    void testMergeShards() {
+        String countArgument = buildArgument(CommandLineArgument.SHARD_COUNT, "4");
+        buildOptionsFromCLI(countArgument, CommandLineArgument.MERGE_SHARDS.flag(), CURRENT_DIRECTORY);
+        assertTrue(options.performanceOptions().sharding().isMerge());
+    }
+
+    @Test
+    void testShardingDefault() {
+        buildOptionsFromCLI(CURRENT_DIRECTORY);
+        assertFalse(options.performanceOptions().sharding().enabled());
+    }
+
+    @Test
+    void testInvalidShardingArguments() {
+        CLI cli = new CLI();
+        assertThrows(ArgumentParserException.class, () -> cli.validateShardingArguments(shardingArguments(4, 7, false)));
+        assertThrows(ArgumentParserException.class, () -> cli.validateShardingArguments(shardingArguments(-1, null, true)));
+        assertThrows(ArgumentParserException.class, () -> cli.validateShardingArguments(shardingArguments(4, 2, true)));
+        assertThrows(ArgumentParserException.class, () -> cli.validateShardingArguments(shardingArguments(null, 2, false)));
+        assertThrows(ArgumentParserException.class, () -> cli.validateShardingArguments(shardingArguments(null, null, true)));
+    }
+
+    private static Namespace shardingArguments(Integer numberOfShards, Integer shardIndex, boolean merge) {
+        Map<String, Object> arguments = new HashMap<>();
+        arguments.put(CommandLineArgument.SHARD_COUNT.flagWithoutDash(), numberOfShards);
+        arguments.put(CommandLineArgument.SHARD_INDEX.flagWithoutDash(), shardIndex);
+        arguments.put(CommandLineArgument.MERGE_SHARDS.flagWithoutDash(), merge);
+        return new Namespace(arguments);
+    }
+
+    @Test
+    void testIncremental() {
+        String argument = buildArgument(CommandLineArgument.INCREMENTAL, "previous.snapshot");
+        buildOptionsFromCLI(argument, CURRENT_DIRECTORY);
+        assertEquals(new File("previous.snapshot"), options.performanceOptions().previousResult());
+    }
+
+    @Test
+    void testPipelined() {
+        buildOptionsFromCLI(CommandLineArgument.PIPELINED.flag(), CURRENT_DIRECTORY);
+        assertTrue(options.performanceOptions().pipelined());
+    }
+}
@@ -0,0 +1,149 @@
+package de.jplag;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of tokens that stores each token attribute in a primitive array instead of one object per token. The
+ * type of each token is stored as an id of a {@link TokenTypeRegistry}, so the ids can be compared directly across the
+ * submissions of a run, which share the registry. The files are stored as indexes into a table of the distinct files. Elements are
+ * {@link Token} views that are created on access.
+ */
+public class ColumnarTokenList extends AbstractList<Token> implements RandomAccess {
+    private static final int NO_FILE = -1;
+
+    private final TokenTypeRegistry typeRegistry;
+    private final int[] types;
+    private final int[] lines;
+    private final int[] columns;
+    private final int[] lengths;
+    private final int[] fileIndexes;
+    private final File[] files;
+
+    private ColumnarTokenList(TokenTypeRegistry typeRegistry, int[] types, int[] lines, int[] columns, int[] lengths, int[] fileIndexes,
+            File[] files) {
+        this.typeRegistry = typeRegistry;
+        this.types = types;
+        this.lines = lines;
+        this.columns = columns;
+        this.lengths = lengths;
+        this.fileIndexes = fileIndexes;
+        this.files = files;
+    }
+
+    /**
+     * Stores the given tokens in columnar form. Returns the list itself if it is already columnar with the same registry.
+     * @param tokens are the tokens to store.
+     * @param typeRegistry assigns the ids of the token types.
+     * @return the columnar list of the tokens.
+     */
+    public static ColumnarTokenList of(List<Token> tokens, TokenTypeRegistry typeRegistry) {
+        if (tokens instanceof ColumnarTokenList columnarTokens && columnarTokens.typeRegistry == typeRegistry) {
+            return columnarTokens;
+        }
+        Builder builder = new Builder(tokens.size(), typeRegistry);
+        for (Token token : tokens) {
+            builder.add(token.getType(), token.getFile(), token.getLine(), token.getColumn(), token.getLength());
+        }
+        return builder.build();
+    }
+
+    @Override
+    public Token get(int index) {
+        int fileIndex = fileIndexes[index];
+        return new Token(getType(index), fileIndex == NO_FILE ? null : files[fileIndex], lines[index], columns[index], lengths[index]);
+    }
+
+    @Override
+    public int size() {
+        return types.length;
+    }
+
+    /**
+     * Returns the type of a token without creating a view of the token.
+     * @param index is the index of the token.
+     * @return the type of the token.
+     */
+    public TokenType getType(int index) {
+        return typeRegistry.typeOf(types[index]);
+    }
+
+    /**
+     * Returns the type ids of all tokens. Tokens of lists with the same registry have the same id if and only if they have
+     * the same type. The {@link SharedTokenType#FILE_END FILE_END} type has the id zero.
+     * @return the type ids, which are shared and must not be modified.
+     */
+    public int[] typeIds() {
+        return types;
+    }
+
+    /**
+     * Collects tokens one by one without creating token objects.
+     */
+    public static class Builder {
+        private final TokenTypeRegistry typeRegistry;
+        private int[] types;
+        private int[] lines;
+        private int[] columns;
+        private int[] lengths;
+        private int[] fileIndexes;
+        private int size;
+        private final Map<File, Integer> fileTable = new HashMap<>();
+
+        /**
+         * @param expectedSize is the expected number of tokens.
+         * @param typeRegistry assigns the ids of the token types.
+         */
+        public Builder(int expectedSize, TokenTypeRegistry typeRegistry) {
+            this.typeRegistry = typeRegistry;
+            int capacity = Math.max(16, expectedSize);
+            types = new int[capacity];
+            lines = new int[capacity];
+            columns = new int[capacity];
+            lengths = new int[capacity];
+            fileIndexes = new int[capacity];
+        }
+
+        /**
+         * Adds a token.
+         * @param type is the token type.
+         * @param file is the source code file of the token, may be null.
+         * @param line is the line of the token.
+         * @param column is the column of the token.
+         * @param length is the length of the token.
+         * @return this builder.
+         */
+        public Builder add(TokenType type, File file, int line, int column, int length) {
+            if (size == types.length) {
+                int capacity = size * 2;
+                types = Arrays.copyOf(types, capacity);
+                lines = Arrays.copyOf(lines, capacity);
+                columns = Arrays.copyOf(columns, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                fileIndexes = Arrays.copyOf(fileIndexes, capacity);
+            }
+            types[size] = typeRegistry.idOf(type);
+            lines[size] = line;
+            columns[size] = column;
+            lengths[size] = length;
+            fileIndexes[size] = file == null ? NO_FILE : fileTable.computeIfAbsent(file, it -> fileTable.size());
+            size++;
+            return this;
+        }
+
+        /**
+         * @return the list of all added tokens.
+         */
+        public ColumnarTokenList build() {
+            File[] files = new File[fileTable.size()];
+            fileTable.forEach((file, index) -> files[index] = file);
+            return new ColumnarTokenList(typeRegistry, Arrays.copyOf(types, size), Arrays.copyOf(lines, size),
+                    Arrays.copyOf(columns, size), Arrays.copyOf(lengths, size), Arrays.copyOf(fileIndexes, size), files);
+        }
+    }
+}
@@ -1,39 +1,44 @@
 package de.jplag;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.IdentityHashMap;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
+import de.jplag.SubmissionDataCache.MarkingBuffers;
+import de.jplag.SubmissionDataCache.SubmissionData;
 import de.jplag.options.JPlagOptions;
 
 /**
  * This class implements the Greedy String Tiling algorithm as introduced by Michael Wise. However, it is very specific
  * to the classes {@link Token}, and {@link Match}. Class implementation is thread-safe, i.e. submission can be compared
- * in parallel.
+ * in parallel. The per-submission data required for comparing (token values, marked tokens, and subsequence hash lookup
+ * tables) is cached in immutable form up to a memory budget, see {@link #prepareSubmissions(Collection)}.
  * @see <a href=
  * "https://www.researchgate.net/publication/262763983_String_Similarity_via_Greedy_String_Tiling_and_Running_Karp-Rabin_Matching">
  * String Similarity via Greedy String Tiling and Running Karp−Rabin Matching </a>
  */
-public class GreedyStringTiling {
+public class GreedyStringTiling implements MatchingEngine {
+    /** Rough upper bound of the cached bytes per token (token values, hashes, and lookup table slots). */
+    private static final int ESTIMATED_CACHED_BYTES_PER_TOKEN = 48;
 
     private final int minimumMatchLength;
-    private ConcurrentMap<TokenType, Integer> tokenTypeValues;
-    private final Map<Submission, Set<Token>> baseCodeMarkings = new IdentityHashMap<>();
 
-    private final Map<Submission, int[]> cachedTokenValueLists = new IdentityHashMap<>();
-    private final Map<Submission, SubsequenceHashLookupTable> cachedHashLookupTables = new IdentityHashMap<>();
+    private final SubmissionDataCache<SubsequenceHashLookupTable> submissionData;
 
     public GreedyStringTiling(JPlagOptions options) {
+        this(options, SubmissionDataCache.defaultMaximumCachedTokens(ESTIMATED_CACHED_BYTES_PER_TOKEN));
+    }
+
+    /**
+     * Creates the algorithm with an explicit cache size.
+     * @param options determine the minimum match length.
+     * @param maximumCachedTokens is the maximum number of tokens for which submission data is cached. If the data of all
+     * submissions does not fit, data not used recently is evicted and recomputed when needed, at worst once per comparison.
+     */
+    public GreedyStringTiling(JPlagOptions options, long maximumCachedTokens) {
         this.minimumMatchLength = options.minimumTokenMatch();
-        this.tokenTypeValues = new ConcurrentHashMap<>();
-        this.tokenTypeValues.put(SharedTokenType.FILE_END, 0);
+        this.submissionData = new SubmissionDataCache<>(maximumCachedTokens,
+                (values, initialMarking) -> new SubsequenceHashLookupTable(minimumMatchLength, values, initialMarking));
     }
 
     /**
@@ -44,25 +49,51 @@ public class GreedyStringTiling {
      * @param baseCodeSubmission is the base code submission.
      * @return the comparison of the submission with the base code submission.
      */
+    @Override
     public final JPlagComparison generateBaseCodeMarking(Submission submission, Submission baseCodeSubmission) {
         JPlagComparison comparison = compare(submission, baseCodeSubmission);
+        // The cached lookup table is regenerated with the new marking, which is a performance optimization to not suggest
+        // subsequences with base code for the matching. Removing this optimization would not change the result as the base
+        // code matches are additionally checked by validating that no match has a marked token.
+        submissionData.markBaseCode(submission, comparison);
+        return comparison;
+    }
 
-        List<Token> submissionTokenList = submission.getTokenList();
-        Set<Token> baseCodeMarking = new HashSet<>();
-        for (Match match : comparison.matches()) {
-            int startIndex = comparison.firstSubmission() == submission ? match.startOfFirst() : match.startOfSecond();
-            baseCodeMarking.addAll(submissionTokenList.subList(startIndex, startIndex + match.length()));
-        }
-        baseCodeMarkings.put(submission, baseCodeMarking);
+    /**
+     * Computes the data required for comparing the given submissions in parallel and caches it, such that the subsequent
+     * pairwise comparisons only read immutable data. Must be called after all base code markings have been generated.
+     * Calling this method is optional, as missing data is computed on demand. Submissions that do not fit into the cache
+     * are skipped.
+     * @param submissions are the submissions to prepare.
+     */
+    @Override
+    public void prepareSubmissions(Collection<Submission> submissions) {
+        submissionData.prepare(submissions);
+    }
 
-        // Remove the lookup table for the current submission to trigger a regeneration as hashes will change due to the new
-        // baseCodeMarking.
-        // This is a performance optimization to not suggest subsequences with baseCode for the matching.
-        // Removing this optimization would not change the result as the baseCode matches are additionally checked by validating
-        // that no match has a marked token (which baseCode-containing tokens are).
-        cachedHashLookupTables.remove(submission);
+    /**
+     * Returns the distinct hashes of all subsequences of the submission that are long enough and unmarked to be part of a
+     * match. Two submissions can only have a match if they share at least one of these hashes. Must be called after all
+     * base code markings have been generated.
+     * @param submission is the submission to get the hashes for.
+     * @return the distinct subsequence hashes, in no particular order.
+     */
+    @Override
+    public int[] matchableSubsequenceHashes(Submission submission) {
+        return submissionData.get(submission).engineData().distinctSubsequenceHashes();
+    }
 
-        return comparison;
+    /**
+     * Returns an upper bound of the number of tokens matched by comparing the two submissions. Only unmarked tokens can be
+     * matched, and only with tokens of the same type, so the bound is the intersection of the token type histograms of the
+     * unmarked tokens. Must be called after all base code markings have been generated.
+     * @param firstSubmission is one of the two submissions.
+     * @param secondSubmission is the other of the two submissions.
+     * @return the upper bound, zero if the submissions cannot have a match.
+     */
+    @Override
+    public int maximumMatchedTokens(Submission firstSubmission, Submission secondSubmission) {
+        return submissionData.maximumMatchedTokens(firstSubmission, secondSubmission, minimumMatchLength);
     }
 
     /**
@@ -72,7 +103,23 @@ public class GreedyStringTiling {
      * @param secondSubmission is the other of the two submissions.
      * @return the comparison between the two submissions.
      */
+    @Override
     public final JPlagComparison compare(Submission firstSubmission, Submission secondSubmission) {
+        return compare(firstSubmission, secondSubmission, 0);
+    }
+
+    /**
+     * Compares the two submissions and generates matches between them, but stops as soon as the given number of matched
+     * tokens cannot be reached anymore. After each tiling iteration, the tokens of the smaller submission that can still be
+     * matched are bounded by those covered by an unmarked subsequence of minimum match length whose hash occurs in the
+     * larger submission.
+     * @param firstSubmission is one of the two submissions.
+     * @param secondSubmission is the other of the two submissions.
+     * @param minimumMatchedTokens is the number of matched tokens the comparison is required to reach.
+     * @return the comparison between the two submissions. If it has less matched tokens than required, it may be incomplete.
+     */
+    @Override
+    public final JPlagComparison compare(Submission firstSubmission, Submission secondSubmission, int minimumMatchedTokens) {
         Submission smallerSubmission;
         Submission largerSubmission;
         if (firstSubmission.getTokenList().size() > secondSubmission.getTokenList().size()) {
@@ -82,48 +129,84 @@ public class GreedyStringTiling {
             smallerSubmission = firstSubmission;
             largerSubmission = secondSubmission;
         }
-        return compareInternal(smallerSubmission, largerSubmission);
+        return compareInternal(smallerSubmission, largerSubmission, minimumMatchedTokens);
     }
 
     /**
      * Compares two submissions. FILE_END is used as pivot
      * @param leftSubmission is the submission with the smaller sequence.
      * @param rightSubmission is the submission with the larger sequence.
+     * @param minimumMatchedTokens is the number of matched tokens below which the comparison may stop early.
      * @return the comparison results.
      */
-    private JPlagComparison compareInternal(Submission leftSubmission, Submission rightSubmission) {
+    private JPlagComparison compareInternal(Submission leftSubmission, Submission rightSubmission, int minimumMatchedTokens) {
         List<Token> leftTokens = leftSubmission.getTokenList();
         List<Token> rightTokens = rightSubmission.getTokenList();
 
-        int[] leftValues = tokenValueListFromSubmission(leftSubmission);
-        int[] rightValues = tokenValueListFromSubmission(rightSubmission);
-
         // comparison uses <= because it is assumed that the last token is a pivot (FILE_END)
         if (leftTokens.size() <= minimumMatchLength || rightTokens.size() <= minimumMatchLength) {
             return new JPlagComparison(leftSubmission, rightSubmission, List.of());
         }
 
-        Set<Integer> leftMarkedIndexes = initiallyMarkedTokenIndexes(leftSubmission);
-        Set<Integer> rightMarkedIndexes = initiallyMarkedTokenIndexes(rightSubmission);
+        SubmissionData<SubsequenceHashLookupTable> leftData = submissionData.get(leftSubmission);
+        SubmissionData<SubsequenceHashLookupTable> rightData = submissionData.get(rightSubmission);
+
+        int[] leftValues = leftData.values();
+        int[] rightValues = rightData.values();
+        SubsequenceHashLookupTable leftLookupTable = leftData.engineData();
+        SubsequenceHashLookupTable rightLookupTable = rightData.engineData();
 
-        SubsequenceHashLookupTable leftLookupTable = subsequenceHashLookupTableForSubmission(leftSubmission, leftMarkedIndexes);
-        SubsequenceHashLookupTable rightLookupTable = subsequenceHashLookupTableForSubmission(rightSubmission, rightMarkedIndexes);
+        MarkingBuffers buffers = submissionData.markingBuffers();
+        TokenMarking leftMarkedIndexes = buffers.left;
+        TokenMarking rightMarkedIndexes = buffers.right;
+        leftMarkedIndexes.copyFrom(leftData.initialMarking());
+        rightMarkedIndexes.copyFrom(rightData.initialMarking());
 
+        List<Match> matches = computeMatches(leftValues, leftMarkedIndexes, leftLookupTable, rightValues, rightMarkedIndexes, rightLookupTable,
+                minimumMatchedTokens);
+        return new JPlagComparison(leftSubmission, rightSubmission, matches);
+    }
+
+    /**
+     * Computes the non-overlapping matches of at least minimum match length between two token value sequences by
+     * iteratively tiling the longest remaining matches. Matched tokens are marked.
+     * @param leftValues are the values of the smaller sequence.
+     * @param leftMarkedIndexes marks the tokens of the smaller sequence that must not be matched. Is modified.
+     * @param leftLookupTable is the subsequence hash lookup table of the smaller sequence.
+     * @param rightValues are the values of the larger sequence.
+     * @param rightMarkedIndexes marks the tokens of the larger sequence that must not be matched. Is modified.
+     * @param rightLookupTable is the subsequence hash lookup table of the larger sequence.
+     * @param minimumMatchedTokens is the number of matched tokens below which the tiling may stop early, zero to never stop.
+     * @return the matches.
+     */
+    private List<Match> computeMatches(int[] leftValues, TokenMarking leftMarkedIndexes, SubsequenceHashLookupTable leftLookupTable,
+            int[] rightValues, TokenMarking rightMarkedIndexes, SubsequenceHashLookupTable rightLookupTable, int minimumMatchedTokens) {
         int maximumMatchLength;
+        int matchedTokens = 0;
         List<Match> globalMatches = new ArrayList<>();
         do {
+            if (minimumMatchedTokens > 0) {
+                int reachableTokens = matchedTokens + maximumRemainingMatchedTokens(leftValues, leftMarkedIndexes, leftLookupTable, rightLookupTable);
+                if (reachableTokens < minimumMatchedTokens) {
+                    break; // the comparison cannot reach the required number of matched tokens anymore
+                }
+            }
             maximumMatchLength = minimumMatchLength;
             List<Match> iterationMatches = new ArrayList<>();
             for (int leftStartIndex = 0; leftStartIndex < leftValues.length - maximumMatchLength; leftStartIndex++) {
                 int leftSubsequenceHash = leftLookupTable.subsequenceHashForStartIndex(leftStartIndex);
-                if (leftMarkedIndexes.contains(leftStartIndex) || leftSubsequenceHash == SubsequenceHashLookupTable.NO_HASH) {
+                if (leftMarkedIndexes.isMarked(leftStartIndex) || leftSubsequenceHash == SubsequenceHashLookupTable.NO_HASH) {
                     continue;
                 }
-                List<Integer> possiblyMatchingRightStartIndexes = rightLookupTable
-                        .startIndexesOfPossiblyMatchingSubsequencesForSubsequenceHash(leftSubsequenceHash);
-                for (Integer rightStartIndex : possiblyMatchingRightStartIndexes) {
+                int rightSlot = rightLookupTable.slotForSubsequenceHash(leftSubsequenceHash);
+                if (rightSlot == SubsequenceHashLookupTable.NO_SLOT) {
+                    continue;
+                }
+                int candidateRangeEnd = rightLookupTable.candidateRangeEnd(rightSlot);
+                for (int candidate = rightLookupTable.candidateRangeStart(rightSlot); candidate < candidateRangeEnd; candidate++) {
+                    int rightStartIndex = rightLookupTable.candidateStartIndex(candidate);
                     // comparison uses >= because it is assumed that the last token is a pivot (FILE_END)
-                    if (rightMarkedIndexes.contains(rightStartIndex) || maximumMatchLength >= rightValues.length - rightStartIndex) {
+                    if (rightMarkedIndexes.isMarked(rightStartIndex) || maximumMatchLength >= rightValues.length - rightStartIndex) {
                         continue;
                     }
 
@@ -141,15 +224,38 @@ public class GreedyStringTiling {
             }
             for (Match match : iterationMatches) {
                 addMatchIfNotOverlapping(globalMatches, match);
-                int leftStartIndex = match.startOfFirst();
-                int rightStartIndex = match.startOfSecond();
-                for (int offset = 0; offset < match.length(); offset++) {
-                    leftMarkedIndexes.add(leftStartIndex + offset);
-                    rightMarkedIndexes.add(rightStartIndex + offset);
-                }
+                matchedTokens += match.length();
+                leftMarkedIndexes.markRange(match.startOfFirst(), match.length());
+                rightMarkedIndexes.markRange(match.startOfSecond(), match.length());
             }
         } while (maximumMatchLength != minimumMatchLength);
-        return new JPlagComparison(leftSubmission, rightSubmission, globalMatches);
+        return globalMatches;
+    }
+
+    /**
+     * Returns an upper bound of the tokens of the smaller sequence that can still be matched. A token can only be part of a
+     * match if it is covered by an unmarked subsequence of minimum match length whose leading subsequence hash occurs in the
+     * larger sequence.
+     */
+    private int maximumRemainingMatchedTokens(int[] leftValues, TokenMarking leftMarkedIndexes, SubsequenceHashLookupTable leftLookupTable,
+            SubsequenceHashLookupTable rightLookupTable) {
+        int hashableStartIndexes = leftValues.length - leftLookupTable.getWindowSize();
+        int coveredTokens = 0;
+        int coveredUntil = 0;
+        int unmarkedLength = 0;
+        for (int index = 0; index < leftValues.length; index++) {
+            unmarkedLength = leftMarkedIndexes.isMarked(index) ? 0 : unmarkedLength + 1;
+            int startIndex = index - minimumMatchLength + 1;
+            if (unmarkedLength < minimumMatchLength || startIndex >= hashableStartIndexes) {
+                continue;
+            }
+            int hash = leftLookupTable.subsequenceHashForStartIndex(startIndex);
+            if (rightLookupTable.slotForSubsequenceHash(hash) != SubsequenceHashLookupTable.NO_SLOT) {
+                coveredTokens += index + 1 - Math.max(coveredUntil, startIndex);
+                coveredUntil = index + 1;
+            }
+        }
+        return coveredTokens;
     }
 
     /**
@@ -166,19 +272,18 @@ public class GreedyStringTiling {
      * @return the maximal matching subsequence length, or 0 if there is no subsequence of at least the minimum sequence
      * length.
      */
-    private int maximalMatchingSubsequenceLengthNotMarked(int[] leftValues, int leftStartIndex, Set<Integer> leftMarkedIndexes, int[] rightValues,
-            int rightStartIndex, Set<Integer> rightMarkedIndexes, int minimumSequenceLength) {
+    private int maximalMatchingSubsequenceLengthNotMarked(int[] leftValues, int leftStartIndex, TokenMarking leftMarkedIndexes, int[] rightValues,
+            int rightStartIndex, TokenMarking rightMarkedIndexes, int minimumSequenceLength) {
         for (int offset = minimumSequenceLength - 1; offset >= 0; offset--) {
             int leftIndex = leftStartIndex + offset;
             int rightIndex = rightStartIndex + offset;
-            if (leftValues[leftIndex] != rightValues[rightIndex] || leftMarkedIndexes.contains(leftIndex)
-                    || rightMarkedIndexes.contains(rightIndex)) {
+            if (leftValues[leftIndex] != rightValues[rightIndex] || leftMarkedIndexes.isMarked(leftIndex) || rightMarkedIndexes.isMarked(rightIndex)) {
                 return 0;
             }
         }
         int offset = minimumSequenceLength;
-        while (leftValues[leftStartIndex + offset] == rightValues[rightStartIndex + offset] && !leftMarkedIndexes.contains(leftStartIndex + offset)
-                && !rightMarkedIndexes.contains(rightStartIndex + offset)) {
+        while (leftValues[leftStartIndex + offset] == rightValues[rightStartIndex + offset] && !leftMarkedIndexes.isMarked(leftStartIndex + offset)
+                && !rightMarkedIndexes.isMarked(rightStartIndex + offset)) {
             offset++;
         }
         return offset;
@@ -192,36 +297,4 @@ public class GreedyStringTiling {
         }
         matches.add(match);
     }
-
-    private Set<Integer> initiallyMarkedTokenIndexes(Submission submission) {
-        Set<Token> baseCodeTokens = baseCodeMarkings.get(submission);
-        List<Token> tokens = submission.getTokenList();
-        return IntStream.range(0, tokens.size())
-                .filter(i -> tokens.get(i).getType().isExcludedFromMatching() || (baseCodeTokens != null && baseCodeTokens.contains(tokens.get(i))))
-                .boxed().collect(Collectors.toSet());
-    }
-
-    private SubsequenceHashLookupTable subsequenceHashLookupTableForSubmission(Submission submission, Set<Integer> markedIndexes) {
-        return cachedHashLookupTables.computeIfAbsent(submission,
-                (key -> new SubsequenceHashLookupTable(minimumMatchLength, tokenValueListFromSubmission(key), markedIndexes)));
-    }
-
-    /**
-     * Converts the tokens of the submission to a list of values.
-     * @param submission The submission from which to convert the tokens.
-     */
-    private int[] tokenValueListFromSubmission(Submission submission) {
-        return cachedTokenValueLists.computeIfAbsent(submission, (key -> {
-            List<Token> tokens = key.getTokenList();
-            int[] tokenValueList = new int[tokens.size()];
-            for (int i = 0; i < tokens.size(); i++) {
-                TokenType type = tokens.get(i).getType();
-                synchronized (tokenTypeValues) {
-                    tokenTypeValues.putIfAbsent(type, tokenTypeValues.size());
-                }
-                tokenValueList[i] = tokenTypeValues.get(type);
-            }
-            return tokenValueList;
-        }));
-    }
 }
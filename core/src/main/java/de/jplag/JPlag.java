@@ -1,17 +1,23 @@
 package de.jplag;
 
+import java.io.File;
+import java.util.List;
 import java.util.ResourceBundle;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.jplag.clustering.ClusteringFactory;
+import de.jplag.clustering.ClusteringOptions;
+import de.jplag.clustering.ClusteringResult;
 import de.jplag.exceptions.ExitException;
 import de.jplag.exceptions.SubmissionException;
 import de.jplag.options.JPlagOptions;
+import de.jplag.options.ShardingOptions;
 import de.jplag.reporting.reportobject.model.Version;
 import de.jplag.strategy.ComparisonStrategy;
 import de.jplag.strategy.ParallelComparisonStrategy;
+import de.jplag.strategy.ReusedComparisons;
 
 /**
  * This class coordinates the whole errorConsumer flow.
@@ -40,8 +46,11 @@ public class JPlag {
     public JPlag(JPlagOptions options) {
         this.options = options;
         language = this.options.language();
-        GreedyStringTiling coreAlgorithm = new GreedyStringTiling(options);
-        comparisonStrategy = new ParallelComparisonStrategy(options, coreAlgorithm);
+        MatchingEngine matchingEngine = switch (options.performanceOptions().matchingAlgorithm()) {
+            case GREEDY_STRING_TILING -> new GreedyStringTiling(options);
+            case SUFFIX_ARRAY -> new SuffixArrayMatching(options);
+        };
+        comparisonStrategy = new ParallelComparisonStrategy(options, matchingEngine);
     }
 
     /**
@@ -50,22 +59,66 @@ public class JPlag {
      * @throws ExitException if the JPlag exits preemptively.
      */
     public JPlagResult run() throws ExitException {
-        // Parse and validate submissions.
         SubmissionSetBuilder builder = new SubmissionSetBuilder(language, options);
-        SubmissionSet submissionSet = builder.buildSubmissionSet();
+        JPlagResult result;
+        if (options.performanceOptions().effectivePipelined()) {
+            // Parse and compare valid submissions at the same time.
+            result = comparisonStrategy.parseAndCompareSubmissions(builder);
+            checkNumberOfSubmissions(result.getSubmissions());
+        } else {
+            if (options.performanceOptions().pipelined()) {
+                logger.info("Comparisons are not pipelined, as they are streamed, filtered, sharded or reused");
+            }
+            // Parse and validate submissions.
+            SubmissionSet submissionSet = builder.buildSubmissionSet();
+            checkNumberOfSubmissions(submissionSet);
 
-        int submissionCount = submissionSet.numberOfSubmissions();
-        if (submissionCount < 2) {
-            throw new SubmissionException("Not enough valid submissions! (found " + submissionCount + " valid submissions)");
+            // Compare valid submissions, except for the pairs of unchanged submissions in an incremental run.
+            File previousResult = options.performanceOptions().previousResult();
+            ReusedComparisons reusedComparisons = previousResult == null ? ReusedComparisons.none()
+                    : ResultSnapshot.reusableComparisons(previousResult, submissionSet, options);
+            result = comparisonStrategy.compareSubmissions(submissionSet, reusedComparisons);
         }
-
-        // Compare valid submissions.
-        JPlagResult result = comparisonStrategy.compareSubmissions(submissionSet);
         if (logger.isInfoEnabled())
             logger.info("Total time for comparing submissions: {}", TimeUtil.formatDuration(result.getDuration()));
 
-        result.setClusteringResult(ClusteringFactory.getClusterings(result.getAllComparisons(), options.clusteringOptions()));
+        ShardingOptions sharding = options.performanceOptions().sharding();
+        if (sharding.enabled() && !sharding.isMerge()) { // the comparisons of a single shard are not clustered
+            result.setClusteringResult(List.of());
+            return result;
+        }
+        cluster(result);
+        return result;
+    }
 
+    /**
+     * Restores the result of a previous run from its snapshot instead of parsing and comparing the submissions, see
+     * {@link ResultSnapshot}. The comparisons are filtered by the similarity threshold and clustered according to the
+     * options of this instance. The threshold must not be below the one the snapshot was written with.
+     * @param snapshotFile is the file of the snapshot.
+     * @return the restored result.
+     * @throws ExitException if the snapshot cannot be restored with the options of this instance.
+     */
+    public JPlagResult restore(File snapshotFile) throws ExitException {
+        JPlagResult result = ResultSnapshot.read(snapshotFile, options);
+        logger.info("Restored {} comparisons from result snapshot {}", result.getAllComparisons().size(), snapshotFile);
+        cluster(result);
         return result;
     }
+
+    private static void checkNumberOfSubmissions(SubmissionSet submissionSet) throws SubmissionException {
+        int submissionCount = submissionSet.numberOfSubmissions();
+        if (submissionCount < 2) {
+            throw new SubmissionException("Not enough valid submissions! (found " + submissionCount + " valid submissions)");
+        }
+    }
+
+    private void cluster(JPlagResult result) {
+        ClusteringOptions clusteringOptions = options.clusteringOptions();
+        List<Submission> submissions = result.getSubmissions().getSubmissions();
+        List<ClusteringResult<Submission>> clusterings = result.getClusteringSimilarities()
+                .map(similarities -> ClusteringFactory.getClusterings(submissions, similarities, clusteringOptions))
+                .orElseGet(() -> ClusteringFactory.getClusterings(result.getAllComparisons(), clusteringOptions));
+        result.setClusteringResult(clusterings);
+    }
 }
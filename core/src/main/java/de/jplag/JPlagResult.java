@@ -1,17 +1,23 @@
 package de.jplag;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.function.ToDoubleFunction;
 
 import de.jplag.clustering.ClusteringResult;
+import de.jplag.clustering.CondensedSimilarityMatrix;
 import de.jplag.options.JPlagOptions;
 import de.jplag.options.SimilarityMetric;
+import de.jplag.strategy.TopComparisonCollector;
 
 /**
  * Encapsulates the results of a comparison of a set of source code submissions.
  */
 public class JPlagResult {
 
+    /** Number of intervals of the similarity distributions. */
+    public static final int SIMILARITY_DISTRIBUTION_SIZE = 10;
+
     private List<JPlagComparison> comparisons; // comparisons whose similarity was about the specified threshold
 
     private final SubmissionSet submissions;
@@ -20,10 +26,15 @@ public class JPlagResult {
 
     private final long durationInMillis;
 
+    private final int totalNumberOfComparisons;
+
     private final int[] similarityDistribution; // 10-element array representing the similarity distribution of the detected matches.
 
+    private final int[] maxSimilarityDistribution;
+
+    private final CondensedSimilarityMatrix clusteringSimilarities; // only present if the comparisons were streamed.
+
     private List<ClusteringResult<Submission>> clusteringResult;
-    private final int SIMILARITY_DISTRIBUTION_SIZE = 10;
 
     public JPlagResult(List<JPlagComparison> comparisons, SubmissionSet submissions, long durationInMillis, JPlagOptions options) {
         // sort by similarity (descending)
@@ -31,12 +42,45 @@ public class JPlagResult {
         this.submissions = submissions;
         this.durationInMillis = durationInMillis;
         this.options = options;
+        totalNumberOfComparisons = comparisons.size();
         similarityDistribution = calculateSimilarityDistribution(comparisons);
+        maxSimilarityDistribution = calculateDistributionFor(comparisons, JPlagComparison::maximalSimilarity);
+        clusteringSimilarities = null;
+    }
+
+    /**
+     * Creates a result from comparisons that were streamed into a collector. Only the retained comparisons are kept, while
+     * the distributions and the clustering similarities were aggregated over all comparisons.
+     * @param collector contains the retained comparisons and the aggregated data.
+     * @param submissions is the submission set that was compared.
+     * @param durationInMillis is the duration of the comparison.
+     * @param options are the options JPlag was run with.
+     */
+    public JPlagResult(TopComparisonCollector collector, SubmissionSet submissions, long durationInMillis, JPlagOptions options) {
+        this.comparisons = collector.getComparisons();
+        this.submissions = submissions;
+        this.durationInMillis = durationInMillis;
+        this.options = options;
+        totalNumberOfComparisons = collector.getNumberOfComparisons();
+        similarityDistribution = collector.getSimilarityDistribution();
+        maxSimilarityDistribution = collector.getMaxSimilarityDistribution();
+        clusteringSimilarities = collector.getClusteringSimilarities();
     }
 
     /**
-     * Drops elements from the comparison list to free memory. Note, that this affects the similarity distribution and is
-     * only meant to be used if you don't need the information about comparisons with lower match similarity anymore.
+     * Determines the interval of the similarity distributions a similarity belongs to.
+     * @param similarity is the similarity between 0.0 and 1.0.
+     * @return the index of the interval.
+     */
+    public static int similarityDistributionIndex(double similarity) {
+        int index = (int) (similarity * SIMILARITY_DISTRIBUTION_SIZE); // divide similarity by bucket size to find index of correct bucket.
+        return Math.min(index, SIMILARITY_DISTRIBUTION_SIZE - 1); // index is out of bounds when similarity is 1.0. decrease by one to count
+                                                                 // towards the highest value bucket
+    }
+
+    /**
+     * Drops elements from the comparison list to free memory. Note, that this does not affect the similarity distributions
+     * and is only meant to be used if you don't need the information about comparisons with lower match similarity anymore.
      * @param limit the number of comparisons to keep in the list
      */
     public void dropComparisons(int limit) {
@@ -48,7 +92,8 @@ public class JPlagResult {
     }
 
     /**
-     * @return a list of all comparisons sorted by similarity (descending)
+     * @return a list of all comparisons sorted by similarity (descending). If the comparisons were streamed, only the
+     * retained comparisons are contained.
      */
     public List<JPlagComparison> getAllComparisons() {
         return comparisons;
@@ -67,6 +112,21 @@ public class JPlagResult {
         return comparisons.subList(0, Math.min(numberOfComparisons, comparisons.size()));
     }
 
+    /**
+     * @return the number of comparisons above the similarity threshold, including the ones that were not retained.
+     */
+    public int getTotalNumberOfComparisons() {
+        return totalNumberOfComparisons;
+    }
+
+    /**
+     * @return the similarities between the submissions according to the clustering metric, if they were aggregated while
+     * comparing. The indexes correspond to the order of {@link SubmissionSet#getSubmissions()}.
+     */
+    public Optional<CondensedSimilarityMatrix> getClusteringSimilarities() {
+        return Optional.ofNullable(clusteringSimilarities);
+    }
+
     /**
      * @return the duration of the comparison in milliseconds.
      */
@@ -114,7 +174,7 @@ public class JPlagResult {
      * the same distribution as {@link JPlagResult#getSimilarityDistribution()}
      */
     public int[] getMaxSimilarityDistribution() {
-        return calculateDistributionFor(comparisons, (JPlagComparison::maximalSimilarity));
+        return maxSimilarityDistribution;
     }
 
     public List<ClusteringResult<Submission>> getClusteringResult() {
@@ -138,10 +198,7 @@ public class JPlagResult {
         int[] similarityDistribution = new int[SIMILARITY_DISTRIBUTION_SIZE];
         for (JPlagComparison comparison : comparisons) {
             double similarity = similarityExtractor.applyAsDouble(comparison); // extract similarity: 0.0 <= similarity <= 1.0
-            int index = (int) (similarity * SIMILARITY_DISTRIBUTION_SIZE); // divide similarity by bucket size to find index of correct bucket.
-            index = Math.min(index, SIMILARITY_DISTRIBUTION_SIZE - 1);// index is out of bounds when similarity is 1.0. decrease by one to count
-                                                                      // towards the highest value bucket
-            similarityDistribution[index]++; // count comparison towards its determined bucket.
+            similarityDistribution[similarityDistributionIndex(similarity)]++; // count comparison towards its determined bucket.
         }
         return similarityDistribution;
     }
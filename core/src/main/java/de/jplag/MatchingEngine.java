@@ -0,0 +1,66 @@
+package de.jplag;
+
+import java.util.Collection;
+
+/**
+ * Algorithm that finds the matching sections of two submissions. Implementations must be thread-safe, such that
+ * submissions can be compared in parallel.
+ * @see GreedyStringTiling
+ * @see SuffixArrayMatching
+ */
+public interface MatchingEngine {
+
+    /**
+     * Compares the given submission with the base code submission. Marks the identified base code sections in the
+     * submission such that further comparisons do not generate matches for these parts. Must be called before generating a
+     * comparison with a regular submission for the given submission.
+     * @param submission is the submission to generate base-code markings for.
+     * @param baseCodeSubmission is the base code submission.
+     * @return the comparison of the submission with the base code submission.
+     */
+    JPlagComparison generateBaseCodeMarking(Submission submission, Submission baseCodeSubmission);
+
+    /**
+     * Computes the data required for comparing the given submissions in advance. Must be called after all base code
+     * markings have been generated. Calling this method is optional.
+     * @param submissions are the submissions to prepare.
+     */
+    void prepareSubmissions(Collection<Submission> submissions);
+
+    /**
+     * Returns the distinct hashes of all subsequences of the submission that are long enough and unmarked to be part of a
+     * match. Two submissions can only have a match if they share at least one of these hashes. Must be called after all
+     * base code markings have been generated.
+     * @param submission is the submission to get the hashes for.
+     * @return the distinct subsequence hashes, in no particular order.
+     */
+    int[] matchableSubsequenceHashes(Submission submission);
+
+    /**
+     * Returns an upper bound of the number of tokens matched by comparing the two submissions, which is far cheaper to
+     * compute than the comparison itself. Must be called after all base code markings have been generated.
+     * @param firstSubmission is one of the two submissions.
+     * @param secondSubmission is the other of the two submissions.
+     * @return the upper bound, zero if the submissions cannot have a match.
+     */
+    int maximumMatchedTokens(Submission firstSubmission, Submission secondSubmission);
+
+    /**
+     * Compares the two submissions and generates matches between them. To exclude base code from the result, call
+     * {@link #generateBaseCodeMarking} with each submission beforehand.
+     * @param firstSubmission is one of the two submissions.
+     * @param secondSubmission is the other of the two submissions.
+     * @return the comparison between the two submissions.
+     */
+    JPlagComparison compare(Submission firstSubmission, Submission secondSubmission);
+
+    /**
+     * Compares the two submissions like {@link #compare(Submission, Submission)}, but may stop as soon as the given number
+     * of matched tokens cannot be reached anymore.
+     * @param firstSubmission is one of the two submissions.
+     * @param secondSubmission is the other of the two submissions.
+     * @param minimumMatchedTokens is the number of matched tokens the comparison is required to reach.
+     * @return the comparison between the two submissions. If it has less matched tokens than required, it may be incomplete.
+     */
+    JPlagComparison compare(Submission firstSubmission, Submission secondSubmission, int minimumMatchedTokens);
+}
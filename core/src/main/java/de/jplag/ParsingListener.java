@@ -0,0 +1,20 @@
+package de.jplag;
+
+/**
+ * Receives the submissions of a {@link SubmissionSet} as soon as they are parsed, such that they can be processed while
+ * the remaining submissions are still parsed.
+ */
+public interface ParsingListener {
+
+    /**
+     * Called once the base code submission is parsed, before any other submission is parsed.
+     * @param baseCode is the parsed base code submission.
+     */
+    void baseCodeParsed(Submission baseCode);
+
+    /**
+     * Called for each valid submission as soon as it is parsed, possibly concurrently on several parsing threads.
+     * @param submission is the parsed submission.
+     */
+    void submissionParsed(Submission submission);
+}
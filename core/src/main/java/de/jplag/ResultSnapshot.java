@@ -0,0 +1,404 @@
+package de.jplag;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.jplag.exceptions.ExitException;
+import de.jplag.exceptions.SnapshotException;
+import de.jplag.options.JPlagOptions;
+import de.jplag.strategy.ReusedComparisons;
+
+/**
+ * Compact binary snapshot of the result of a run. It contains the submissions with their files and tokens, the base
+ * code comparisons, and the matches of the comparisons, so that the result can be restored without parsing and
+ * comparing the submissions again. As the similarities are derived from the matches and the tokens, a restored result
+ * can be evaluated with a different number of shown comparisons, clustering, or similarity threshold, as long as the
+ * threshold is not below the one of the run. The source files are referenced by their paths and must still exist to
+ * create a report. If the comparisons were streamed, only the retained comparisons are contained, so a restored result
+ * is incomplete. Like the token cache, tokens are stored with the ordinal of their type, thus only
+ * results of languages whose token types are enum constants can be persisted. The snapshot also contains the hash of the
+ * files of each submission, such that an incremental run can reuse the comparisons between unchanged submissions.
+ */
+public final class ResultSnapshot {
+    private static final Logger logger = LoggerFactory.getLogger(ResultSnapshot.class);
+
+    private static final int FORMAT_VERSION = 2;
+    private static final int NO_FILE = -1;
+    private static final int NO_TOKENS = -1;
+    private static final int NO_BASE_CODE_COMPARISON = -1;
+    private static final String NO_CONTENT_HASH = "";
+
+    private ResultSnapshot() {
+        // private constructor to prevent instantiation
+    }
+
+    /**
+     * Writes the snapshot of a result.
+     * @param result is the result of the run.
+     * @param file is the file of the snapshot.
+     * @throws SnapshotException if the snapshot cannot be written.
+     */
+    public static void write(JPlagResult result, File file) throws SnapshotException {
+        SubmissionSet submissionSet = result.getSubmissions();
+        List<Submission> submissions = new ArrayList<>(submissionSet.getSubmissions());
+        submissions.addAll(submissionSet.getInvalidSubmissions());
+        Map<Submission, Integer> positions = new IdentityHashMap<>();
+        for (int position = 0; position < submissions.size(); position++) {
+            positions.put(submissions.get(position), position);
+        }
+        Map<TokenType, Integer> typeIndexes = new HashMap<>();
+        List<Enum<?>> types = new ArrayList<>();
+        for (Submission submission : submissions) {
+            collectTypes(submission, typeIndexes, types);
+        }
+        if (submissionSet.hasBaseCode()) {
+            collectTypes(submissionSet.getBaseCode(), typeIndexes, types);
+        }
+
+        Path temporaryFile = file.toPath().resolveSibling(file.getName() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                JPlagOptions options = result.getOptions();
+                output.writeUTF(options.language().getIdentifier());
+                output.writeInt(options.minimumTokenMatch());
+                output.writeUTF(options.performanceOptions().matchingAlgorithm().name());
+                output.writeUTF(options.similarityMetric().name());
+                output.writeDouble(options.similarityThreshold());
+                output.writeBoolean(result.getAllComparisons().size() == result.getTotalNumberOfComparisons());
+                output.writeLong(result.getDuration());
+                output.writeInt(types.size());
+                for (Enum<?> type : types) {
+                    output.writeUTF(type.getDeclaringClass().getName());
+                    output.writeInt(type.ordinal());
+                }
+                output.writeInt(submissions.size());
+                for (Submission submission : submissions) {
+                    writeSubmission(output, submission, typeIndexes);
+                }
+                output.writeBoolean(submissionSet.hasBaseCode());
+                if (submissionSet.hasBaseCode()) {
+                    writeSubmission(output, submissionSet.getBaseCode(), typeIndexes);
+                }
+                for (Submission submission : submissions) {
+                    JPlagComparison baseCodeComparison = submission.getBaseCodeComparison();
+                    output.writeInt(baseCodeComparison == null ? NO_BASE_CODE_COMPARISON : baseCodeComparison.matches().size());
+                    if (baseCodeComparison != null) {
+                        output.writeBoolean(baseCodeComparison.firstSubmission() == submission);
+                        writeMatches(output, baseCodeComparison.matches());
+                    }
+                }
+                output.writeInt(result.getAllComparisons().size());
+                for (JPlagComparison comparison : result.getAllComparisons()) {
+                    output.writeInt(positions.get(comparison.firstSubmission()));
+                    output.writeInt(positions.get(comparison.secondSubmission()));
+                    output.writeInt(comparison.matches().size());
+                    writeMatches(output, comparison.matches());
+                }
+            }
+            Files.move(temporaryFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new SnapshotException("Could not write result snapshot " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Restores a result from its snapshot. The comparisons are evaluated with the given options, while the minimum match
+     * length is taken from the snapshot. If the snapshot only contains the retained comparisons of a streamed run, the
+     * restored result is incomplete, which is logged.
+     * @param file is the file of the snapshot.
+     * @param options are the options to evaluate the result with, their language must match the snapshot. Their similarity
+     * threshold must not be below the one of the snapshot, unless the snapshot was written without threshold.
+     * @return the restored result, without clustering.
+     * @throws ExitException if the snapshot cannot be read, was written for a different language, or does not contain the
+     * comparisons below its similarity threshold that the options require.
+     */
+    public static JPlagResult read(File file, JPlagOptions options) throws ExitException {
+        Snapshot snapshot = readSnapshot(file, options.language());
+        if (snapshot.similarityThreshold() > 0 && (!snapshot.similarityMetric().equals(options.similarityMetric().name())
+                || snapshot.similarityThreshold() > options.similarityThreshold())) {
+            throw new SnapshotException("Result snapshot " + file + " only contains comparisons with a " + snapshot.similarityMetric()
+                    + " similarity of at least " + snapshot.similarityThreshold() + ", restore it with that metric and threshold or above");
+        }
+        if (!snapshot.complete()) {
+            logger.warn("Result snapshot {} only contains the {} comparisons retained by a streamed run, the restored result is incomplete",
+                    file, snapshot.comparisons().size());
+        }
+        JPlagOptions restoredOptions = options.withMinimumTokenMatch(snapshot.minimumTokenMatch());
+        List<JPlagComparison> comparisons = snapshot.comparisons().stream()
+                .filter(comparison -> options.similarityMetric().isAboveThreshold(comparison, options.similarityThreshold())).toList();
+        SubmissionSet submissionSet = SubmissionSet.ofParsedSubmissions(snapshot.submissions(), snapshot.baseCode(), restoredOptions);
+        return new JPlagResult(comparisons, submissionSet, snapshot.durationInMillis(), restoredOptions);
+    }
+
+    /**
+     * Determines the comparisons of a previous run that can be reused for the current run. A submission is unchanged if
+     * the previous run contains a valid submission with the same name, the same state (new or old), and the same hash of
+     * its files. The comparisons can only be reused if the previous run had the same language, minimum match length,
+     * matching algorithm, similarity metric, and base code, a similarity threshold not above the current one, and
+     * retained all its comparisons. Otherwise, no comparisons are reused.
+     * @param file is the snapshot of the previous run.
+     * @param submissionSet are the parsed submissions of the current run.
+     * @param options are the options of the current run.
+     * @return the reusable comparisons.
+     */
+    static ReusedComparisons reusableComparisons(File file, SubmissionSet submissionSet, JPlagOptions options) {
+        if (!file.isFile()) {
+            logger.info("No previous result snapshot {}, all pairs are compared", file);
+            return ReusedComparisons.none();
+        }
+        Snapshot snapshot;
+        try {
+            snapshot = readSnapshot(file, options.language());
+        } catch (SnapshotException e) {
+            logger.warn("Previous result is not reused, all pairs are compared: {}", e.getMessage());
+            return ReusedComparisons.none();
+        }
+        Optional<String> incompatibility = incompatibility(snapshot, submissionSet, options);
+        if (incompatibility.isPresent()) {
+            logger.info("Previous result is not reused, as {}. All pairs are compared", incompatibility.get());
+            return ReusedComparisons.none();
+        }
+
+        Map<String, Submission> previousSubmissions = new HashMap<>();
+        snapshot.submissions().stream().filter(submission -> !submission.hasErrors())
+                .forEach(submission -> previousSubmissions.put(submission.getName(), submission));
+        Map<String, Submission> unchangedSubmissions = new ConcurrentHashMap<>();
+        submissionSet.getSubmissions().parallelStream().forEach(submission -> {
+            Submission previous = previousSubmissions.get(submission.getName());
+            if (previous != null && previous.isNew() == submission.isNew()
+                    && snapshot.contentHashes().get(previous).equals(contentHash(submission).orElse(null))) {
+                unchangedSubmissions.put(submission.getName(), submission);
+            }
+        });
+
+        List<JPlagComparison> comparisons = new ArrayList<>();
+        for (JPlagComparison comparison : snapshot.comparisons()) {
+            Submission first = unchangedSubmissions.get(comparison.firstSubmission().getName());
+            Submission second = unchangedSubmissions.get(comparison.secondSubmission().getName());
+            if (first != null && second != null) {
+                JPlagComparison reused = new JPlagComparison(first, second, comparison.matches());
+                if (options.similarityMetric().isAboveThreshold(reused, options.similarityThreshold())) {
+                    comparisons.add(reused);
+                }
+            }
+        }
+        logger.info("{} of {} submissions are unchanged since the previous run", unchangedSubmissions.size(),
+                submissionSet.numberOfSubmissions());
+        return new ReusedComparisons(Set.copyOf(unchangedSubmissions.values()), comparisons);
+    }
+
+    private static Optional<String> incompatibility(Snapshot snapshot, SubmissionSet submissionSet, JPlagOptions options) {
+        if (snapshot.minimumTokenMatch() != options.minimumTokenMatch()) {
+            return Optional.of("the minimum match length changed");
+        } else if (!snapshot.matchingAlgorithm().equals(options.performanceOptions().matchingAlgorithm().name())) {
+            return Optional.of("the matching algorithm changed");
+        } else if (!snapshot.similarityMetric().equals(options.similarityMetric().name())
+                || snapshot.similarityThreshold() > options.similarityThreshold()) {
+            return Optional.of("comparisons below the previous similarity threshold were not retained");
+        } else if (!snapshot.complete()) {
+            return Optional.of("the previous run did not retain all comparisons");
+        }
+        Optional<String> baseCodeHash = submissionSet.hasBaseCode() ? contentHash(submissionSet.getBaseCode()) : Optional.empty();
+        Optional<String> previousBaseCodeHash = Optional.ofNullable(snapshot.baseCode()).map(snapshot.contentHashes()::get);
+        if (!baseCodeHash.equals(previousBaseCodeHash) || (submissionSet.hasBaseCode() && baseCodeHash.isEmpty())) {
+            return Optional.of("the base code changed");
+        }
+        return Optional.empty();
+    }
+
+    private static Snapshot readSnapshot(File file, Language language) throws SnapshotException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                throw new SnapshotException("Result snapshot " + file + " was written by an incompatible version of JPlag");
+            }
+            String languageIdentifier = input.readUTF();
+            if (!languageIdentifier.equals(language.getIdentifier())) {
+                throw new SnapshotException("Result snapshot " + file + " was written for language " + languageIdentifier);
+            }
+            int minimumTokenMatch = input.readInt();
+            String matchingAlgorithm = input.readUTF();
+            String similarityMetric = input.readUTF();
+            double similarityThreshold = input.readDouble();
+            boolean complete = input.readBoolean();
+            long durationInMillis = input.readLong();
+            TokenType[] types = new TokenType[input.readInt()];
+            for (int index = 0; index < types.length; index++) {
+                types[index] = SubmissionContents.enumTokenType(input.readUTF(), input.readInt(), language);
+            }
+            TokenTypeRegistry typeRegistry = new TokenTypeRegistry(); // shared by the restored submissions
+            Map<Submission, String> contentHashes = new IdentityHashMap<>();
+            List<Submission> submissions = new ArrayList<>();
+            int numberOfSubmissions = input.readInt();
+            for (int index = 0; index < numberOfSubmissions; index++) {
+                submissions.add(readSubmission(input, types, typeRegistry, language, contentHashes));
+            }
+            Submission baseCode = input.readBoolean() ? readSubmission(input, types, typeRegistry, language, contentHashes) : null;
+            for (Submission submission : submissions) {
+                int numberOfMatches = input.readInt();
+                if (numberOfMatches != NO_BASE_CODE_COMPARISON) {
+                    boolean isFirst = input.readBoolean();
+                    List<Match> matches = readMatches(input, numberOfMatches);
+                    submission.setBaseCodeComparison(isFirst ? new JPlagComparison(submission, baseCode, matches)
+                            : new JPlagComparison(baseCode, submission, matches));
+                }
+            }
+            List<JPlagComparison> comparisons = new ArrayList<>();
+            int numberOfComparisons = input.readInt();
+            for (int index = 0; index < numberOfComparisons; index++) {
+                Submission first = submissions.get(input.readInt());
+                Submission second = submissions.get(input.readInt());
+                comparisons.add(new JPlagComparison(first, second, readMatches(input, input.readInt())));
+            }
+            return new Snapshot(minimumTokenMatch, matchingAlgorithm, similarityMetric, similarityThreshold, complete, durationInMillis,
+                    submissions, baseCode, contentHashes, comparisons);
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            throw new SnapshotException("Could not read result snapshot " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void collectTypes(Submission submission, Map<TokenType, Integer> typeIndexes, List<Enum<?>> types)
+            throws SnapshotException {
+        if (submission.getTokenList() == null) {
+            return;
+        }
+        for (Token token : submission.getTokenList()) {
+            if (!typeIndexes.containsKey(token.getType())) {
+                if (!(token.getType() instanceof Enum<?> type)) {
+                    throw new SnapshotException("Result cannot be persisted, token type " + token.getType() + " is no enum constant");
+                }
+                typeIndexes.put(token.getType(), types.size());
+                types.add(type);
+            }
+        }
+    }
+
+    private static void writeSubmission(DataOutputStream output, Submission submission, Map<TokenType, Integer> typeIndexes)
+            throws IOException {
+        output.writeUTF(submission.getName());
+        output.writeUTF(contentHash(submission).orElse(NO_CONTENT_HASH));
+        output.writeUTF(submission.getRoot().getPath());
+        output.writeBoolean(submission.isNew());
+        output.writeBoolean(submission.hasErrors());
+        output.writeInt(submission.getFiles().size());
+        for (File file : submission.getFiles()) {
+            output.writeUTF(file.getPath());
+        }
+        List<Token> tokens = submission.getTokenList();
+        if (tokens == null) {
+            output.writeInt(NO_TOKENS);
+            return;
+        }
+        Map<File, Integer> fileIndexes = new HashMap<>();
+        List<File> tokenFiles = new ArrayList<>();
+        for (Token token : tokens) {
+            if (token.getFile() != null && !fileIndexes.containsKey(token.getFile())) {
+                fileIndexes.put(token.getFile(), tokenFiles.size());
+                tokenFiles.add(token.getFile());
+            }
+        }
+        output.writeInt(tokens.size());
+        output.writeInt(tokenFiles.size());
+        for (File file : tokenFiles) {
+            output.writeUTF(file.getPath());
+        }
+        for (Token token : tokens) {
+            output.writeInt(token.getFile() == null ? NO_FILE : fileIndexes.get(token.getFile()));
+            output.writeInt(typeIndexes.get(token.getType()));
+            output.writeInt(token.getLine());
+            output.writeInt(token.getColumn());
+            output.writeInt(token.getLength());
+        }
+    }
+
+    private static Submission readSubmission(DataInputStream input, TokenType[] types, TokenTypeRegistry typeRegistry, Language language,
+            Map<Submission, String> contentHashes) throws IOException {
+        String name = input.readUTF();
+        String contentHash = input.readUTF();
+        File root = new File(input.readUTF());
+        boolean isNew = input.readBoolean();
+        boolean hasErrors = input.readBoolean();
+        List<File> files = new ArrayList<>();
+        int numberOfFiles = input.readInt();
+        for (int index = 0; index < numberOfFiles; index++) {
+            files.add(new File(input.readUTF()));
+        }
+        Submission submission = new Submission(name, root, isNew, files, language, typeRegistry);
+        contentHashes.put(submission, contentHash);
+        if (hasErrors) {
+            submission.markAsErroneous();
+        }
+        int numberOfTokens = input.readInt();
+        if (numberOfTokens == NO_TOKENS) {
+            return submission;
+        }
+        File[] tokenFiles = new File[input.readInt()];
+        for (int index = 0; index < tokenFiles.length; index++) {
+            tokenFiles[index] = new File(input.readUTF());
+        }
+        ColumnarTokenList.Builder tokens = new ColumnarTokenList.Builder(numberOfTokens, typeRegistry);
+        for (int index = 0; index < numberOfTokens; index++) {
+            int fileIndex = input.readInt();
+            TokenType type = types[input.readInt()];
+            tokens.add(type, fileIndex == NO_FILE ? null : tokenFiles[fileIndex], input.readInt(), input.readInt(), input.readInt());
+        }
+        submission.setTokenList(tokens.build());
+        return submission;
+    }
+
+    private static void writeMatches(DataOutputStream output, List<Match> matches) throws IOException {
+        for (Match match : matches) {
+            output.writeInt(match.startOfFirst());
+            output.writeInt(match.startOfSecond());
+            output.writeInt(match.length());
+        }
+    }
+
+    private static List<Match> readMatches(DataInputStream input, int numberOfMatches) throws IOException {
+        List<Match> matches = new ArrayList<>(numberOfMatches);
+        for (int index = 0; index < numberOfMatches; index++) {
+            matches.add(new Match(input.readInt(), input.readInt(), input.readInt()));
+        }
+        return matches;
+    }
+
+    /**
+     * Hashes the relative paths and the contents of the files of a submission.
+     * @param submission is the submission to hash.
+     * @return the hash, or nothing if the files cannot be read.
+     */
+    public static Optional<String> contentHash(Submission submission) {
+        try {
+            return Optional.of(SubmissionContents.hashOf(submission, ""));
+        } catch (IOException e) {
+            logger.warn("Could not hash files of submission {}: {}", submission.getName(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Content of a snapshot.
+     */
+    private record Snapshot(int minimumTokenMatch, String matchingAlgorithm, String similarityMetric, double similarityThreshold,
+            boolean complete, long durationInMillis, List<Submission> submissions, Submission baseCode,
+            Map<Submission, String> contentHashes, List<JPlagComparison> comparisons) {
+    }
+}
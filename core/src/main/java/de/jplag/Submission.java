@@ -5,7 +5,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
@@ -52,7 +51,7 @@ public class Submission implements Comparable<Submission> {
     /**
      * Parse result, tokens from all files.
      */
-    private List<Token> tokenList;
+    private ColumnarTokenList tokenList;
 
     /**
      * Base code comparison
@@ -61,6 +60,11 @@ public class Submission implements Comparable<Submission> {
 
     private final Language language;
 
+    /**
+     * Assigns the ids of the token types, shared by all submissions of a run.
+     */
+    private final TokenTypeRegistry typeRegistry;
+
     /**
      * Creates a submission.
      * @param name Identification of the submission (directory or filename).
@@ -68,13 +72,16 @@ public class Submission implements Comparable<Submission> {
      * @param isNew states whether the submission must be checked for plagiarism.
      * @param files are the files of the submissions, if the root is a single file it should just contain one file.
      * @param language is the language of the submission.
+     * @param typeRegistry assigns the ids of the token types. Submissions are only comparable if they share the registry.
      */
-    public Submission(String name, File submissionRootFile, boolean isNew, Collection<File> files, Language language) {
+    public Submission(String name, File submissionRootFile, boolean isNew, Collection<File> files, Language language,
+            TokenTypeRegistry typeRegistry) {
         this.name = name;
         this.submissionRootFile = submissionRootFile;
         this.isNew = isNew;
         this.files = files;
         this.language = language;
+        this.typeRegistry = typeRegistry;
     }
 
     @Override
@@ -153,7 +160,21 @@ public class Submission implements Comparable<Submission> {
      * @return unmodifiable list of tokens generated by parsing the submission.
      */
     public List<Token> getTokenList() {
-        return tokenList == null ? null : Collections.unmodifiableList(tokenList);
+        return tokenList;
+    }
+
+    /**
+     * @return the tokens generated by parsing the submission in columnar form, or null if there are none.
+     */
+    /* package-private */ ColumnarTokenList getColumnarTokenList() {
+        return tokenList;
+    }
+
+    /**
+     * @return the registry that assigns the ids of the token types of this submission.
+     */
+    /* package-private */ TokenTypeRegistry getTokenTypeRegistry() {
+        return typeRegistry;
     }
 
     /**
@@ -186,11 +207,11 @@ public class Submission implements Comparable<Submission> {
     }
 
     /**
-     * Sets the tokens that have been parsed from the files this submission consists of.
+     * Sets the tokens that have been parsed from the files this submission consists of. They are stored in columnar form.
      * @param tokenList is the list of these tokens.
      */
     public void setTokenList(List<Token> tokenList) {
-        this.tokenList = tokenList;
+        this.tokenList = tokenList == null ? null : ColumnarTokenList.of(tokenList, typeRegistry);
     }
 
     /**
@@ -238,6 +259,16 @@ public class Submission implements Comparable<Submission> {
      * @return Whether parsing was successful.
      */
     /* package-private */ boolean parse(boolean debugParser) {
+        return parse(debugParser, language);
+    }
+
+    /**
+     * Parse files of the submission with a specific instance of its language.
+     * @param parserInstance is the instance of the language that parses the files, see
+     * {@link Language#createParserInstance()}.
+     * @return Whether parsing was successful.
+     */
+    /* package-private */ boolean parse(boolean debugParser, Language parserInstance) {
         if (files == null || files.isEmpty()) {
             logger.error("ERROR: nothing to parse for submission \"{}\"", name);
             tokenList = null;
@@ -246,7 +277,7 @@ public class Submission implements Comparable<Submission> {
         }
 
         try {
-            tokenList = language.parse(new HashSet<>(files));
+            tokenList = ColumnarTokenList.of(parserInstance.parse(new HashSet<>(files)), typeRegistry);
         } catch (ParsingException e) {
             logger.warn("Failed to parse submission {} with error {}", this, e);
             tokenList = null;
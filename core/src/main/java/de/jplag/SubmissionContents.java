@@ -0,0 +1,103 @@
+package de.jplag;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Helpers for persisting submission contents, shared by the token cache, the result snapshot, and the report. Contents
+ * are identified by their SHA-256 hash, token types are persisted as the class name and ordinal of their enum constant.
+ */
+public final class SubmissionContents {
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private SubmissionContents() {
+        // private constructor to prevent instantiation
+    }
+
+    /**
+     * @param submission is the submission whose files are returned.
+     * @return the files of the submission sorted by their path, which is the order in which they are hashed.
+     */
+    public static List<File> sortedFiles(Submission submission) {
+        return submission.getFiles().stream().sorted(Comparator.comparing(File::getPath)).toList();
+    }
+
+    /**
+     * Hashes the content of a single file.
+     * @param file is the file to hash.
+     * @return the hexadecimal hash of the content.
+     * @throws IOException if the file cannot be read.
+     */
+    public static String hashOf(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        digestContent(file, digest);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Hashes the relative paths, lengths, and contents of the files of a submission.
+     * @param submission is the submission to hash.
+     * @param prefix is hashed before the files, e.g. to distinguish hashes for different languages.
+     * @return the hexadecimal hash of the submission.
+     * @throws IOException if a file cannot be read or is not located in the root of the submission.
+     */
+    public static String hashOf(Submission submission, String prefix) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(prefix.getBytes(StandardCharsets.UTF_8));
+        Path root = submission.getRoot().toPath();
+        for (File file : sortedFiles(submission)) {
+            Path relativePath;
+            try {
+                relativePath = root.relativize(file.toPath());
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + " is not located in " + root, e);
+            }
+            digest.update((relativePath + "\n" + file.length() + '\n').getBytes(StandardCharsets.UTF_8));
+            digestContent(file, digest);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Resolves a persisted token type, which must be an enum constant.
+     * @param className is the name of the enum class.
+     * @param ordinal is the ordinal of the enum constant.
+     * @param language is the language whose class loader loads the enum class.
+     * @return the token type.
+     * @throws ClassNotFoundException if the enum class does not exist.
+     * @throws IOException if the class is no token type enum.
+     */
+    public static TokenType enumTokenType(String className, int ordinal, Language language) throws ClassNotFoundException, IOException {
+        Class<?> typeClass = Class.forName(className, false, language.getClass().getClassLoader());
+        Object[] constants = typeClass.getEnumConstants();
+        if (constants == null || ordinal < 0 || ordinal >= constants.length || !(constants[ordinal] instanceof TokenType type)) {
+            throw new IOException(className + " is no token type enum with ordinal " + ordinal);
+        }
+        return type;
+    }
+
+    private static void digestContent(File file, MessageDigest digest) throws IOException {
+        try (InputStream input = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+            input.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is required to be supported by every Java platform", e);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package de.jplag;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Per-submission data shared by the {@link MatchingEngine} implementations: the token values, the tokens that must never
+ * be matched (including base code), and the histogram of the unmarked token types. Engines may attach additional data
+ * derived from the values and the marking. The data is cached in immutable form up to a memory budget. If the data of
+ * all submissions does not fit into the budget, the least recently used data is evicted. The submission of the current
+ * row of the comparisons is used for every pair and therefore stays resident, while the data of the other submissions is
+ * recomputed whenever it was evicted. In the worst case, that is once per compared pair. Class implementation is
+ * thread-safe.
+ * @param <T> is the type of the additional data of the engine.
+ */
+final class SubmissionDataCache<T> {
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionDataCache.class);
+
+    /** Fraction of the maximum heap that may be occupied by cached submission data. */
+    private static final double CACHE_HEAP_FRACTION = 0.25;
+
+    private final ConcurrentMap<SubmissionKey, TokenMarking> baseCodeMarkings = new ConcurrentHashMap<>();
+    // in access order, such that the least recently used data comes first, guarded by this
+    private final Map<SubmissionKey, SubmissionData<T>> cachedSubmissionData = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedTokens; // guarded by this
+    private boolean evicted; // guarded by this, warned only once
+    private final long maximumCachedTokens;
+    private final BiFunction<int[], TokenMarking, T> engineDataFactory;
+
+    /** Reusable per-thread markings, such that comparing two submissions does not allocate per-token state. */
+    private final ThreadLocal<MarkingBuffers> markingBuffers = ThreadLocal.withInitial(MarkingBuffers::new);
+
+    /**
+     * Creates an empty cache.
+     * @param maximumCachedTokens is the maximum number of tokens for which submission data is cached.
+     * @param engineDataFactory computes the additional data of the engine from the token values and the initial marking.
+     */
+    SubmissionDataCache(long maximumCachedTokens, BiFunction<int[], TokenMarking, T> engineDataFactory) {
+        this.maximumCachedTokens = maximumCachedTokens;
+        this.engineDataFactory = engineDataFactory;
+    }
+
+    /**
+     * @param estimatedBytesPerToken is a rough upper bound of the cached bytes per token.
+     * @return the number of tokens whose data fits into the share of the heap reserved for cached submission data.
+     */
+    static long defaultMaximumCachedTokens(int estimatedBytesPerToken) {
+        return (long) (Runtime.getRuntime().maxMemory() * CACHE_HEAP_FRACTION) / estimatedBytesPerToken;
+    }
+
+    /**
+     * Returns the data required for comparing the submission. Uses the cached data if available, otherwise computes it and
+     * caches it, evicting the data of other submissions if necessary.
+     * @param submission is the submission.
+     * @return the data of the submission.
+     */
+    SubmissionData<T> get(Submission submission) {
+        return get(submission, true);
+    }
+
+    /**
+     * Computes and caches the data of the given submissions in parallel, as long as there is free space in the cache.
+     * Nothing is evicted, as the prepared data would otherwise be replaced before it is used.
+     * @param submissions are the submissions to prepare.
+     */
+    void prepare(Collection<Submission> submissions) {
+        submissions.parallelStream().filter(submission -> submission.getTokenList() != null).forEach(submission -> get(submission, false));
+    }
+
+    private SubmissionData<T> get(Submission submission, boolean evict) {
+        SubmissionKey key = new SubmissionKey(submission);
+        synchronized (this) {
+            SubmissionData<T> data = cachedSubmissionData.get(key);
+            if (data != null) {
+                return data;
+            }
+        }
+        return admit(key, compute(submission), evict);
+    }
+
+    /**
+     * Caches the data of a submission if it fits into the cache, possibly after evicting the least recently used data.
+     * @return the cached data, which may have been computed concurrently by another thread.
+     */
+    private synchronized SubmissionData<T> admit(SubmissionKey key, SubmissionData<T> data, boolean evict) {
+        SubmissionData<T> previous = cachedSubmissionData.get(key);
+        if (previous != null) { // computed concurrently by another thread
+            return previous;
+        }
+        int numberOfTokens = data.values().length;
+        if (numberOfTokens > maximumCachedTokens || (!evict && cachedTokens + numberOfTokens > maximumCachedTokens)) {
+            return data;
+        }
+        Iterator<SubmissionData<T>> leastRecentlyUsed = cachedSubmissionData.values().iterator();
+        while (cachedTokens + numberOfTokens > maximumCachedTokens) {
+            cachedTokens -= leastRecentlyUsed.next().values().length;
+            leastRecentlyUsed.remove();
+            warnAboutEviction();
+        }
+        cachedSubmissionData.put(key, data);
+        cachedTokens += numberOfTokens;
+        return data;
+    }
+
+    private void warnAboutEviction() {
+        if (!evicted) {
+            evicted = true;
+            logger.warn("Comparison data of the submissions exceeds the cache size of {} tokens. Evicted data is recomputed when needed, "
+                    + "up to once per compared pair. Increase the maximum heap size to avoid this.", maximumCachedTokens);
+        }
+    }
+
+    /**
+     * Marks the tokens of the submission that are matched in its comparison with the base code, such that they are
+     * excluded from all further comparisons.
+     * @param submission is the submission to generate base-code markings for.
+     * @param baseCodeComparison is the comparison of the submission with the base code submission.
+     */
+    void markBaseCode(Submission submission, JPlagComparison baseCodeComparison) {
+        TokenMarking baseCodeMarking = new TokenMarking(submission.getTokenList().size());
+        baseCodeMarking.copyFrom(get(submission).initialMarking());
+        for (Match match : baseCodeComparison.matches()) {
+            int startIndex = baseCodeComparison.firstSubmission() == submission ? match.startOfFirst() : match.startOfSecond();
+            baseCodeMarking.markRange(startIndex, match.length());
+        }
+        SubmissionKey key = new SubmissionKey(submission);
+        baseCodeMarkings.put(key, baseCodeMarking);
+
+        // Remove the cached data for the current submission to trigger a regeneration with the new marking, as the
+        // histogram and the engine data depend on it.
+        synchronized (this) {
+            SubmissionData<T> data = cachedSubmissionData.remove(key);
+            if (data != null) {
+                cachedTokens -= data.values().length;
+            }
+        }
+    }
+
+    /**
+     * Returns an upper bound of the number of tokens matched by comparing the two submissions. Only unmarked tokens can be
+     * matched, and only with tokens of the same type, so the bound is the intersection of the token type histograms of the
+     * unmarked tokens.
+     * @param firstSubmission is one of the two submissions.
+     * @param secondSubmission is the other of the two submissions.
+     * @param minimumMatchLength is the minimum length of a match.
+     * @return the upper bound, zero if the submissions cannot have a match.
+     */
+    int maximumMatchedTokens(Submission firstSubmission, Submission secondSubmission, int minimumMatchLength) {
+        if (firstSubmission.getTokenList().size() <= minimumMatchLength || secondSubmission.getTokenList().size() <= minimumMatchLength) {
+            return 0;
+        }
+        int[] firstHistogram = get(firstSubmission).typeHistogram();
+        int[] secondHistogram = get(secondSubmission).typeHistogram();
+        int maximumMatchedTokens = 0;
+        for (int typeId = 0; typeId < Math.min(firstHistogram.length, secondHistogram.length); typeId++) {
+            maximumMatchedTokens += Math.min(firstHistogram[typeId], secondHistogram[typeId]);
+        }
+        return maximumMatchedTokens < minimumMatchLength ? 0 : maximumMatchedTokens;
+    }
+
+    /**
+     * @return the working markings of the current thread. They are reused for every comparison of the thread.
+     */
+    MarkingBuffers markingBuffers() {
+        return markingBuffers.get();
+    }
+
+    private SubmissionData<T> compute(Submission submission) {
+        int[] values = submission.getColumnarTokenList().typeIds();
+        TokenMarking initialMarking = initiallyMarkedTokenIndexes(submission);
+        T engineData = engineDataFactory.apply(values, initialMarking);
+        return new SubmissionData<>(values, initialMarking, typeHistogram(values, initialMarking), engineData);
+    }
+
+    /**
+     * Counts the unmarked tokens per type id.
+     */
+    private static int[] typeHistogram(int[] values, TokenMarking marking) {
+        int maximumValue = 0;
+        for (int value : values) {
+            maximumValue = Math.max(maximumValue, value);
+        }
+        int[] histogram = new int[maximumValue + 1];
+        for (int i = 0; i < values.length; i++) {
+            if (!marking.isMarked(i)) {
+                histogram[values[i]]++;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns the tokens of the submission that must never be matched, i.e. tokens excluded from matching by their type and
+     * base code tokens. The returned marking is shared and must not be modified.
+     */
+    private TokenMarking initiallyMarkedTokenIndexes(Submission submission) {
+        TokenMarking baseCodeMarking = baseCodeMarkings.get(new SubmissionKey(submission));
+        if (baseCodeMarking != null) {
+            return baseCodeMarking;
+        }
+        ColumnarTokenList tokens = submission.getColumnarTokenList();
+        TokenMarking marking = new TokenMarking(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.getType(i).isExcludedFromMatching()) {
+                marking.mark(i);
+            }
+        }
+        return marking;
+    }
+
+    /**
+     * Immutable data of a submission required for comparing it.
+     * @param values are the token values, i.e. the type ids of the tokens. Shared with the token list, must not be modified.
+     * @param initialMarking marks the tokens that must never be matched. Must not be modified.
+     * @param typeHistogram counts the unmarked tokens per type id.
+     * @param engineData is the additional data of the engine.
+     * @param <T> is the type of the additional data of the engine.
+     */
+    record SubmissionData<T>(int[] values, TokenMarking initialMarking, int[] typeHistogram, T engineData) {
+    }
+
+    /**
+     * Compares submissions by identity, as the names of the base code and a regular submission may coincide.
+     */
+    private record SubmissionKey(Submission submission) {
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof SubmissionKey other && other.submission == submission;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(submission);
+        }
+    }
+
+    /**
+     * Working markings of a single thread, reset for every comparison.
+     */
+    static final class MarkingBuffers {
+        final TokenMarking left = new TokenMarking(0);
+        final TokenMarking right = new TokenMarking(0);
+    }
+}
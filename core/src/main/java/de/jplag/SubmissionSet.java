@@ -1,7 +1,15 @@
 package de.jplag;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -31,22 +39,52 @@ public class SubmissionSet {
     private final Submission baseCodeSubmission;
 
     private final JPlagOptions options;
+    private final TokenCache tokenCache; // null if tokens are not cached
+    private final ParsingListener parsingListener; // null if there is no listener
     private int errors = 0;
-    private String currentSubmissionName;
 
     /**
      * @param submissions Submissions to check for plagiarism.
      * @param baseCode Base code submission if it exists or {@code null}.
      */
     public SubmissionSet(List<Submission> submissions, Submission baseCode, JPlagOptions options) throws ExitException {
+        this(submissions, baseCode, options, true, null);
+    }
+
+    /**
+     * @param submissions Submissions to check for plagiarism.
+     * @param baseCode Base code submission if it exists or {@code null}.
+     * @param parsingListener is notified about each submission as soon as it is parsed.
+     */
+    public SubmissionSet(List<Submission> submissions, Submission baseCode, JPlagOptions options, ParsingListener parsingListener)
+            throws ExitException {
+        this(submissions, baseCode, options, true, parsingListener);
+    }
+
+    private SubmissionSet(List<Submission> submissions, Submission baseCode, JPlagOptions options, boolean parse,
+            ParsingListener parsingListener) throws ExitException {
         this.allSubmissions = submissions;
         this.baseCodeSubmission = baseCode;
         this.options = options;
-        parseAllSubmissions();
+        this.parsingListener = parsingListener;
+        File tokenCacheDirectory = options.performanceOptions().tokenCacheDirectory();
+        this.tokenCache = tokenCacheDirectory == null || !parse ? null : new TokenCache(tokenCacheDirectory, options.language());
+        if (parse) {
+            parseAllSubmissions();
+        }
         this.submissions = filterValidSubmissions();
         invalidSubmissions = filterInvalidSubmissions();
     }
 
+    /**
+     * Creates a set of submissions whose tokens are already known, e.g. from a result snapshot.
+     * @param submissions are the submissions, invalid ones are marked as erroneous.
+     * @param baseCode is the base code submission if it exists or {@code null}.
+     */
+    static SubmissionSet ofParsedSubmissions(List<Submission> submissions, Submission baseCode, JPlagOptions options) throws ExitException {
+        return new SubmissionSet(submissions, baseCode, options, false, null);
+    }
+
     /**
      * @return Whether a basecode is available for this collection.
      */
@@ -100,22 +138,25 @@ public class SubmissionSet {
 
     private void parseAllSubmissions() throws ExitException {
         try {
-            parseSubmissions(allSubmissions);
-            if (baseCodeSubmission != null) {
+            if (baseCodeSubmission != null) { // the base code is parsed first, as the submissions are compared against it
                 parseBaseCodeSubmission(baseCodeSubmission);
+                if (parsingListener != null) {
+                    parsingListener.baseCodeParsed(baseCodeSubmission);
+                }
             }
-        } catch (OutOfMemoryError exception) {
-            throw new SubmissionException("Out of memory during parsing of submission \"" + currentSubmissionName + "\"", exception);
+            parseSubmissions(allSubmissions);
+        } catch (OutOfMemoryError exception) { // outside of parsing a single submission, e.g. while notifying the listener
+            throw new SubmissionException("Out of memory during parsing of submissions", exception);
         }
     }
 
     /**
      * Parse the given base code submission.
      */
-    private void parseBaseCodeSubmission(Submission baseCode) throws BasecodeException {
+    private void parseBaseCodeSubmission(Submission baseCode) throws BasecodeException, SubmissionException {
         long startTime = System.currentTimeMillis();
         logger.trace("----- Parsing basecode submission: " + baseCode.getName());
-        if (!baseCode.parse(options.debugParser())) {
+        if (!parse(baseCode, options.language())) {
             throw new BasecodeException("Could not successfully parse basecode submission!");
         } else if (baseCode.getNumberOfTokens() < options.minimumTokenMatch()) {
             throw new BasecodeException("Basecode submission contains fewer tokens than minimum match length allows!");
@@ -129,27 +170,26 @@ public class SubmissionSet {
     /**
      * Parse all given submissions.
      */
-    private void parseSubmissions(List<Submission> submissions) {
+    private void parseSubmissions(List<Submission> submissions) throws SubmissionException {
         if (submissions.isEmpty()) {
             logger.warn("No submissions to parse!");
             return;
         }
 
         long startTime = System.currentTimeMillis();
+        boolean[] parsed = parseConcurrently(submissions);
 
         int tooShort = 0;
-        for (Submission submission : submissions) {
-            boolean ok;
-
-            logger.trace("------ Parsing submission: " + submission.getName());
-            currentSubmissionName = submission.getName();
+        for (int index = 0; index < submissions.size(); index++) {
+            Submission submission = submissions.get(index);
+            boolean ok = parsed[index];
 
-            if (!(ok = submission.parse(options.debugParser()))) {
+            if (!ok) {
                 errors++;
             }
 
             if (submission.getTokenList() != null && submission.getNumberOfTokens() < options.minimumTokenMatch()) {
-                logger.error("Submission {} contains fewer tokens than minimum match length allows!", currentSubmissionName);
+                logger.error("Submission {} contains fewer tokens than minimum match length allows!", submission.getName());
                 submission.setTokenList(null);
                 tooShort++;
                 ok = false;
@@ -159,7 +199,7 @@ public class SubmissionSet {
             if (ok) {
                 logger.trace("OK");
             } else {
-                logger.error("ERROR -> Submission {} removed", currentSubmissionName);
+                logger.error("ERROR -> Submission {} removed", submission.getName());
             }
         }
 
@@ -170,6 +210,106 @@ public class SubmissionSet {
         printDetails(submissions, startTime, tooShort);
     }
 
+    /**
+     * Parses the given submissions on multiple threads if the language supports it, each thread using its own instance of
+     * the language. Otherwise, they are parsed sequentially.
+     * @return whether parsing was successful, per submission.
+     */
+    private boolean[] parseConcurrently(List<Submission> submissions) throws SubmissionException {
+        boolean[] parsed = new boolean[submissions.size()];
+        Language language = options.language();
+        int threads = Math.min(options.performanceOptions().effectiveParsingThreads(), submissions.size());
+        Optional<Language> firstParserInstance = threads > 1 ? language.createParserInstance() : Optional.empty();
+        if (firstParserInstance.isEmpty()) {
+            for (int index = 0; index < submissions.size(); index++) {
+                parsed[index] = parseAndNotify(submissions.get(index), language);
+            }
+            return parsed;
+        }
+
+        logger.trace("Parsing submissions on {} threads", threads);
+        Queue<Language> parserInstances = new ConcurrentLinkedQueue<>(List.of(firstParserInstance.get()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>(submissions.size());
+            for (Submission submission : submissions) {
+                results.add(executor.submit(() -> {
+                    Language parserInstance = parserInstances.poll();
+                    if (parserInstance == null) {
+                        parserInstance = language.createParserInstance().orElseThrow();
+                    }
+                    try {
+                        return parseAndNotify(submission, parserInstance);
+                    } finally {
+                        parserInstances.offer(parserInstance);
+                    }
+                }));
+            }
+            for (int index = 0; index < submissions.size(); index++) {
+                parsed[index] = results.get(index).get();
+            }
+            return parsed;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new SubmissionException("Interrupted while parsing submissions", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof SubmissionException cause) {
+                throw cause;
+            } else if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (exception.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new SubmissionException("Could not parse submissions", exception.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses a single submission and notifies the parsing listener if the submission is valid.
+     * @return Whether parsing was successful.
+     */
+    private boolean parseAndNotify(Submission submission, Language parserInstance) throws SubmissionException {
+        boolean ok = parse(submission, parserInstance);
+        if (ok && parsingListener != null && submission.getTokenList() != null
+                && submission.getNumberOfTokens() >= options.minimumTokenMatch()) {
+            parsingListener.submissionParsed(submission);
+        }
+        return ok;
+    }
+
+    /**
+     * Parses a single submission, or restores its tokens from the token cache if its files did not change.
+     * @param parserInstance is the instance of the language used for parsing.
+     * @return Whether parsing was successful.
+     * @throws SubmissionException if the memory runs out while parsing the submission.
+     */
+    private boolean parse(Submission submission, Language parserInstance) throws SubmissionException {
+        logger.trace("------ Parsing submission: " + submission.getName());
+        try {
+            return parseOrRestore(submission, parserInstance);
+        } catch (OutOfMemoryError exception) {
+            throw new SubmissionException("Out of memory during parsing of submission \"" + submission.getName() + "\"", exception);
+        }
+    }
+
+    private boolean parseOrRestore(Submission submission, Language parserInstance) {
+        if (tokenCache != null) {
+            Optional<List<Token>> cachedTokens = tokenCache.load(submission);
+            if (cachedTokens.isPresent()) {
+                logger.trace("Restored tokens of submission {} from the token cache", submission.getName());
+                submission.setTokenList(cachedTokens.get());
+                return true;
+            }
+        }
+        boolean ok = submission.parse(options.debugParser(), parserInstance);
+        if (ok && tokenCache != null) {
+            tokenCache.store(submission);
+        }
+        return ok;
+    }
+
     private void printDetails(List<Submission> submissions, long startTime, int tooShort) {
         if (tooShort == 1) {
             logger.trace(tooShort + " submission is not valid because it contains fewer tokens than minimum match length allows.");
@@ -34,6 +34,7 @@ public class SubmissionSetBuilder {
     private final Language language;
     private final JPlagOptions options;
     private final Set<String> excludedFileNames; // Set of file names to be excluded in comparison.
+    private final TokenTypeRegistry typeRegistry = new TokenTypeRegistry(); // shared by all submissions of the run
 
     /**
      * Creates a builder for submission sets.
@@ -52,6 +53,17 @@ public class SubmissionSetBuilder {
      * @throws ExitException if the directory cannot be read.
      */
     public SubmissionSet buildSubmissionSet() throws ExitException {
+        return buildSubmissionSet(null);
+    }
+
+    /**
+     * Builds a submission set for all submissions of a specific directory and notifies a listener about each submission
+     * as soon as it is parsed.
+     * @param parsingListener is the listener, or null if there is none.
+     * @return the newly built submission set.
+     * @throws ExitException if the directory cannot be read.
+     */
+    public SubmissionSet buildSubmissionSet(ParsingListener parsingListener) throws ExitException {
         Set<File> submissionDirectories = verifyRootDirectories(options.submissionDirectories(), true);
         Set<File> oldSubmissionDirectories = verifyRootDirectories(options.oldSubmissionDirectories(), false);
         checkForNonOverlappingRootDirectories(submissionDirectories, oldSubmissionDirectories);
@@ -75,7 +87,7 @@ public class SubmissionSetBuilder {
 
         // Merge everything in a submission set.
         List<Submission> submissions = new ArrayList<>(foundSubmissions.values());
-        return new SubmissionSet(submissions, baseCodeSubmission.orElse(null), options);
+        return new SubmissionSet(submissions, baseCodeSubmission.orElse(null), options, parsingListener);
     }
 
     /**
@@ -209,7 +221,7 @@ public class SubmissionSetBuilder {
         }
 
         submissionFile = makeCanonical(submissionFile, it -> new SubmissionException("Cannot create submission: " + submissionName, it));
-        return new Submission(submissionName, submissionFile, isNew, parseFilesRecursively(submissionFile), language);
+        return new Submission(submissionName, submissionFile, isNew, parseFilesRecursively(submissionFile), language, typeRegistry);
     }
 
     /**
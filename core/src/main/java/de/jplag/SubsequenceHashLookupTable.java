@@ -1,30 +1,35 @@
 package de.jplag;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * A class to generate and store hashes over a fixed length subsequence of a given list of values. Hash generation is
- * optimized to work in O(n).
+ * optimized to work in O(n) with a 64-bit polynomial rolling hash (Karp-Rabin) over the whole subsequence, which is
+ * folded into an int. The start indexes of all subsequences are indexed by their hash in a compact
+ * open-addressing table: Each distinct hash owns a slot, and the start indexes of a slot are stored consecutively (and
+ * in ascending order) in a single array. Thus, a table consists only of a few flat arrays.
  */
 class SubsequenceHashLookupTable {
-    /**
-     * Value combination is chosen such that the maximum possible hash value does not exceed Int.max. Computation formula
-     * for maximum hash value is \sum from (i=0 to MAX_HASH_LENGTH - 1) with (HASH_MODULO - 1) * 2^i
-     */
-    private static final int MAX_HASH_LENGTH = 25;
-    private static final int HASH_MODULO = 64;
+    /** Odd base of the polynomial hash, arithmetic is modulo 2^64 */
+    private static final long HASH_BASE = 0x100000001B3L;
 
     /** Indicator that the subsequence should not be considered for comparison matching */
     public static final int NO_HASH = -1;
 
+    /** Indicator that no subsequence with the requested hash exists */
+    public static final int NO_SLOT = -1;
+
+    private static final int FIBONACCI_HASH_MULTIPLIER = 0x9E3779B9;
+    private static final int[] EMPTY = new int[0];
+
     private final int windowSize;
     private final int[] values;
-    private int[] subsequenceHashes;
-    private Map<Integer, List<Integer>> startIndexToSubsequenceHashesMap;
+    private int[] subsequenceHashes = EMPTY;
+
+    private int slotShift;
+    private int[] slotHashes = EMPTY; // distinct subsequence hash per slot, NO_HASH for empty slots
+    private int[] slotOffsets = {0, 0}; // candidate range of slot i is [slotOffsets[i], slotOffsets[i + 1])
+    private int[] candidateStartIndexes = EMPTY; // start indexes grouped by slot
 
     /**
      * Generates a new subsequence hash lookup table. Performance is optimized to compute hashes in O(n).
@@ -33,9 +38,8 @@ class SubsequenceHashLookupTable {
      * @param markedIndexes the indexes of marked values. Subsequences containing a marked value obtain the {@link #NO_HASH}
      * value.
      */
-    SubsequenceHashLookupTable(int windowSize, int[] values, Set<Integer> markedIndexes) {
+    SubsequenceHashLookupTable(int windowSize, int[] values, TokenMarking markedIndexes) {
         windowSize = Math.max(1, windowSize);
-        windowSize = Math.min(MAX_HASH_LENGTH, windowSize);
         this.windowSize = windowSize;
         this.values = values;
 
@@ -44,8 +48,33 @@ class SubsequenceHashLookupTable {
         }
 
         subsequenceHashes = new int[values.length - windowSize];
-        startIndexToSubsequenceHashesMap = new HashMap<>(subsequenceHashes.length);
-        computeSubsequenceHashes(markedIndexes);
+        int numberOfHashes = computeSubsequenceHashes(windowSize, values, markedIndexes, subsequenceHashes);
+        buildStartIndexTable(numberOfHashes);
+    }
+
+    /**
+     * Computes the distinct hashes of all subsequences that obtain a hash value, like
+     * {@link #distinctSubsequenceHashes()}, but without building a lookup table.
+     * @param windowSize the size of the subsequences.
+     * @param values the values to hash over.
+     * @param markedIndexes the indexes of marked values. Subsequences containing a marked value obtain no hash.
+     * @return the distinct hashes in ascending order.
+     */
+    static int[] distinctSubsequenceHashes(int windowSize, int[] values, TokenMarking markedIndexes) {
+        windowSize = Math.max(1, windowSize);
+        if (values.length < windowSize) {
+            return EMPTY;
+        }
+        int[] hashes = new int[values.length - windowSize];
+        computeSubsequenceHashes(windowSize, values, markedIndexes, hashes);
+        Arrays.sort(hashes);
+        int numberOfDistinctHashes = 0;
+        for (int index = 0; index < hashes.length; index++) {
+            if (hashes[index] != NO_HASH && (numberOfDistinctHashes == 0 || hashes[numberOfDistinctHashes - 1] != hashes[index])) {
+                hashes[numberOfDistinctHashes++] = hashes[index];
+            }
+        }
+        return Arrays.copyOf(hashes, numberOfDistinctHashes);
     }
 
     /** Returns the size of the subsequences used for hashing */
@@ -68,59 +97,178 @@ class SubsequenceHashLookupTable {
     }
 
     /**
-     * Returns a list of all start indexes of possible subsequences for the given subsequence hash.
+     * @return the distinct hashes of all subsequences that obtained a hash value, in no particular order.
+     */
+    int[] distinctSubsequenceHashes() {
+        int numberOfDistinctHashes = 0;
+        for (int slotHash : slotHashes) {
+            if (slotHash != NO_HASH) {
+                numberOfDistinctHashes++;
+            }
+        }
+        int[] distinctHashes = new int[numberOfDistinctHashes];
+        int index = 0;
+        for (int slotHash : slotHashes) {
+            if (slotHash != NO_HASH) {
+                distinctHashes[index++] = slotHash;
+            }
+        }
+        return distinctHashes;
+    }
+
+    /**
+     * Looks up the slot of all possibly matching subsequences for the given subsequence hash. The start indexes of these
+     * subsequences are available via {@link #candidateStartIndex(int)} for all positions in the range
+     * [{@link #candidateRangeStart(int)}, {@link #candidateRangeEnd(int)}).
      * @param subsequenceHash the hash value to obtain possibly matching subsequence start indexes for.
-     * @return a list with possible matching start indexes.
+     * @return the slot of the hash, or {@link #NO_SLOT} if no subsequence has the given hash.
      */
-    List<Integer> startIndexesOfPossiblyMatchingSubsequencesForSubsequenceHash(int subsequenceHash) {
-        if (startIndexToSubsequenceHashesMap.containsKey(subsequenceHash)) {
-            return startIndexToSubsequenceHashesMap.get(subsequenceHash);
+    int slotForSubsequenceHash(int subsequenceHash) {
+        if (subsequenceHash == NO_HASH || slotHashes.length == 0) {
+            return NO_SLOT;
         }
-        return List.of();
+        int mask = slotHashes.length - 1;
+        for (int slot = slotIndex(subsequenceHash);; slot = (slot + 1) & mask) {
+            int slotHash = slotHashes[slot];
+            if (slotHash == subsequenceHash) {
+                return slot;
+            } else if (slotHash == NO_HASH) {
+                return NO_SLOT;
+            }
+        }
+    }
+
+    /**
+     * @param slot is a slot obtained via {@link #slotForSubsequenceHash(int)}.
+     * @return the first candidate position of the slot (inclusive).
+     */
+    int candidateRangeStart(int slot) {
+        return slotOffsets[slot];
+    }
+
+    /**
+     * @param slot is a slot obtained via {@link #slotForSubsequenceHash(int)}.
+     * @return the last candidate position of the slot (exclusive).
+     */
+    int candidateRangeEnd(int slot) {
+        return slotOffsets[slot + 1];
+    }
+
+    /**
+     * @param position is a candidate position within the range of a slot.
+     * @return the start index of the possibly matching subsequence at that position.
+     */
+    int candidateStartIndex(int position) {
+        return candidateStartIndexes[position];
     }
 
     /**
      * Creates hashes for all subsequences with windowSize. Code is optimized to perform in O(n) using a windowing approach.
-     * Hashes are computed by \sum from (i=0 to windowSize) with hash(values[offset+i]) * 2^(hashLength-1-i)
+     * Hashes are computed by \sum from (i=0 to windowSize - 1) with mix(values[offset+i]) * HASH_BASE^(windowSize-1-i)
+     * modulo 2^64, and then folded into an int that differs from {@link #NO_HASH}.
+     * @param windowSize the size of the subsequences.
+     * @param values the values to hash over.
      * @param markedIndexes contains the indexes of marked values. Subsequences containing a marked value will receive the
      * {@link #NO_HASH} value.
+     * @param subsequenceHashes receives the hash per start index.
+     * @return the number of subsequences that obtained a hash value.
      */
-    private void computeSubsequenceHashes(Set<Integer> markedIndexes) {
-        int hash = 0;
+    private static int computeSubsequenceHashes(int windowSize, int[] values, TokenMarking markedIndexes, int[] subsequenceHashes) {
+        long hash = 0;
         int hashedLength = 0;
-        int factor = (windowSize != 1 ? (2 << (windowSize - 2)) : 1);
+        int numberOfHashes = 0;
+        long factor = 1; // HASH_BASE^(windowSize-1)
+        for (int i = 1; i < windowSize; i++) {
+            factor *= HASH_BASE;
+        }
 
         for (int windowEndIndex = 0; windowEndIndex < values.length; windowEndIndex++) {
             int windowStartIndex = windowEndIndex - windowSize;
             if (windowStartIndex >= 0) {
                 if (hashedLength >= windowSize) {
-                    subsequenceHashes[windowStartIndex] = hash;
-                    addToStartIndexesToHashesMap(windowStartIndex, hash);
+                    subsequenceHashes[windowStartIndex] = foldHash(hash);
+                    numberOfHashes++;
                 } else {
                     subsequenceHashes[windowStartIndex] = NO_HASH;
                 }
                 hash -= factor * hashValueForValue(values[windowStartIndex]);
             }
-            hash = (2 * hash) + hashValueForValue(values[windowEndIndex]);
-            if (markedIndexes.contains(windowEndIndex)) {
+            hash = HASH_BASE * hash + hashValueForValue(values[windowEndIndex]);
+            if (markedIndexes.isMarked(windowEndIndex)) {
                 hashedLength = 0;
             } else {
                 hashedLength++;
             }
         }
+        return numberOfHashes;
+    }
+
+    /**
+     * Spreads the bits of a value over all 64 bits (finalizer of SplitMix64), such that values that only differ in their
+     * high bits do not alias and the polynomial hash does not degenerate for structured sequences.
+     */
+    private static long hashValueForValue(int value) {
+        long mixed = value + 0x9E3779B97F4A7C15L;
+        mixed = (mixed ^ (mixed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        mixed = (mixed ^ (mixed >>> 27)) * 0x94D049BB133111EBL;
+        return mixed ^ (mixed >>> 31);
     }
 
-    private int hashValueForValue(int value) {
-        return value % HASH_MODULO;
+    private static int foldHash(long hash) {
+        int folded = (int) (hash ^ (hash >>> 32));
+        return folded == NO_HASH ? 0 : folded;
     }
 
-    private void addToStartIndexesToHashesMap(int startIndex, int subsequenceHash) {
-        if (startIndexToSubsequenceHashesMap.containsKey(subsequenceHash)) {
-            startIndexToSubsequenceHashesMap.get(subsequenceHash).add(startIndex);
-        } else {
-            List<Integer> startIndexes = new ArrayList<>();
-            startIndexes.add(startIndex);
-            startIndexToSubsequenceHashesMap.put(subsequenceHash, startIndexes);
+    /**
+     * Groups all start indexes by their subsequence hash. First counts the occurrences per distinct hash, then computes the
+     * offsets via a prefix sum, and finally places the start indexes in ascending order into their slot ranges.
+     */
+    private void buildStartIndexTable(int numberOfHashes) {
+        if (numberOfHashes == 0) {
+            return;
         }
+        int capacity = Integer.highestOneBit(Math.max(2, numberOfHashes) * 2 - 1) << 1; // load factor of at most 0.5
+        slotShift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+        slotHashes = new int[capacity];
+        Arrays.fill(slotHashes, NO_HASH);
+        int[] slotCounts = new int[capacity + 1];
+
+        for (int hash : subsequenceHashes) {
+            if (hash != NO_HASH) {
+                slotCounts[insertSlot(hash)]++;
+            }
+        }
+
+        slotOffsets = new int[capacity + 1];
+        for (int slot = 0; slot < capacity; slot++) {
+            slotOffsets[slot + 1] = slotOffsets[slot] + slotCounts[slot];
+        }
+
+        candidateStartIndexes = new int[numberOfHashes];
+        int[] insertPositions = slotCounts; // reuse the count array as write cursor
+        System.arraycopy(slotOffsets, 0, insertPositions, 0, capacity);
+        for (int startIndex = 0; startIndex < subsequenceHashes.length; startIndex++) {
+            int hash = subsequenceHashes[startIndex];
+            if (hash != NO_HASH) {
+                candidateStartIndexes[insertPositions[slotForSubsequenceHash(hash)]++] = startIndex;
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of the given hash, claiming an empty slot if the hash is not yet present.
+     */
+    private int insertSlot(int subsequenceHash) {
+        int mask = slotHashes.length - 1;
+        int slot = slotIndex(subsequenceHash);
+        while (slotHashes[slot] != subsequenceHash && slotHashes[slot] != NO_HASH) {
+            slot = (slot + 1) & mask;
+        }
+        slotHashes[slot] = subsequenceHash;
+        return slot;
+    }
+
+    private int slotIndex(int subsequenceHash) {
+        return (subsequenceHash * FIBONACCI_HASH_MULTIPLIER) >>> slotShift;
     }
 }
@@ -0,0 +1,342 @@
+package de.jplag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import de.jplag.SubmissionDataCache.MarkingBuffers;
+import de.jplag.SubmissionDataCache.SubmissionData;
+import de.jplag.options.JPlagOptions;
+
+/**
+ * Matching engine that determines the tiles of two submissions with a generalized suffix array over both token value
+ * sequences instead of repeatedly scanning the smaller sequence. For each start index, the longest match with the other
+ * sequence is derived from the longest common prefixes of the neighboring suffixes. These candidates are tiled from the
+ * longest to the shortest; a candidate that runs into an already tiled section is shortened and tiled later if it still
+ * has the minimum match length. In contrast to {@link GreedyStringTiling}, only the longest match per start index is
+ * considered, so some shorter matches with other partners may be missed. Takes O(n log n) time per pair for n tokens,
+ * independent of the similarity of the submissions. The suffix array is built per pair, so no per-submission lookup
+ * tables are required.
+ */
+public class SuffixArrayMatching implements MatchingEngine {
+    /** Rough upper bound of the cached bytes per token (token values and marking). */
+    private static final int ESTIMATED_CACHED_BYTES_PER_TOKEN = 8;
+    private static final int SEPARATOR = Integer.MIN_VALUE;
+    private static final int NONE = -1;
+
+    private final int minimumMatchLength;
+
+    private final SubmissionDataCache<Void> submissionData;
+
+    public SuffixArrayMatching(JPlagOptions options) {
+        this(options, SubmissionDataCache.defaultMaximumCachedTokens(ESTIMATED_CACHED_BYTES_PER_TOKEN));
+    }
+
+    /**
+     * Creates the engine with an explicit cache size.
+     * @param options determine the minimum match length.
+     * @param maximumCachedTokens is the maximum number of tokens for which submission data is cached. If the data of all
+     * submissions does not fit, data not used recently is evicted and recomputed when needed, at worst once per comparison.
+     */
+    public SuffixArrayMatching(JPlagOptions options, long maximumCachedTokens) {
+        this.minimumMatchLength = options.minimumTokenMatch();
+        this.submissionData = new SubmissionDataCache<>(maximumCachedTokens, (values, initialMarking) -> null);
+    }
+
+    @Override
+    public JPlagComparison generateBaseCodeMarking(Submission submission, Submission baseCodeSubmission) {
+        JPlagComparison comparison = compare(submission, baseCodeSubmission);
+        submissionData.markBaseCode(submission, comparison);
+        return comparison;
+    }
+
+    @Override
+    public void prepareSubmissions(Collection<Submission> submissions) {
+        submissionData.prepare(submissions);
+    }
+
+    /**
+     * Returns the distinct hashes of all unmarked subsequences of minimum match length. They are computed on demand and not
+     * cached, as this engine does not need them for matching.
+     * @param submission is the submission to get the hashes for.
+     * @return the distinct subsequence hashes, in no particular order.
+     */
+    @Override
+    public int[] matchableSubsequenceHashes(Submission submission) {
+        SubmissionData<Void> data = submissionData.get(submission);
+        return SubsequenceHashLookupTable.distinctSubsequenceHashes(minimumMatchLength, data.values(), data.initialMarking());
+    }
+
+    @Override
+    public int maximumMatchedTokens(Submission firstSubmission, Submission secondSubmission) {
+        return submissionData.maximumMatchedTokens(firstSubmission, secondSubmission, minimumMatchLength);
+    }
+
+    @Override
+    public JPlagComparison compare(Submission firstSubmission, Submission secondSubmission) {
+        return compare(firstSubmission, secondSubmission, 0);
+    }
+
+    /**
+     * Compares the two submissions. The tiling has no iterations after which it could stop early, so the comparison is
+     * always complete.
+     * @param firstSubmission is one of the two submissions.
+     * @param secondSubmission is the other of the two submissions.
+     * @param minimumMatchedTokens is ignored.
+     * @return the comparison between the two submissions.
+     */
+    @Override
+    public JPlagComparison compare(Submission firstSubmission, Submission secondSubmission, int minimumMatchedTokens) {
+        Submission leftSubmission = firstSubmission;
+        Submission rightSubmission = secondSubmission;
+        if (firstSubmission.getTokenList().size() > secondSubmission.getTokenList().size()) {
+            leftSubmission = secondSubmission;
+            rightSubmission = firstSubmission;
+        }
+        // comparison uses <= because it is assumed that the last token is a pivot (FILE_END)
+        if (leftSubmission.getTokenList().size() <= minimumMatchLength || rightSubmission.getTokenList().size() <= minimumMatchLength) {
+            return new JPlagComparison(leftSubmission, rightSubmission, List.of());
+        }
+        SubmissionData<Void> leftData = submissionData.get(leftSubmission);
+        SubmissionData<Void> rightData = submissionData.get(rightSubmission);
+        MarkingBuffers buffers = submissionData.markingBuffers();
+        buffers.left.copyFrom(leftData.initialMarking());
+        buffers.right.copyFrom(rightData.initialMarking());
+        return new JPlagComparison(leftSubmission, rightSubmission,
+                computeMatches(leftData.values(), buffers.left, rightData.values(), buffers.right));
+    }
+
+    /**
+     * Computes the tiles of the two value sequences. Matched tokens are marked.
+     * @param leftValues are the values of the smaller sequence.
+     * @param leftMarkedIndexes marks the tokens of the smaller sequence that must not be matched. Is modified.
+     * @param rightValues are the values of the larger sequence.
+     * @param rightMarkedIndexes marks the tokens of the larger sequence that must not be matched. Is modified.
+     * @return the matches.
+     */
+    private List<Match> computeMatches(int[] leftValues, TokenMarking leftMarkedIndexes, int[] rightValues,
+            TokenMarking rightMarkedIndexes) {
+        int leftLength = leftValues.length;
+        int rightOffset = leftLength + 1;
+        int[] sequence = new int[rightOffset + rightValues.length];
+        for (int index = 0; index < leftLength; index++) { // marked tokens are replaced by unique values, so they never match
+            sequence[index] = leftMarkedIndexes.isMarked(index) ? -index - 1 : leftValues[index];
+        }
+        sequence[leftLength] = SEPARATOR;
+        for (int index = 0; index < rightValues.length; index++) {
+            sequence[rightOffset + index] = rightMarkedIndexes.isMarked(index) ? -rightOffset - index - 1 : rightValues[index];
+        }
+
+        int[] suffixArray = suffixArray(sequence);
+        int[] longestCommonPrefixes = longestCommonPrefixes(sequence, suffixArray);
+        int[] longestMatch = new int[sequence.length];
+        int[] partner = new int[sequence.length];
+        findLongestMatches(suffixArray, longestCommonPrefixes, leftLength, longestMatch, partner);
+
+        // candidates are bucketed by length and linked within a bucket, such that shortened candidates can be re-inserted
+        int[] candidateLeft = new int[sequence.length];
+        int[] candidateRight = new int[sequence.length];
+        int[] nextCandidate = new int[sequence.length];
+        int[] bucketHeads = new int[leftLength + 1];
+        int[] bucketTails = new int[leftLength + 1];
+        Arrays.fill(bucketHeads, NONE);
+        int numberOfCandidates = 0;
+        for (int position = 0; position < sequence.length; position++) {
+            if (longestMatch[position] >= minimumMatchLength) {
+                boolean isLeft = position < leftLength;
+                candidateLeft[numberOfCandidates] = isLeft ? position : partner[position];
+                candidateRight[numberOfCandidates] = (isLeft ? partner[position] : position) - rightOffset;
+                append(numberOfCandidates++, longestMatch[position], bucketHeads, bucketTails, nextCandidate);
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (int length = leftLength; length >= minimumMatchLength; length--) {
+            for (int candidate = bucketHeads[length]; candidate != NONE; candidate = nextCandidate[candidate]) {
+                int left = candidateLeft[candidate];
+                int right = candidateRight[candidate];
+                int unmarkedLength = 0;
+                while (unmarkedLength < length && !leftMarkedIndexes.isMarked(left + unmarkedLength)
+                        && !rightMarkedIndexes.isMarked(right + unmarkedLength)) {
+                    unmarkedLength++;
+                }
+                if (unmarkedLength == length) {
+                    matches.add(new Match(left, right, length));
+                    leftMarkedIndexes.markRange(left, length);
+                    rightMarkedIndexes.markRange(right, length);
+                } else if (unmarkedLength >= minimumMatchLength) {
+                    append(candidate, unmarkedLength, bucketHeads, bucketTails, nextCandidate);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static void append(int candidate, int length, int[] bucketHeads, int[] bucketTails, int[] nextCandidate) {
+        nextCandidate[candidate] = NONE;
+        if (bucketHeads[length] == NONE) {
+            bucketHeads[length] = candidate;
+        } else {
+            nextCandidate[bucketTails[length]] = candidate;
+        }
+        bucketTails[length] = candidate;
+    }
+
+    /**
+     * Determines for each suffix the longest common prefix with a suffix of the other sequence. The longest one is the
+     * nearest suffix of the other sequence in suffix array order, either before or after it.
+     * @param longestMatch receives the length of the longest common prefix per suffix.
+     * @param partner receives the start of the suffix of the other sequence with that prefix.
+     */
+    private static void findLongestMatches(int[] suffixArray, int[] longestCommonPrefixes, int leftLength, int[] longestMatch,
+            int[] partner) {
+        int numberOfSuffixes = suffixArray.length;
+        int lastLeft = NONE;
+        int lastRight = NONE;
+        int minimumSinceLeft = 0;
+        int minimumSinceRight = 0;
+        for (int rank = 0; rank < numberOfSuffixes; rank++) {
+            minimumSinceLeft = Math.min(minimumSinceLeft, longestCommonPrefixes[rank]);
+            minimumSinceRight = Math.min(minimumSinceRight, longestCommonPrefixes[rank]);
+            int position = suffixArray[rank];
+            if (position < leftLength) {
+                update(position, lastRight, minimumSinceRight, longestMatch, partner);
+                lastLeft = position;
+                minimumSinceLeft = Integer.MAX_VALUE;
+            } else if (position > leftLength) {
+                update(position, lastLeft, minimumSinceLeft, longestMatch, partner);
+                lastRight = position;
+                minimumSinceRight = Integer.MAX_VALUE;
+            }
+        }
+        lastLeft = NONE;
+        lastRight = NONE;
+        for (int rank = numberOfSuffixes - 1; rank >= 0; rank--) {
+            int commonPrefix = rank + 1 < numberOfSuffixes ? longestCommonPrefixes[rank + 1] : 0;
+            minimumSinceLeft = Math.min(minimumSinceLeft, commonPrefix);
+            minimumSinceRight = Math.min(minimumSinceRight, commonPrefix);
+            int position = suffixArray[rank];
+            if (position < leftLength) {
+                update(position, lastRight, minimumSinceRight, longestMatch, partner);
+                lastLeft = position;
+                minimumSinceLeft = Integer.MAX_VALUE;
+            } else if (position > leftLength) {
+                update(position, lastLeft, minimumSinceLeft, longestMatch, partner);
+                lastRight = position;
+                minimumSinceRight = Integer.MAX_VALUE;
+            }
+        }
+    }
+
+    private static void update(int position, int otherPosition, int commonPrefix, int[] longestMatch, int[] partner) {
+        if (otherPosition != NONE && commonPrefix > longestMatch[position]) {
+            longestMatch[position] = commonPrefix;
+            partner[position] = otherPosition;
+        }
+    }
+
+    /**
+     * Builds the suffix array of a sequence by prefix doubling with radix sort, in O(n log n).
+     * @param sequence is the sequence.
+     * @return the start indexes of the suffixes in lexicographic order.
+     */
+    static int[] suffixArray(int[] sequence) {
+        int length = sequence.length;
+        int[] suffixArray = new int[length];
+        int[] rank = new int[length];
+        int[] temporary = new int[length];
+        if (length == 0) {
+            return suffixArray;
+        }
+
+        long[] valuesAndIndexes = new long[length];
+        for (int index = 0; index < length; index++) {
+            valuesAndIndexes[index] = ((long) sequence[index] << 32) | index;
+        }
+        Arrays.sort(valuesAndIndexes);
+        int numberOfRanks = 0;
+        for (int position = 0; position < length; position++) {
+            suffixArray[position] = (int) valuesAndIndexes[position];
+            if (position > 0 && (valuesAndIndexes[position] >> 32) != (valuesAndIndexes[position - 1] >> 32)) {
+                numberOfRanks++;
+            }
+            rank[suffixArray[position]] = numberOfRanks;
+        }
+        numberOfRanks++;
+
+        int[] counts = new int[length + 1];
+        for (int offset = 1; numberOfRanks < length; offset *= 2) {
+            // order by the rank of the second half, suffixes without second half first
+            int position = 0;
+            for (int index = length - offset; index < length; index++) {
+                temporary[position++] = index;
+            }
+            for (int suffix : suffixArray) {
+                if (suffix >= offset) {
+                    temporary[position++] = suffix - offset;
+                }
+            }
+            // stable counting sort by the rank of the first half
+            Arrays.fill(counts, 0, numberOfRanks + 1, 0);
+            for (int index = 0; index < length; index++) {
+                counts[rank[index] + 1]++;
+            }
+            for (int value = 1; value <= numberOfRanks; value++) {
+                counts[value] += counts[value - 1];
+            }
+            for (int suffix : temporary) {
+                suffixArray[counts[rank[suffix]]++] = suffix;
+            }
+            // re-rank, temporary holds the new ranks
+            temporary[suffixArray[0]] = 0;
+            numberOfRanks = 1;
+            for (position = 1; position < length; position++) {
+                int current = suffixArray[position];
+                int previous = suffixArray[position - 1];
+                if (rank[current] != rank[previous] || secondRank(rank, current, offset) != secondRank(rank, previous, offset)) {
+                    numberOfRanks++;
+                }
+                temporary[current] = numberOfRanks - 1;
+            }
+            int[] swap = rank;
+            rank = temporary;
+            temporary = swap;
+        }
+        return suffixArray;
+    }
+
+    private static int secondRank(int[] rank, int suffix, int offset) {
+        return suffix + offset < rank.length ? rank[suffix + offset] : -1;
+    }
+
+    /**
+     * Computes the longest common prefix of each suffix with its predecessor in suffix array order (Kasai et al.).
+     * @return the prefix lengths indexed by the position in the suffix array, zero for the first suffix.
+     */
+    static int[] longestCommonPrefixes(int[] sequence, int[] suffixArray) {
+        int length = sequence.length;
+        int[] rankOf = new int[length];
+        for (int position = 0; position < length; position++) {
+            rankOf[suffixArray[position]] = position;
+        }
+        int[] longestCommonPrefixes = new int[length];
+        int commonPrefix = 0;
+        for (int suffix = 0; suffix < length; suffix++) {
+            if (rankOf[suffix] == 0) {
+                commonPrefix = 0;
+                continue;
+            }
+            int previous = suffixArray[rankOf[suffix] - 1];
+            while (suffix + commonPrefix < length && previous + commonPrefix < length
+                    && sequence[suffix + commonPrefix] == sequence[previous + commonPrefix]) {
+                commonPrefix++;
+            }
+            longestCommonPrefixes[rankOf[suffix]] = commonPrefix;
+            if (commonPrefix > 0) {
+                commonPrefix--;
+            }
+        }
+        return longestCommonPrefixes;
+    }
+}
@@ -0,0 +1,178 @@
+package de.jplag;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache for the tokens of parsed submissions. An entry is keyed by the SHA-256 hash of the contents and
+ * relative paths of the submission files, the language identifier, and the version of the language frontend, so it is
+ * only reused if parsing would yield the same tokens. As languages parse the files of a submission together, an entry
+ * holds the token streams of all files of a submission in the order the language produced them. Each token is stored as
+ * the index of its file, the ordinal of its type, its line, column, and length. Therefore, only submissions whose token
+ * types are enum constants can be cached; others are always parsed.
+ */
+class TokenCache {
+    private static final Logger logger = LoggerFactory.getLogger(TokenCache.class);
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String ENTRY_SUFFIX = ".tokens";
+    private static final int NO_FILE = -1;
+
+    private final File directory;
+    private final Language language;
+    private final String frontendVersion;
+
+    /**
+     * Creates a cache in the given directory, which is created if necessary.
+     * @param directory is the directory of the cache entries.
+     * @param language is the language the cached tokens are parsed with.
+     */
+    TokenCache(File directory, Language language) {
+        this.directory = directory;
+        this.language = language;
+        String implementationVersion = language.getClass().getPackage().getImplementationVersion();
+        String version = implementationVersion != null ? implementationVersion : JPlag.JPLAG_VERSION.toString();
+        this.frontendVersion = language.getClass().getName() + '@' + version;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            logger.warn("Could not create token cache directory {}", directory);
+        }
+    }
+
+    /**
+     * Loads the cached tokens of a submission.
+     * @param submission is the submission whose tokens are loaded.
+     * @return the tokens, referencing the files of the submission, or nothing if there is no valid entry.
+     */
+    Optional<List<Token>> load(Submission submission) {
+        List<File> files = SubmissionContents.sortedFiles(submission);
+        Optional<File> entry = entryOf(submission);
+        if (entry.isEmpty() || !entry.get().isFile()) {
+            return Optional.empty();
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry.get().toPath())))) {
+            if (input.readInt() != FORMAT_VERSION || input.readInt() != files.size()) {
+                return Optional.empty();
+            }
+            TokenType[] types = new TokenType[input.readInt()];
+            for (int index = 0; index < types.length; index++) {
+                types[index] = SubmissionContents.enumTokenType(input.readUTF(), input.readInt(), language);
+            }
+            int numberOfTokens = input.readInt();
+            ColumnarTokenList.Builder tokens = new ColumnarTokenList.Builder(numberOfTokens, submission.getTokenTypeRegistry());
+            for (int index = 0; index < numberOfTokens; index++) {
+                int fileIndex = input.readInt();
+                TokenType type = types[input.readInt()];
+                File file = fileIndex == NO_FILE ? null : files.get(fileIndex);
+                tokens.add(type, file, input.readInt(), input.readInt(), input.readInt());
+            }
+            return Optional.of(tokens.build());
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            logger.warn("Could not read cached tokens of submission {}, it is parsed again: {}", submission.getName(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the tokens of a successfully parsed submission. Submissions with tokens that cannot be represented in the
+     * cache are skipped.
+     * @param submission is the parsed submission.
+     */
+    void store(Submission submission) {
+        List<File> files = SubmissionContents.sortedFiles(submission);
+        Map<File, Integer> fileIndexes = new HashMap<>();
+        for (int index = 0; index < files.size(); index++) {
+            fileIndexes.put(files.get(index), index);
+            fileIndexes.put(files.get(index).getAbsoluteFile(), index);
+        }
+        Map<TokenType, Integer> typeIndexes = new HashMap<>();
+        List<Enum<?>> types = new ArrayList<>();
+        List<Token> tokens = submission.getTokenList();
+        int[] tokenFileIndexes = new int[tokens.size()];
+        for (int index = 0; index < tokens.size(); index++) {
+            Token token = tokens.get(index);
+            if (!(token.getType() instanceof Enum<?> type)) {
+                logger.debug("Tokens of submission {} are not cached, {} is no enum type", submission.getName(), token.getType());
+                return;
+            }
+            typeIndexes.computeIfAbsent(token.getType(), it -> {
+                types.add(type);
+                return types.size() - 1;
+            });
+            tokenFileIndexes[index] = fileIndex(token.getFile(), fileIndexes);
+            if (tokenFileIndexes[index] == NO_FILE && token.getFile() != null) {
+                logger.debug("Tokens of submission {} are not cached, {} is not a submission file", submission.getName(), token.getFile());
+                return;
+            }
+        }
+
+        Optional<File> entry = entryOf(submission);
+        if (entry.isEmpty()) {
+            return;
+        }
+        try {
+            // unique temporary file, as submissions with identical files may be stored concurrently
+            Path temporaryFile = Files.createTempFile(directory.toPath(), entry.get().getName(), ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(files.size());
+                output.writeInt(types.size());
+                for (Enum<?> type : types) {
+                    output.writeUTF(type.getDeclaringClass().getName());
+                    output.writeInt(type.ordinal());
+                }
+                output.writeInt(tokens.size());
+                for (int index = 0; index < tokens.size(); index++) {
+                    Token token = tokens.get(index);
+                    output.writeInt(tokenFileIndexes[index]);
+                    output.writeInt(typeIndexes.get(token.getType()));
+                    output.writeInt(token.getLine());
+                    output.writeInt(token.getColumn());
+                    output.writeInt(token.getLength());
+                }
+            }
+            Files.move(temporaryFile, entry.get().toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Could not cache tokens of submission {}: {}", submission.getName(), e.getMessage());
+        }
+    }
+
+    private static int fileIndex(File file, Map<File, Integer> fileIndexes) {
+        if (file == null) {
+            return NO_FILE;
+        }
+        Integer index = fileIndexes.get(file);
+        if (index == null) {
+            index = fileIndexes.get(file.getAbsoluteFile());
+        }
+        return index == null ? NO_FILE : index;
+    }
+
+    /**
+     * Determines the entry file of a submission by hashing the language, its frontend version, and the relative paths and
+     * contents of the files.
+     */
+    private Optional<File> entryOf(Submission submission) {
+        try {
+            String prefix = language.getIdentifier() + '\n' + frontendVersion + '\n';
+            return Optional.of(new File(directory, SubmissionContents.hashOf(submission, prefix) + ENTRY_SUFFIX));
+        } catch (IOException e) {
+            logger.warn("Could not hash files of submission {}, its tokens are not cached: {}", submission.getName(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package de.jplag;
+
+import java.util.Arrays;
+
+/**
+ * Primitive bitset that marks token indexes of a submission. Marked tokens are either excluded from matching (e.g. due
+ * to their token type or base code) or are already part of a match. Backed by a {@code long[]} to avoid boxing and
+ * hashing in the hot path of {@link GreedyStringTiling}. Instances are not thread-safe.
+ */
+final class TokenMarking {
+    private static final int ADDRESS_BITS_PER_WORD = 6;
+    private static final long[] NO_WORDS = new long[0];
+
+    private long[] words;
+    private int size;
+
+    /**
+     * Creates a new marking in which no index is marked.
+     * @param size is the number of indexes that can be marked.
+     */
+    TokenMarking(int size) {
+        this.size = size;
+        this.words = size == 0 ? NO_WORDS : new long[wordIndex(size - 1) + 1];
+    }
+
+    /**
+     * @return the number of indexes that can be marked.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param index is the token index to check.
+     * @return true if the index is marked.
+     */
+    boolean isMarked(int index) {
+        return (words[wordIndex(index)] & (1L << index)) != 0;
+    }
+
+    /**
+     * Marks a single token index.
+     * @param index is the token index to mark.
+     */
+    void mark(int index) {
+        words[wordIndex(index)] |= 1L << index;
+    }
+
+    /**
+     * Marks all token indexes in the range [fromIndex, fromIndex + length).
+     * @param fromIndex is the first index to mark.
+     * @param length is the number of consecutive indexes to mark.
+     */
+    void markRange(int fromIndex, int length) {
+        if (length <= 0) {
+            return;
+        }
+        int toIndex = fromIndex + length; // exclusive
+        int startWordIndex = wordIndex(fromIndex);
+        int endWordIndex = wordIndex(toIndex - 1);
+        long firstWordMask = -1L << fromIndex;
+        long lastWordMask = -1L >>> -toIndex;
+        if (startWordIndex == endWordIndex) {
+            words[startWordIndex] |= firstWordMask & lastWordMask;
+        } else {
+            words[startWordIndex] |= firstWordMask;
+            Arrays.fill(words, startWordIndex + 1, endWordIndex, -1L);
+            words[endWordIndex] |= lastWordMask;
+        }
+    }
+
+    /**
+     * Overwrites this marking with the given one. Reuses the backing array if it is large enough, thus a single instance
+     * can serve as a scratch buffer for many comparisons.
+     * @param other is the marking to copy.
+     */
+    void copyFrom(TokenMarking other) {
+        int wordsInUse = other.words.length;
+        if (words.length < wordsInUse) {
+            words = new long[wordsInUse];
+        }
+        System.arraycopy(other.words, 0, words, 0, wordsInUse);
+        Arrays.fill(words, wordsInUse, words.length, 0L);
+        size = other.size;
+    }
+
+    private static int wordIndex(int index) {
+        return index >> ADDRESS_BITS_PER_WORD;
+    }
+}
@@ -0,0 +1,56 @@
+package de.jplag;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assigns dense integer ids to the token types of a single run, such that the types of the tokens of all submissions of
+ * the run can be compared as integers. Submissions are only comparable if their tokens were registered in the same
+ * registry. The registry only lives as long as the submissions of its run, so token types with one value per word (e.g.
+ * of the text language) are not retained beyond it. Class implementation is thread-safe.
+ */
+public final class TokenTypeRegistry {
+
+    private final ConcurrentMap<TokenType, Integer> typeIds = new ConcurrentHashMap<>();
+    private volatile TokenType[] typesById = new TokenType[64]; // grows, only written while holding the lock
+    private int numberOfTypes;
+
+    /**
+     * Creates an empty registry, in which {@link SharedTokenType#FILE_END FILE_END} has the id zero.
+     */
+    public TokenTypeRegistry() {
+        idOf(SharedTokenType.FILE_END);
+    }
+
+    /**
+     * Returns the id of a token type, registers the type if it has no id yet.
+     * @param type is the token type.
+     * @return the id of the type.
+     */
+    public int idOf(TokenType type) {
+        Integer id = typeIds.get(type);
+        return id != null ? id : register(type);
+    }
+
+    /**
+     * @param id is the id of a registered token type.
+     * @return the token type with the id.
+     */
+    public TokenType typeOf(int id) {
+        return typesById[id];
+    }
+
+    private synchronized int register(TokenType type) {
+        Integer id = typeIds.get(type);
+        if (id != null) {
+            return id;
+        }
+        if (numberOfTypes == typesById.length) {
+            typesById = Arrays.copyOf(typesById, numberOfTypes * 2);
+        }
+        typesById[numberOfTypes] = type;
+        typeIds.put(type, numberOfTypes); // publishes the id only after the type is readable by id
+        return numberOfTypes++;
+    }
+}
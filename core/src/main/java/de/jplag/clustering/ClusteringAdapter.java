@@ -5,9 +5,6 @@ import java.util.Collection;
 import java.util.List;
 import java.util.function.ToDoubleFunction;
 
-import org.apache.commons.math3.linear.Array2DRowRealMatrix;
-import org.apache.commons.math3.linear.RealMatrix;
-
 import de.jplag.JPlagComparison;
 import de.jplag.Submission;
 import de.jplag.clustering.algorithm.GenericClusteringAlgorithm;
@@ -21,7 +18,7 @@ import de.jplag.clustering.algorithm.GenericClusteringAlgorithm;
  */
 public class ClusteringAdapter {
 
-    private final RealMatrix similarityMatrix;
+    private final SimilarityGraph similarityMatrix;
     private final IntegerMapping<Submission> mapping;
 
     /**
@@ -36,16 +33,40 @@ public class ClusteringAdapter {
             mapping.map(comparison.firstSubmission());
             mapping.map(comparison.secondSubmission());
         }
-        int size = mapping.size();
 
-        similarityMatrix = new Array2DRowRealMatrix(size, size);
+        SimilarityGraph.Builder builder = new SimilarityGraph.Builder(mapping.size());
         for (JPlagComparison comparison : comparisons) {
             int firstIndex = mapping.map(comparison.firstSubmission());
             int secondIndex = mapping.map(comparison.secondSubmission());
-            double similarity = metric.applyAsDouble(comparison);
-            similarityMatrix.setEntry(firstIndex, secondIndex, similarity);
-            similarityMatrix.setEntry(secondIndex, firstIndex, similarity);
+            builder.addEdge(firstIndex, secondIndex, metric.applyAsDouble(comparison));
+        }
+        similarityMatrix = builder.build();
+    }
+
+    /**
+     * Creates the clustering adapter from precomputed similarities. Only submissions that have at least one similarity
+     * entry might also appear in {@link ClusteringResult}s obtained from this adapter.
+     * @param submissions are the submissions in the order of the matrix indexes.
+     * @param similarities are the similarities between the submissions.
+     */
+    public ClusteringAdapter(List<Submission> submissions, CondensedSimilarityMatrix similarities) {
+        int[] matrixIndexes = new int[similarities.size()];
+        mapping = new IntegerMapping<>(submissions.size());
+        for (int index = 0; index < similarities.size(); index++) {
+            if (similarities.isPresent(index)) {
+                matrixIndexes[index] = mapping.map(submissions.get(index));
+            }
+        }
+
+        SimilarityGraph.Builder builder = new SimilarityGraph.Builder(mapping.size());
+        for (int first = 0; first < similarities.size(); first++) {
+            for (int second = first + 1; second < similarities.size() && similarities.isPresent(first); second++) {
+                if (similarities.isPresent(second)) {
+                    builder.addEdge(matrixIndexes[first], matrixIndexes[second], similarities.get(first, second));
+                }
+            }
         }
+        similarityMatrix = builder.build();
     }
 
     /**
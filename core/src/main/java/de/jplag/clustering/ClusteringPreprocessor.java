@@ -14,6 +14,16 @@ public interface ClusteringPreprocessor {
      */
     double[][] preprocessSimilarities(double[][] similarityMatrix);
 
+    /**
+     * Applies the preprocessing to a sparse similarity graph. Preprocessors that can work on the stored entries only should
+     * override this method, the default implementation processes a dense copy of the graph.
+     * @param similarityGraph original similarities
+     * @return preprocessed similarities
+     */
+    default SimilarityGraph preprocessSimilarities(SimilarityGraph similarityGraph) {
+        return SimilarityGraph.fromDense(preprocessSimilarities(similarityGraph.getData()));
+    }
+
     /**
      * Maps the indices of the preprocessed similarity matrix back to indices in the original matrix.
      * @param index after preprocessing
@@ -75,20 +75,38 @@ public class ClusteringResult<T> {
         if (!clustering.isEmpty()) {
             RealMatrix percentagesOfSimilaritySums = new Array2DRowRealMatrix(clustering.size(), clustering.size());
             percentagesOfSimilaritySums = percentagesOfSimilaritySums.scalarMultiply(0);
-            for (int i = 0; i < numberOfSubmissions; i++) {
-                if (!clusterIndicesOfSubmissionIndices.containsKey(i))
-                    continue;
-                int clusterA = clusterIndicesOfSubmissionIndices.get(i);
-                for (int j = i + 1; j < numberOfSubmissions; j++) {
-                    if (!clusterIndicesOfSubmissionIndices.containsKey(j))
+            double similaritySum;
+            if (similarity instanceof SimilarityGraph graph) {
+                // only visit the stored entries, each pair from the row with the larger index
+                for (int i = 0; i < numberOfSubmissions; i++) {
+                    Integer clusterA = clusterIndicesOfSubmissionIndices.get(i);
+                    if (clusterA == null)
                         continue;
-                    int clusterB = clusterIndicesOfSubmissionIndices.get(j);
-                    percentagesOfSimilaritySums.addToEntry(clusterA, clusterB, similarity.getEntry(i, j));
-                    percentagesOfSimilaritySums.addToEntry(clusterB, clusterA, similarity.getEntry(i, j));
+                    for (int position = graph.rowStart(i); position < graph.rowEnd(i) && graph.column(position) < i; position++) {
+                        Integer clusterB = clusterIndicesOfSubmissionIndices.get(graph.column(position));
+                        if (clusterB != null) {
+                            percentagesOfSimilaritySums.addToEntry(clusterA, clusterB, graph.value(position));
+                            percentagesOfSimilaritySums.addToEntry(clusterB, clusterA, graph.value(position));
+                        }
+                    }
                 }
+                similaritySum = graph.sum();
+            } else {
+                for (int i = 0; i < numberOfSubmissions; i++) {
+                    if (!clusterIndicesOfSubmissionIndices.containsKey(i))
+                        continue;
+                    int clusterA = clusterIndicesOfSubmissionIndices.get(i);
+                    for (int j = i + 1; j < numberOfSubmissions; j++) {
+                        if (!clusterIndicesOfSubmissionIndices.containsKey(j))
+                            continue;
+                        int clusterB = clusterIndicesOfSubmissionIndices.get(j);
+                        percentagesOfSimilaritySums.addToEntry(clusterA, clusterB, similarity.getEntry(i, j));
+                        percentagesOfSimilaritySums.addToEntry(clusterB, clusterA, similarity.getEntry(i, j));
+                    }
+                }
+                similaritySum = Arrays.stream(similarity.getData()).flatMapToDouble(DoubleStream::of).sum();
             }
-            percentagesOfSimilaritySums = percentagesOfSimilaritySums
-                    .scalarMultiply(1 / Arrays.stream(similarity.getData()).flatMapToDouble(DoubleStream::of).sum());
+            percentagesOfSimilaritySums = percentagesOfSimilaritySums.scalarMultiply(1 / similaritySum);
             for (int i = 0; i < clustering.size(); i++) {
                 double outWeightSum = percentagesOfSimilaritySums.getRowVector(i).getL1Norm();
                 double clusterCommunityStrength = percentagesOfSimilaritySums.getEntry(i, i) - outWeightSum * outWeightSum;
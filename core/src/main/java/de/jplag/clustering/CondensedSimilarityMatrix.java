@@ -0,0 +1,77 @@
+package de.jplag.clustering;
+
+/**
+ * Symmetric similarity matrix over a fixed number of elements that only stores the upper triangle with single precision.
+ * Additionally, it tracks which elements have at least one similarity entry. Concurrent writes of distinct entries are
+ * safe, the written values become visible to other threads once they synchronize with the writing threads.
+ */
+public class CondensedSimilarityMatrix {
+
+    private final int size;
+    private final float[] similarities;
+    private final boolean[] present;
+
+    /**
+     * Creates an empty matrix.
+     * @param size is the number of elements.
+     * @throws IllegalArgumentException if the upper triangle of the matrix does not fit into a single array.
+     */
+    public CondensedSimilarityMatrix(int size) {
+        long numberOfEntries = (long) size * (size - 1) / 2;
+        if (size < 0 || numberOfEntries > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Cannot store the similarities of " + size + " elements in a condensed matrix");
+        }
+        this.size = size;
+        this.similarities = new float[(int) Math.max(0, numberOfEntries)];
+        this.present = new boolean[size];
+    }
+
+    /**
+     * @return the number of elements.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the similarity between two distinct elements and marks both of them as present.
+     * @param first is the index of the first element.
+     * @param second is the index of the second element.
+     * @param similarity is the similarity of both elements.
+     */
+    public void set(int first, int second, double similarity) {
+        similarities[entryIndex(first, second)] = (float) similarity;
+        present[first] = true;
+        present[second] = true;
+    }
+
+    /**
+     * @param first is the index of the first element.
+     * @param second is the index of the second element.
+     * @return the similarity of both elements, zero if it was never set or the elements are identical.
+     */
+    public double get(int first, int second) {
+        if (first == second) {
+            return 0;
+        }
+        return similarities[entryIndex(first, second)];
+    }
+
+    /**
+     * @param index is the index of an element.
+     * @return whether a similarity was set for the element.
+     */
+    public boolean isPresent(int index) {
+        return present[index];
+    }
+
+    private int entryIndex(int first, int second) {
+        if (first == second) {
+            throw new IllegalArgumentException("No similarity entry for identical elements: " + first);
+        }
+        int row = Math.min(first, second);
+        int column = Math.max(first, second);
+        // offset of the row in the upper triangle plus the position of the column within the row.
+        return (int) ((long) row * (2L * size - row - 1) / 2 + (column - row - 1));
+    }
+}
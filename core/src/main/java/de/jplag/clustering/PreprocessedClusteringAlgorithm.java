@@ -24,13 +24,20 @@ public class PreprocessedClusteringAlgorithm implements GenericClusteringAlgorit
 
     @Override
     public Collection<Collection<Integer>> cluster(RealMatrix similarityMatrix) {
+        if (similarityMatrix instanceof SimilarityGraph similarityGraph) {
+            SimilarityGraph graph = preprocessor.preprocessSimilarities(similarityGraph);
+            return graph.getRowDimension() > 2 ? mapToOriginalIndices(base.cluster(graph)) : Collections.emptyList();
+        }
         double[][] data = preprocessor.preprocessSimilarities(similarityMatrix.getData());
         if (data.length > 2) {
-            Collection<Collection<Integer>> preliminaryResult = base.cluster(new Array2DRowRealMatrix(data, false));
-            return preliminaryResult.stream().map(cluster -> cluster.stream().map(preprocessor::originalIndexOf).collect(Collectors.toList()))
-                    .collect(Collectors.toList());
+            return mapToOriginalIndices(base.cluster(new Array2DRowRealMatrix(data, false)));
         }
         return Collections.emptyList();
     }
 
+    private Collection<Collection<Integer>> mapToOriginalIndices(Collection<Collection<Integer>> preliminaryResult) {
+        return preliminaryResult.stream().map(cluster -> cluster.stream().map(preprocessor::originalIndexOf).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package de.jplag.clustering;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
 
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.RealMatrix;
@@ -37,6 +38,25 @@ public class PreprocessorHelper {
         return similarity.getData();
     }
 
+    /**
+     * Removes disconnected nodes from the input graph.
+     * @param connections similarity graph
+     * @return similarity graph without nodes that have no positive similarity
+     */
+    public SimilarityGraph removeDisconnectedEntries(SimilarityGraph connections) {
+        mapping = new IntegerMapping<>(connections.getRowDimension());
+        for (int row = 0; row < connections.getRowDimension(); row++) {
+            for (int position = connections.rowStart(row); position < connections.rowEnd(row); position++) {
+                if (connections.value(position) > 0) {
+                    mapping.map(row);
+                    break;
+                }
+            }
+        }
+        int[] preservedRows = IntStream.range(0, mapping.size()).map(mapping::unmap).toArray();
+        return connections.subgraph(preservedRows);
+    }
+
     /**
      * Implements the logic for {@link ClusteringPreprocessor#originalIndexOf}
      * @param index after preprocessing
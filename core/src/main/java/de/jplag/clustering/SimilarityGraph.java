@@ -0,0 +1,310 @@
+package de.jplag.clustering;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+import org.apache.commons.math3.linear.AbstractRealMatrix;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+
+/**
+ * Sparse, symmetric similarity matrix in compressed sparse row (CSR) layout. Only non-zero similarities are stored,
+ * each as a single precision value, so the graph itself grows with the number of relevant comparisons instead of the
+ * square of the number of submissions. All other entries are implicitly zero.
+ * <p>
+ * The graph is immutable. It implements {@link RealMatrix} so that it can be passed to any clustering algorithm;
+ * algorithms that need a mutable matrix work on the dense matrix returned by {@link #copy()}. Algorithms and
+ * preprocessors aware of the sparse layout iterate the stored entries of a row via {@link #rowStart(int)},
+ * {@link #rowEnd(int)}, {@link #column(int)} and {@link #value(int)}. Note that only the preprocessors scale with the
+ * number of stored entries: agglomerative clustering needs a condensed matrix, and spectral clustering still works on a
+ * dense copy.
+ */
+public final class SimilarityGraph extends AbstractRealMatrix {
+
+    private final int size;
+    private final int[] rowOffsets;
+    private final int[] columns;
+    private final float[] values;
+
+    private SimilarityGraph(int size, int[] rowOffsets, int[] columns, float[] values) {
+        this.size = size;
+        this.rowOffsets = rowOffsets;
+        this.columns = columns;
+        this.values = values;
+    }
+
+    /**
+     * Creates a sparse graph from a dense, symmetric similarity matrix.
+     * @param similarityMatrix is the dense matrix.
+     * @return the graph containing all non-zero entries of the matrix.
+     */
+    public static SimilarityGraph fromDense(double[][] similarityMatrix) {
+        Builder builder = new Builder(similarityMatrix.length);
+        for (int row = 0; row < similarityMatrix.length; row++) {
+            for (int column = row; column < similarityMatrix.length; column++) {
+                builder.addEdge(row, column, similarityMatrix[row][column]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @param row is the row index.
+     * @return the position of the first stored entry of the row.
+     */
+    public int rowStart(int row) {
+        return rowOffsets[row];
+    }
+
+    /**
+     * @param row is the row index.
+     * @return the position after the last stored entry of the row.
+     */
+    public int rowEnd(int row) {
+        return rowOffsets[row + 1];
+    }
+
+    /**
+     * @param position is the position of a stored entry.
+     * @return the column of the stored entry.
+     */
+    public int column(int position) {
+        return columns[position];
+    }
+
+    /**
+     * @param position is the position of a stored entry.
+     * @return the value of the stored entry.
+     */
+    public double value(int position) {
+        return values[position];
+    }
+
+    /**
+     * @return the number of stored entries. Each off-diagonal similarity is stored twice, once per direction.
+     */
+    public int numberOfEntries() {
+        return values.length;
+    }
+
+    /**
+     * @return the sum of all entries of the matrix.
+     */
+    public double sum() {
+        double sum = 0;
+        for (float value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    /**
+     * @return the number of node pairs, i.e. the number of similarities in one triangle of the matrix.
+     */
+    public long numberOfPairs() {
+        return (long) size * (size - 1) / 2;
+    }
+
+    /**
+     * @return the stored similarities of all pairs of distinct nodes, each pair once.
+     */
+    public double[] pairValues() {
+        double[] pairValues = new double[(values.length - numberOfDiagonalEntries()) / 2];
+        int index = 0;
+        for (int row = 0; row < size; row++) {
+            for (int position = rowStart(row); position < rowEnd(row) && columns[position] < row; position++) {
+                pairValues[index++] = values[position];
+            }
+        }
+        return pairValues;
+    }
+
+    private int numberOfDiagonalEntries() {
+        int diagonalEntries = 0;
+        for (int row = 0; row < size; row++) {
+            if (Arrays.binarySearch(columns, rowOffsets[row], rowOffsets[row + 1], row) >= 0) {
+                diagonalEntries++;
+            }
+        }
+        return diagonalEntries;
+    }
+
+    /**
+     * Applies a function to all stored entries. Entries that are mapped to zero are dropped from the result, implicit
+     * zeros are not passed to the function and stay zero.
+     * @param function is applied to each stored value.
+     * @return the new graph.
+     */
+    public SimilarityGraph map(DoubleUnaryOperator function) {
+        Builder builder = new Builder(size);
+        for (int row = 0; row < size; row++) {
+            for (int position = rowStart(row); position < rowEnd(row) && columns[position] <= row; position++) {
+                builder.addEdge(row, columns[position], function.applyAsDouble(values[position]));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Extracts the graph induced by a subset of the nodes.
+     * @param nodes are the preserved nodes in ascending order. Node {@code nodes[i]} becomes node {@code i}.
+     * @return the induced graph.
+     */
+    public SimilarityGraph subgraph(int[] nodes) {
+        int[] newIndices = new int[size];
+        Arrays.fill(newIndices, -1);
+        for (int index = 0; index < nodes.length; index++) {
+            newIndices[nodes[index]] = index;
+        }
+        Builder builder = new Builder(nodes.length);
+        for (int row : nodes) {
+            for (int position = rowStart(row); position < rowEnd(row) && columns[position] <= row; position++) {
+                int column = newIndices[columns[position]];
+                if (column >= 0) {
+                    builder.addEdge(newIndices[row], column, values[position]);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int getRowDimension() {
+        return size;
+    }
+
+    @Override
+    public int getColumnDimension() {
+        return size;
+    }
+
+    @Override
+    public double getEntry(int row, int column) {
+        checkIndex(row);
+        checkIndex(column);
+        int position = Arrays.binarySearch(columns, rowOffsets[row], rowOffsets[row + 1], column);
+        return position >= 0 ? values[position] : 0;
+    }
+
+    @Override
+    public void setEntry(int row, int column, double value) {
+        throw new UnsupportedOperationException("similarity graphs are immutable");
+    }
+
+    @Override
+    public double[][] getData() {
+        double[][] data = new double[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int position = rowStart(row); position < rowEnd(row); position++) {
+                data[row][columns[position]] = values[position];
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Creates a dense, mutable copy of this matrix.
+     */
+    @Override
+    public RealMatrix copy() {
+        return new Array2DRowRealMatrix(getData(), false);
+    }
+
+    @Override
+    public RealMatrix createMatrix(int rowDimension, int columnDimension) {
+        return new Array2DRowRealMatrix(rowDimension, columnDimension);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+    }
+
+    /**
+     * Collects the similarities of a {@link SimilarityGraph}.
+     */
+    public static final class Builder {
+
+        private final int size;
+        private final int[] rowCounts;
+        private int[] firsts = new int[16];
+        private int[] seconds = new int[16];
+        private float[] similarities = new float[16];
+        private int edges;
+
+        /**
+         * @param size is the number of nodes of the graph.
+         */
+        public Builder(int size) {
+            this.size = size;
+            this.rowCounts = new int[size];
+        }
+
+        /**
+         * Sets the symmetric similarity between two nodes. Zero similarities are not stored. Each pair of nodes may be added
+         * at most once.
+         * @param first is the first node.
+         * @param second is the second node, may be equal to the first one.
+         * @param similarity is the similarity between the nodes.
+         * @return this builder.
+         */
+        public Builder addEdge(int first, int second, double similarity) {
+            if (first < 0 || first >= size || second < 0 || second >= size) {
+                throw new IndexOutOfBoundsException("edge (" + first + ", " + second + ") outside of graph with " + size + " nodes");
+            }
+            if (similarity == 0) {
+                return this;
+            }
+            if (edges == firsts.length) {
+                int capacity = firsts.length * 2;
+                firsts = Arrays.copyOf(firsts, capacity);
+                seconds = Arrays.copyOf(seconds, capacity);
+                similarities = Arrays.copyOf(similarities, capacity);
+            }
+            firsts[edges] = first;
+            seconds[edges] = second;
+            similarities[edges] = (float) similarity;
+            edges++;
+            rowCounts[first]++;
+            if (first != second) {
+                rowCounts[second]++;
+            }
+            return this;
+        }
+
+        /**
+         * @return the graph containing all added similarities.
+         * @throws IllegalStateException if a pair of nodes was added more than once.
+         */
+        public SimilarityGraph build() {
+            int[] rowOffsets = new int[size + 1];
+            for (int row = 0; row < size; row++) {
+                rowOffsets[row + 1] = rowOffsets[row] + rowCounts[row];
+            }
+            int[] fill = Arrays.copyOf(rowOffsets, size);
+            // column in the upper, value bits in the lower half, so that sorting orders the entries of a row by column
+            long[] entries = new long[rowOffsets[size]];
+            for (int edge = 0; edge < edges; edge++) {
+                long bits = Float.floatToRawIntBits(similarities[edge]) & 0xFFFFFFFFL;
+                entries[fill[firsts[edge]]++] = (long) seconds[edge] << 32 | bits;
+                if (firsts[edge] != seconds[edge]) {
+                    entries[fill[seconds[edge]]++] = (long) firsts[edge] << 32 | bits;
+                }
+            }
+            int[] columns = new int[entries.length];
+            float[] values = new float[entries.length];
+            for (int row = 0; row < size; row++) {
+                Arrays.sort(entries, rowOffsets[row], rowOffsets[row + 1]);
+                for (int position = rowOffsets[row]; position < rowOffsets[row + 1]; position++) {
+                    columns[position] = (int) (entries[position] >>> 32);
+                    values[position] = Float.intBitsToFloat((int) entries[position]);
+                    if (position > rowOffsets[row] && columns[position] == columns[position - 1]) {
+                        throw new IllegalStateException("duplicate edge (" + row + ", " + columns[position] + ")");
+                    }
+                }
+            }
+            return new SimilarityGraph(size, rowOffsets, columns, values);
+        }
+    }
+}
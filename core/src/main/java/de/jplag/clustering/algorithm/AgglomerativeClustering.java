@@ -2,18 +2,19 @@ package de.jplag.clustering.algorithm;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.apache.commons.math3.linear.RealMatrix;
 
 import de.jplag.clustering.ClusteringOptions;
+import de.jplag.clustering.CondensedSimilarityMatrix;
+import de.jplag.clustering.SimilarityGraph;
 
 /**
- * Begin by assigning a cluster to each entity and then successively merge similar clusters.
+ * Begin by assigning a cluster to each entity and then successively merge similar clusters. Merges are found with the
+ * nearest-neighbor-chain algorithm, which yields the same hierarchy as always merging the globally most similar pair for
+ * all supported {@link InterClusterSimilarity inter-cluster similarities}, in quadratic time and memory. The hierarchy
+ * is cut at the {@link ClusteringOptions#agglomerativeThreshold() threshold}.
  */
 public class AgglomerativeClustering implements GenericClusteringAlgorithm {
 
@@ -26,73 +27,116 @@ public class AgglomerativeClustering implements GenericClusteringAlgorithm {
     @Override
     public Collection<Collection<Integer>> cluster(RealMatrix similarityMatrix) {
         int size = similarityMatrix.getRowDimension();
-        // all clusters that do not have a parent yet
-        Set<Cluster> clusters = new HashSet<>(size);
-        // calculated similarities. Might contain connections to already visited
-        // clusters, those need to be ignored.
-        PriorityQueue<ClusterConnection> similarities;
-
-        // initialization
-
-        List<Cluster> initialClusters = new ArrayList<>(size);
+        InterClusterSimilarity interClusterSimilarity = options.agglomerativeInterClusterSimilarity();
+        // similarities between the clusters, each cluster is stored at the index of one of its original members
+        CondensedSimilarityMatrix similarities = toCondensedMatrix(similarityMatrix);
+        int[] clusterSizes = new int[size];
+        boolean[] active = new boolean[size];
+        // members of the clusters that are not cut by the threshold, null if the cluster was already emitted
+        List<List<Integer>> members = new ArrayList<>(size);
         for (int i = 0; i < size; i++) {
-            List<Integer> members = new ArrayList<>();
-            members.add(i);
-            Cluster cluster = new Cluster(members);
-            initialClusters.add(cluster);
-            clusters.add(cluster);
+            clusterSizes[i] = 1;
+            active[i] = true;
+            List<Integer> cluster = new ArrayList<>();
+            cluster.add(i);
+            members.add(cluster);
         }
 
-        List<ClusterConnection> initialSimilarities = new ArrayList<>(size * (size - 1) / 2);
-
-        for (int leftIndex = 0; leftIndex < initialClusters.size(); leftIndex++) {
-            Cluster leftCluster = initialClusters.get(leftIndex);
-            for (int rightIndex = leftIndex + 1; rightIndex < initialClusters.size(); rightIndex++) {
-                Cluster rightCluster = initialClusters.get(rightIndex);
-                initialSimilarities.add(new ClusterConnection(leftCluster, rightCluster, similarityMatrix.getEntry(leftIndex, rightIndex)));
+        List<Collection<Integer>> result = new ArrayList<>();
+        int[] chain = new int[size];
+        int chainLength = 0;
+        for (int remaining = size; remaining > 1; remaining--) {
+            if (chainLength == 0) {
+                chain[chainLength++] = firstActive(active);
+            }
+            while (true) {
+                int current = chain[chainLength - 1];
+                int previous = chainLength > 1 ? chain[chainLength - 2] : -1;
+                // prefer the previous cluster on ties, otherwise the chain might cycle
+                int nearest = previous;
+                double nearestSimilarity = previous >= 0 ? similarities.get(current, previous) : Double.NEGATIVE_INFINITY;
+                for (int other = 0; other < size; other++) {
+                    if (active[other] && other != current && similarities.get(current, other) > nearestSimilarity) {
+                        nearest = other;
+                        nearestSimilarity = similarities.get(current, other);
+                    }
+                }
+                if (nearest != previous) {
+                    chain[chainLength++] = nearest;
+                    continue;
+                }
+                // reciprocal nearest neighbors, merge current into previous
+                chainLength -= 2;
+                for (int other = 0; other < size; other++) {
+                    if (active[other] && other != current && other != previous) {
+                        similarities.set(previous, other, interClusterSimilarity.mergedSimilarity(similarities.get(previous, other),
+                                clusterSizes[previous], similarities.get(current, other), clusterSizes[current]));
+                    }
+                }
+                active[current] = false;
+                clusterSizes[previous] += clusterSizes[current];
+                mergeMembers(members, previous, current, nearestSimilarity >= options.agglomerativeThreshold(), result);
+                break;
             }
         }
 
-        similarities = new PriorityQueue<>(initialSimilarities);
-
-        while (clusters.size() > 1) {
-            ClusterConnection nearest = similarities.poll();
-            // TODO Check that nearest is never null
-            if (!(clusters.contains(nearest.left) && clusters.contains(nearest.right))) {
-                // One cluster already part of another cluster
-                continue;
+        for (int i = 0; i < size; i++) {
+            if (active[i] && members.get(i) != null) {
+                result.add(members.get(i));
             }
-            if (nearest.similarity < options.agglomerativeThreshold()) {
-                break;
+        }
+        return result;
+    }
+
+    private static CondensedSimilarityMatrix toCondensedMatrix(RealMatrix similarityMatrix) {
+        int size = similarityMatrix.getRowDimension();
+        CondensedSimilarityMatrix similarities = new CondensedSimilarityMatrix(size);
+        if (similarityMatrix instanceof SimilarityGraph graph) {
+            for (int row = 0; row < size; row++) {
+                for (int position = graph.rowStart(row); position < graph.rowEnd(row); position++) {
+                    if (graph.column(position) > row) {
+                        similarities.set(row, graph.column(position), graph.value(position));
+                    }
+                }
             }
-            clusters.remove(nearest.left);
-            clusters.remove(nearest.right);
-            nearest.left.submissions().addAll(nearest.right.submissions());
-            Cluster combined = new Cluster(nearest.left.submissions());
-            for (Cluster otherCluster : clusters) {
-                double similarity = options.agglomerativeInterClusterSimilarity().clusterSimilarity(combined.submissions, otherCluster.submissions,
-                        similarityMatrix);
-                similarities.add(new ClusterConnection(combined, otherCluster, similarity));
+        } else {
+            for (int row = 0; row < size; row++) {
+                for (int column = row + 1; column < size; column++) {
+                    similarities.set(row, column, similarityMatrix.getEntry(row, column));
+                }
             }
-            clusters.add(combined);
         }
-
-        return clusters.stream().map(Cluster::submissions).collect(Collectors.toList());
+        return similarities;
     }
 
-    private record ClusterConnection(Cluster left, Cluster right, double similarity) implements Comparable<ClusterConnection> {
-        @Override
-        public int compareTo(ClusterConnection other) {
-            return (int) Math.signum(other.similarity - similarity);
+    private static int firstActive(boolean[] active) {
+        int index = 0;
+        while (!active[index]) {
+            index++;
         }
-
+        return index;
     }
 
     /**
-     * Encapsulate a list in a class because we do not want hashing based on the members but on identity only. Also a
-     * cluster need a different identity than the list because the lists are reused.
+     * Updates the members after merging two clusters of the hierarchy. A merge below the threshold cuts the hierarchy, so
+     * both clusters are final and get emitted, and nothing is collected for the merged cluster anymore.
      */
-    private record Cluster(List<Integer> submissions) {
+    private static void mergeMembers(List<List<Integer>> members, int target, int source, boolean aboveThreshold,
+            List<Collection<Integer>> result) {
+        List<Integer> targetMembers = members.get(target);
+        List<Integer> sourceMembers = members.get(source);
+        if (aboveThreshold && targetMembers != null && sourceMembers != null) {
+            targetMembers.addAll(sourceMembers);
+        } else {
+            if (targetMembers != null) {
+                result.add(targetMembers);
+            }
+            if (sourceMembers != null) {
+                result.add(sourceMembers);
+            }
+            members.set(target, null);
+        }
+        members.set(source, null);
     }
 
 }
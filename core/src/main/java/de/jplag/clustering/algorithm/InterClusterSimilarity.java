@@ -40,4 +40,21 @@ public enum InterClusterSimilarity {
         }
         return similarity;
     }
+
+    /**
+     * Calculates the similarity between a cluster and the union of two other clusters from the similarities to the two
+     * clusters (Lance-Williams update), without visiting their members.
+     * @param leftSimilarity similarity to the left cluster
+     * @param leftSize number of members of the left cluster
+     * @param rightSimilarity similarity to the right cluster
+     * @param rightSize number of members of the right cluster
+     * @return similarity to the union of both clusters, as {@link #clusterSimilarity} would calculate it
+     */
+    public double mergedSimilarity(double leftSimilarity, int leftSize, double rightSimilarity, int rightSize) {
+        return switch (this) {
+            case MIN -> Math.min(leftSimilarity, rightSimilarity);
+            case MAX -> Math.max(leftSimilarity, rightSimilarity);
+            case AVERAGE -> (leftSize * leftSimilarity + rightSize * rightSimilarity) / (leftSize + rightSize);
+        };
+    }
 }
\ No newline at end of file
@@ -1,5 +1,10 @@
 package de.jplag.clustering.preprocessors;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.DefaultRealMatrixChangingVisitor;
 import org.apache.commons.math3.linear.DefaultRealMatrixPreservingVisitor;
@@ -8,6 +13,7 @@ import org.apache.commons.math3.random.EmpiricalDistribution;
 
 import de.jplag.clustering.ClusteringPreprocessor;
 import de.jplag.clustering.PreprocessorHelper;
+import de.jplag.clustering.SimilarityGraph;
 
 /**
  * Multiplies entries of the similarity matrix by their cumulative probability. - Weights that are very low will be
@@ -45,9 +51,146 @@ public class CumulativeDistributionFunctionPreprocessor implements ClusteringPre
         return helper.removeDisconnectedEntries(similarity.getData());
     }
 
+    /**
+     * Applies the same preprocessing to the stored entries of the graph. The distribution is binned like the
+     * {@link EmpiricalDistribution} of the dense matrix, but only the bins of the stored similarities are kept and pairs
+     * without stored similarity are added as a count of zeros. Thus, the memory scales with the number of stored entries
+     * instead of the number of pairs of nodes.
+     */
+    @Override
+    public SimilarityGraph preprocessSimilarities(SimilarityGraph similarityGraph) {
+        double[] pairValues = similarityGraph.pairValues();
+        PairDistribution dist = new PairDistribution(pairValues, similarityGraph.numberOfPairs() - pairValues.length);
+        return helper.removeDisconnectedEntries(similarityGraph.map(value -> dist.cumulativeProbability(value) * value));
+    }
+
     @Override
     public int originalIndexOf(int result) {
         return helper.postProcessResult(result);
     }
 
+    /**
+     * Empirical distribution of the similarities of all pairs of nodes that yields the same cumulative probabilities as an
+     * {@link EmpiricalDistribution} loaded with all similarities, including the zeros. Each bin is described by the number,
+     * mean and sum of squared deviations of its values, and the distribution within a bin is modeled with the same kernel.
+     * Only bins that contain values are stored.
+     */
+    private static final class PairDistribution {
+        private final long numberOfValues;
+        private final long binCount;
+        private final double min;
+        private final double max;
+        private final double delta;
+        private final long[] binIndexes; // ascending
+        private final long[] binSizes;
+        private final double[] binMeans;
+        private final double[] binSquaredDeviations;
+        private final double[] cumulativeProbabilities; // of all bins up to and including the bin
+
+        /**
+         * @param values are the similarities of the pairs that are not zero.
+         * @param zeros is the number of pairs whose similarity is zero.
+         */
+        PairDistribution(double[] values, long zeros) {
+            numberOfValues = values.length + zeros;
+            binCount = Math.max(100, numberOfValues / 100);
+            double[] sortedValues = values.clone();
+            Arrays.sort(sortedValues);
+            double minValue = sortedValues.length == 0 ? 0 : sortedValues[0];
+            double maxValue = sortedValues.length == 0 ? 0 : sortedValues[sortedValues.length - 1];
+            min = zeros > 0 ? Math.min(0, minValue) : minValue;
+            max = zeros > 0 ? Math.max(0, maxValue) : maxValue;
+            delta = (max - min) / binCount;
+
+            // the values are sorted, so the values of each bin are consecutive
+            List<Long> indexes = new ArrayList<>();
+            List<double[]> statistics = new ArrayList<>(); // size, mean, and sum of squared deviations
+            for (double value : sortedValues) {
+                long index = findBin(value);
+                if (indexes.isEmpty() || indexes.get(indexes.size() - 1) != index) {
+                    indexes.add(index);
+                    statistics.add(new double[3]);
+                }
+                double[] bin = statistics.get(statistics.size() - 1);
+                bin[0]++;
+                double deviation = value - bin[1];
+                bin[1] += deviation / bin[0];
+                bin[2] += deviation * (value - bin[1]);
+            }
+            if (zeros > 0) {
+                addZeros(indexes, statistics, zeros);
+            }
+
+            binIndexes = new long[indexes.size()];
+            binSizes = new long[indexes.size()];
+            binMeans = new double[indexes.size()];
+            binSquaredDeviations = new double[indexes.size()];
+            cumulativeProbabilities = new double[indexes.size()];
+            double cumulativeProbability = 0;
+            for (int bin = 0; bin < binIndexes.length; bin++) {
+                binIndexes[bin] = indexes.get(bin);
+                binSizes[bin] = (long) statistics.get(bin)[0];
+                binMeans[bin] = statistics.get(bin)[1];
+                binSquaredDeviations[bin] = statistics.get(bin)[2];
+                cumulativeProbability += ((double) binSizes[bin]) / numberOfValues;
+                cumulativeProbabilities[bin] = binIndexes[bin] == binCount - 1 ? 1.0 : cumulativeProbability;
+            }
+        }
+
+        /**
+         * Merges the zeros into the statistics of their bin, which is the first one as no similarity is negative.
+         */
+        private void addZeros(List<Long> indexes, List<double[]> statistics, long zeros) {
+            long index = findBin(0);
+            if (indexes.isEmpty() || indexes.get(0) != index) {
+                indexes.add(0, index);
+                statistics.add(0, new double[3]);
+            }
+            double[] bin = statistics.get(0);
+            double size = bin[0] + zeros;
+            double deviation = -bin[1];
+            bin[2] += deviation * deviation * bin[0] * zeros / size;
+            bin[1] += deviation * zeros / size;
+            bin[0] = size;
+        }
+
+        /**
+         * Same as {@link EmpiricalDistribution#cumulativeProbability(double)} for the values of the distribution. Values in
+         * empty bins get the cumulative probability of the bins below.
+         */
+        double cumulativeProbability(double x) {
+            if (x < min) {
+                return 0;
+            } else if (x >= max) {
+                return 1;
+            }
+            long binIndex = findBin(x);
+            int bin = Arrays.binarySearch(binIndexes, binIndex);
+            if (bin < 0) { // empty bin, e.g. for similarities of nodes with themselves
+                int binsBelow = -bin - 1;
+                return binsBelow == 0 ? 0 : cumulativeProbabilities[binsBelow - 1];
+            }
+            double lowerProbability = bin == 0 ? 0 : cumulativeProbabilities[bin - 1];
+            double binProbability = cumulativeProbabilities[bin] - lowerProbability;
+            // the kernel of a bin is constant if the bin has a single value or no variance, otherwise normal
+            double variance = binSizes[bin] > 1 ? binSquaredDeviations[bin] / (binSizes[bin] - 1) : 0;
+            if (binSizes[bin] == 1 || variance == 0) {
+                return x < binMeans[bin] ? lowerProbability : lowerProbability + binProbability;
+            }
+            NormalDistribution kernel = new NormalDistribution(null, binMeans[bin], Math.sqrt(variance),
+                    NormalDistribution.DEFAULT_INVERSE_ABSOLUTE_ACCURACY);
+            double lower = binIndex == 0 ? min : upperBound(binIndex - 1);
+            double kernelProbability = kernel.probability(lower, upperBound(binIndex));
+            double withinBin = (kernel.cumulativeProbability(x) - kernel.cumulativeProbability(lower)) / kernelProbability;
+            return lowerProbability + binProbability * withinBin;
+        }
+
+        private long findBin(double value) {
+            return Math.min(Math.max((long) Math.ceil((value - min) / delta) - 1, 0), binCount - 1);
+        }
+
+        private double upperBound(long binIndex) {
+            return binIndex == binCount - 1 ? max : min + delta * (binIndex + 1);
+        }
+    }
 }
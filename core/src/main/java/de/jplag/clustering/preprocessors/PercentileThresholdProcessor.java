@@ -1,11 +1,14 @@
 package de.jplag.clustering.preprocessors;
 
+import java.util.Arrays;
+
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.DefaultRealMatrixPreservingVisitor;
 import org.apache.commons.math3.stat.descriptive.rank.Percentile;
 import org.apache.commons.math3.stat.descriptive.rank.Percentile.EstimationType;
 
 import de.jplag.clustering.ClusteringPreprocessor;
+import de.jplag.clustering.SimilarityGraph;
 
 /**
  * Suppresses all similarities below a given percentile.
@@ -43,6 +46,43 @@ public class PercentileThresholdProcessor implements ClusteringPreprocessor {
         return thresholdPreprocessor.preprocessSimilarities(similarityMatrix);
     }
 
+    @Override
+    public SimilarityGraph preprocessSimilarities(SimilarityGraph similarityGraph) {
+        thresholdPreprocessor = new ThresholdPreprocessor(estimatePercentile(similarityGraph));
+        return thresholdPreprocessor.preprocessSimilarities(similarityGraph);
+    }
+
+    /**
+     * Estimates the percentile over all pairs of nodes like {@link EstimationType#R_2}, counting the pairs without stored
+     * similarity as zeros.
+     */
+    private double estimatePercentile(SimilarityGraph similarityGraph) {
+        long connections = similarityGraph.numberOfPairs();
+        if (connections == 0) {
+            return Double.NaN;
+        }
+        double[] weights = similarityGraph.pairValues();
+        Arrays.sort(weights);
+        long zeros = connections - weights.length;
+        double quantile = percentile / 100;
+        double position;
+        if (quantile == 0) {
+            position = 0;
+        } else if (quantile == 1) {
+            position = connections;
+        } else {
+            position = connections * quantile + 0.5;
+        }
+        double low = orderStatistic(weights, zeros, connections, Math.ceil(position - 0.5));
+        double high = orderStatistic(weights, zeros, connections, Math.floor(position + 0.5));
+        return (low + high) / 2;
+    }
+
+    private static double orderStatistic(double[] sortedWeights, long zeros, long connections, double position) {
+        long rank = position < 1 ? 1 : (long) Math.min(position, connections);
+        return rank <= zeros ? 0 : sortedWeights[(int) (rank - zeros - 1)];
+    }
+
     @Override
     public int originalIndexOf(int result) {
         return thresholdPreprocessor.originalIndexOf(result);
@@ -6,6 +6,7 @@ import org.apache.commons.math3.linear.RealMatrix;
 
 import de.jplag.clustering.ClusteringPreprocessor;
 import de.jplag.clustering.PreprocessorHelper;
+import de.jplag.clustering.SimilarityGraph;
 
 /**
  * Suppresses all similarities below a given threshold.
@@ -31,6 +32,11 @@ public class ThresholdPreprocessor implements ClusteringPreprocessor {
         return helper.removeDisconnectedEntries(similarity.getData());
     }
 
+    @Override
+    public SimilarityGraph preprocessSimilarities(SimilarityGraph similarityGraph) {
+        return helper.removeDisconnectedEntries(similarityGraph.map(value -> value >= threshold ? value : 0));
+    }
+
     @Override
     public int originalIndexOf(int result) {
         return helper.postProcessResult(result);
@@ -0,0 +1,21 @@
+package de.jplag.exceptions;
+
+import java.io.Serial;
+
+/**
+ * Exceptions for problems with writing or merging the shard files of a sharded comparison that lead to an preemptive
+ * exit.
+ */
+public class ShardException extends ExitException {
+
+    @Serial
+    private static final long serialVersionUID = 6250731840516823947L; // generated
+
+    public ShardException(String message) {
+        super(message);
+    }
+
+    public ShardException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
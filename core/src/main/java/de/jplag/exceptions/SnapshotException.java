@@ -0,0 +1,20 @@
+package de.jplag.exceptions;
+
+import java.io.Serial;
+
+/**
+ * Exceptions for problems with writing or restoring a result snapshot that lead to an preemptive exit.
+ */
+public class SnapshotException extends ExitException {
+
+    @Serial
+    private static final long serialVersionUID = -1287405385620914836L; // generated
+
+    public SnapshotException(String message) {
+        super(message);
+    }
+
+    public SnapshotException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,21 @@
+package de.jplag.options;
+
+/**
+ * Prefilters that select which pairs of submissions are compared with Greedy String Tiling.
+ */
+public enum CandidateFilter {
+    /** All pairs of submissions are compared. */
+    NONE,
+    /**
+     * Only pairs of submissions that share at least one subsequence of minimum match length are compared. All other pairs
+     * cannot have any match, thus the result does not change as long as the similarity threshold is greater than zero.
+     * Otherwise, this filter is not applied.
+     */
+    SHARED_SUBSEQUENCES,
+    /**
+     * Only pairs of submissions whose Jaccard similarity of their subsequences of minimum match length is estimated to
+     * reach the configured bound are compared. The estimation uses MinHash signatures and locality-sensitive hashing, so
+     * this filter may drop pairs that would exceed the similarity threshold.
+     */
+    MIN_HASH
+}
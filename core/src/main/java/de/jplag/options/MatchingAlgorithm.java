@@ -0,0 +1,17 @@
+package de.jplag.options;
+
+/**
+ * Algorithms that find the matching sections of two submissions.
+ */
+public enum MatchingAlgorithm {
+    /**
+     * Greedy String Tiling, which repeatedly searches the longest unmarked common sections of the two submissions. Its
+     * runtime grows quadratically with the number of tokens for submissions with many short matches.
+     */
+    GREEDY_STRING_TILING,
+    /**
+     * Tiling based on a suffix array over both submissions, which only considers the longest common section per start
+     * index. Its runtime is O(n log n) for n tokens, but it may miss some short matches that Greedy String Tiling finds.
+     */
+    SUFFIX_ARRAY
+}
@@ -0,0 +1,145 @@
+package de.jplag.options;
+
+import java.io.File;
+import java.util.Objects;
+
+/**
+ * Collection of parameters that tune how JPlag executes for large submission sets, trading memory and runtime.
+ * @param streamComparisons If true, only the comparisons shown in the report (see
+ * {@link JPlagOptions#maximumNumberOfComparisons()}) are kept in memory while comparing. The similarity distribution and
+ * the similarities used for clustering are aggregated on the fly instead of being derived from all comparisons.
+ * @param candidateFilter The prefilter that selects which pairs of submissions are compared.
+ * @param minimumEstimatedJaccard The minimum estimated Jaccard similarity of the subsequences of two submissions that is
+ * required to compare them with the {@link CandidateFilter#MIN_HASH} filter (must be between 0 and 1).
+ * @param archiveIndexFile File in which the index of the old submissions is persisted for the
+ * {@link CandidateFilter#SHARED_SUBSEQUENCES} filter, such that subsequent runs against the same archive only index
+ * changed or added old submissions. If null, the index is not persisted.
+ * @param tokenCacheDirectory Directory in which the tokens of parsed submissions are cached, keyed by the hash of their
+ * file contents. Subsequent runs only parse submissions whose files changed. If null, no tokens are cached.
+ * @param parsingThreads The number of threads that parse submissions concurrently, if the language supports it (see
+ * {@link de.jplag.Language#createParserInstance()}). If zero or negative, one thread per available processor is used.
+ * @param matchingAlgorithm The algorithm that finds the matching sections of two submissions.
+ * @param comparisonThreads The number of threads that compare pairs of submissions. If zero or negative, one thread per
+ * available processor is used.
+ * @param comparisonBlockTokens If positive, the pairs of submissions are compared block by block, where each block holds
+ * submissions with at most this number of tokens in total. The comparison data of two blocks should fit into the last
+ * level processor cache, which takes about 50 bytes per token. If zero or negative, the pairs are compared row by row.
+ * @param sharding Determines whether the comparisons are distributed across several processes.
+ * @param previousResult Snapshot of a previous run (see {@link de.jplag.ResultSnapshot}) whose comparisons between
+ * unchanged submissions are reused, such that only the pairs with a changed or added submission are compared. If null or
+ * not compatible with the current run, all pairs are compared.
+ * @param pipelined If true, each pair of submissions is compared as soon as both submissions are parsed, such that
+ * parsing and comparing overlap. Only applies if the comparisons are neither streamed, filtered, sharded nor reused.
+ */
+public record PerformanceOptions(boolean streamComparisons, CandidateFilter candidateFilter, double minimumEstimatedJaccard,
+        File archiveIndexFile, File tokenCacheDirectory, int parsingThreads, MatchingAlgorithm matchingAlgorithm, int comparisonThreads,
+        int comparisonBlockTokens, ShardingOptions sharding, File previousResult, boolean pipelined) {
+
+    public static final int ALL_AVAILABLE_PROCESSORS = 0;
+    public static final double DEFAULT_MINIMUM_ESTIMATED_JACCARD = 0.1;
+    public static final int NO_BLOCKS = 0;
+
+    public PerformanceOptions(boolean streamComparisons, CandidateFilter candidateFilter, double minimumEstimatedJaccard,
+            File archiveIndexFile, File tokenCacheDirectory, int parsingThreads, MatchingAlgorithm matchingAlgorithm,
+            int comparisonThreads, int comparisonBlockTokens, ShardingOptions sharding, File previousResult, boolean pipelined) {
+        this.streamComparisons = streamComparisons;
+        this.candidateFilter = Objects.requireNonNull(candidateFilter);
+        this.minimumEstimatedJaccard = Math.max(0, Math.min(1, minimumEstimatedJaccard));
+        this.archiveIndexFile = archiveIndexFile;
+        this.tokenCacheDirectory = tokenCacheDirectory;
+        this.parsingThreads = Math.max(ALL_AVAILABLE_PROCESSORS, parsingThreads);
+        this.matchingAlgorithm = Objects.requireNonNull(matchingAlgorithm);
+        this.comparisonThreads = Math.max(ALL_AVAILABLE_PROCESSORS, comparisonThreads);
+        this.comparisonBlockTokens = Math.max(NO_BLOCKS, comparisonBlockTokens);
+        this.sharding = Objects.requireNonNull(sharding);
+        this.previousResult = previousResult;
+        this.pipelined = pipelined;
+    }
+
+    public PerformanceOptions() {
+        this(false, CandidateFilter.NONE, DEFAULT_MINIMUM_ESTIMATED_JACCARD, null, null, ALL_AVAILABLE_PROCESSORS,
+                MatchingAlgorithm.GREEDY_STRING_TILING, ALL_AVAILABLE_PROCESSORS, NO_BLOCKS, new ShardingOptions(), null, false);
+    }
+
+    public PerformanceOptions withStreamComparisons(boolean streamComparisons) {
+        return new PerformanceOptions(streamComparisons, candidateFilter, minimumEstimatedJaccard, archiveIndexFile, tokenCacheDirectory,
+                parsingThreads, matchingAlgorithm, comparisonThreads, comparisonBlockTokens, sharding, previousResult, pipelined);
+    }
+
+    public PerformanceOptions withCandidateFilter(CandidateFilter candidateFilter) {
+        return new PerformanceOptions(streamComparisons, candidateFilter, minimumEstimatedJaccard, archiveIndexFile, tokenCacheDirectory,
+                parsingThreads, matchingAlgorithm, comparisonThreads, comparisonBlockTokens, sharding, previousResult, pipelined);
+    }
+
+    public PerformanceOptions withMinimumEstimatedJaccard(double minimumEstimatedJaccard) {
+        return new PerformanceOptions(streamComparisons, candidateFilter, minimumEstimatedJaccard, archiveIndexFile, tokenCacheDirectory,
+                parsingThreads, matchingAlgorithm, comparisonThreads, comparisonBlockTokens, sharding, previousResult, pipelined);
+    }
+
+    public PerformanceOptions withArchiveIndexFile(File archiveIndexFile) {
+        return new PerformanceOptions(streamComparisons, candidateFilter, minimumEstimatedJaccard, archiveIndexFile, tokenCacheDirectory,
+                parsingThreads, matchingAlgorithm, comparisonThreads, comparisonBlockTokens, sharding, previousResult, pipelined);
+    }
+
+    public PerformanceOptions withTokenCacheDirectory(File tokenCacheDirectory) {
+        return new PerformanceOptions(streamComparisons, candidateFilter, minimumEstimatedJaccard, archiveIndexFile, tokenCacheDirectory,
+                parsingThreads, matchingAlgorithm, comparisonThreads, comparisonBlockTokens, sharding, previousResult, pipelined);
+    }
+
+    public PerformanceOptions withParsingThreads(int parsingThreads) {
+        return new PerformanceOptions(streamComparisons, candidateFilter, minimumEstimatedJaccard, archiveIndexFile, tokenCacheDirectory,
+                parsingThreads, matchingAlgorithm, comparisonThreads, comparisonBlockTokens, sharding, previousResult, pipelined);
+    }
+
+    public PerformanceOptions withMatchingAlgorithm(MatchingAlgorithm matchingAlgorithm) {
+        return new PerformanceOptions(streamComparisons, candidateFilter, minimumEstimatedJaccard, archiveIndexFile, tokenCacheDirectory,
+                parsingThreads, matchingAlgorithm, comparisonThreads, comparisonBlockTokens, sharding, previousResult, pipelined);
+    }
+
+    public PerformanceOptions withComparisonThreads(int comparisonThreads) {
+        return new PerformanceOptions(streamComparisons, candidateFilter, minimumEstimatedJaccard, archiveIndexFile, tokenCacheDirectory,
+                parsingThreads, matchingAlgorithm, comparisonThreads, comparisonBlockTokens, sharding, previousResult, pipelined);
+    }
+
+    public PerformanceOptions withComparisonBlockTokens(int comparisonBlockTokens) {
+        return new PerformanceOptions(streamComparisons, candidateFilter, minimumEstimatedJaccard, archiveIndexFile, tokenCacheDirectory,
+                parsingThreads, matchingAlgorithm, comparisonThreads, comparisonBlockTokens, sharding, previousResult, pipelined);
+    }
+
+    public PerformanceOptions withSharding(ShardingOptions sharding) {
+        return new PerformanceOptions(streamComparisons, candidateFilter, minimumEstimatedJaccard, archiveIndexFile, tokenCacheDirectory,
+                parsingThreads, matchingAlgorithm, comparisonThreads, comparisonBlockTokens, sharding, previousResult, pipelined);
+    }
+
+    public PerformanceOptions withPreviousResult(File previousResult) {
+        return new PerformanceOptions(streamComparisons, candidateFilter, minimumEstimatedJaccard, archiveIndexFile, tokenCacheDirectory,
+                parsingThreads, matchingAlgorithm, comparisonThreads, comparisonBlockTokens, sharding, previousResult, pipelined);
+    }
+
+    public PerformanceOptions withPipelined(boolean pipelined) {
+        return new PerformanceOptions(streamComparisons, candidateFilter, minimumEstimatedJaccard, archiveIndexFile, tokenCacheDirectory,
+                parsingThreads, matchingAlgorithm, comparisonThreads, comparisonBlockTokens, sharding, previousResult, pipelined);
+    }
+
+    /**
+     * @return whether pairs are compared while parsing, which requires that the comparisons are neither streamed, filtered,
+     * sharded nor reused, as these need all submissions up front.
+     */
+    public boolean effectivePipelined() {
+        return pipelined && !streamComparisons && candidateFilter == CandidateFilter.NONE && !sharding.enabled() && previousResult == null;
+    }
+
+    /**
+     * @return the number of threads that parse submissions concurrently, resolving {@link #ALL_AVAILABLE_PROCESSORS}.
+     */
+    public int effectiveParsingThreads() {
+        return parsingThreads == ALL_AVAILABLE_PROCESSORS ? Runtime.getRuntime().availableProcessors() : parsingThreads;
+    }
+
+    /**
+     * @return the number of threads that compare pairs of submissions, resolving {@link #ALL_AVAILABLE_PROCESSORS}.
+     */
+    public int effectiveComparisonThreads() {
+        return comparisonThreads == ALL_AVAILABLE_PROCESSORS ? Runtime.getRuntime().availableProcessors() : comparisonThreads;
+    }
+}
@@ -0,0 +1,68 @@
+package de.jplag.options;
+
+import java.io.File;
+
+/**
+ * Parameters for distributing the pairwise comparisons across several JPlag processes, e.g. on a batch cluster with a
+ * shared file system. Each worker process reads the same submissions, compares the pairs of one shard, and writes its
+ * comparisons to a shard file. A final process with the same options merges the shard files of all shards into the
+ * result instead of comparing.
+ * @param numberOfShards The number of shards, or {@link #NO_SHARDS} to compare all pairs in a single process.
+ * @param shardIndex The shard compared by this process (starting at zero), or {@link #MERGE} to merge the shard files.
+ * @param shardDirectory The directory of the shard files, which must be shared by all processes. If null, the working
+ * directory is used.
+ */
+public record ShardingOptions(int numberOfShards, int shardIndex, File shardDirectory) {
+
+    public static final int NO_SHARDS = 0;
+    public static final int MERGE = -1;
+
+    private static final String SHARD_FILE_FORMAT = "shard-%d-of-%d.jplagshard";
+
+    public ShardingOptions {
+        if (numberOfShards < NO_SHARDS) {
+            throw new IllegalArgumentException("Number of shards must not be negative: " + numberOfShards);
+        }
+        if (shardIndex < MERGE || (numberOfShards != NO_SHARDS && shardIndex >= numberOfShards)) {
+            throw new IllegalArgumentException("Invalid shard index " + shardIndex + " for " + numberOfShards + " shards");
+        }
+    }
+
+    public ShardingOptions() {
+        this(NO_SHARDS, 0, null);
+    }
+
+    public ShardingOptions withNumberOfShards(int numberOfShards) {
+        return new ShardingOptions(numberOfShards, shardIndex, shardDirectory);
+    }
+
+    public ShardingOptions withShardIndex(int shardIndex) {
+        return new ShardingOptions(numberOfShards, shardIndex, shardDirectory);
+    }
+
+    public ShardingOptions withShardDirectory(File shardDirectory) {
+        return new ShardingOptions(numberOfShards, shardIndex, shardDirectory);
+    }
+
+    /**
+     * @return whether the comparisons are distributed across several processes.
+     */
+    public boolean enabled() {
+        return numberOfShards != NO_SHARDS;
+    }
+
+    /**
+     * @return whether this process merges the shard files instead of comparing.
+     */
+    public boolean isMerge() {
+        return enabled() && shardIndex == MERGE;
+    }
+
+    /**
+     * @param shard is the index of the shard.
+     * @return the file the comparisons of the given shard are written to.
+     */
+    public File shardFile(int shard) {
+        return new File(shardDirectory == null ? new File(".") : shardDirectory, SHARD_FILE_FORMAT.formatted(shard, numberOfShards));
+    }
+}
@@ -1,5 +1,7 @@
 package de.jplag.reporting.jsonfactory;
 
+import java.io.File;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,4 +12,9 @@ public class DummyWriter implements FileWriter {
     public void saveAsJSON(Object fileToSave, String folderPath, String fileName) {
         logger.info("DummyWriter writes object " + fileToSave + " to path " + folderPath + " with name " + fileName + " as JSON.");
     }
+
+    @Override
+    public void copyFile(File fileToCopy, String folderPath, String fileName) {
+        logger.info("DummyWriter copies file " + fileToCopy + " to path " + folderPath + " with name " + fileName + ".");
+    }
 }
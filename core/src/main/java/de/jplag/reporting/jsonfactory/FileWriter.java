@@ -1,5 +1,15 @@
 package de.jplag.reporting.jsonfactory;
 
+import java.io.File;
+
 public interface FileWriter {
     void saveAsJSON(Object fileToSave, String folderPath, String fileName);
+
+    /**
+     * Copies the provided file to the provided path under the provided name.
+     * @param fileToCopy The file to copy
+     * @param folderPath The path to copy the file to
+     * @param fileName The name to copy the file under
+     */
+    void copyFile(File fileToCopy, String folderPath, String fileName);
 }
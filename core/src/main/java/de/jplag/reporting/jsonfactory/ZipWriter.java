@@ -0,0 +1,92 @@
+package de.jplag.reporting.jsonfactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes the report files directly as entries of a zip file, without creating them on the disk first. Objects are
+ * serialized on the calling threads, such that they can be serialized in parallel, while the entries are written one
+ * after another in the order their serialization finishes. The folder paths are relative to the root of the zip file.
+ * If an entry cannot be written, an {@link UncheckedIOException} is thrown, as the zip file is incomplete.
+ */
+public class ZipWriter implements FileWriter, Closeable {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ZipOutputStream zipStream; // guarded by this
+
+    /**
+     * Creates the zip file, replacing an existing file of the same name.
+     * @param zipFile The zip file to write the report files to
+     * @throws IOException if the zip file cannot be created
+     */
+    public ZipWriter(File zipFile) throws IOException {
+        zipStream = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(zipFile.toPath())));
+    }
+
+    /**
+     * Saves the provided object as zip entry under the provided path and name
+     * @param fileToSave The object to save
+     * @param folderPath The path to save the object to, relative to the root of the zip file
+     * @param fileName The name to save the object under
+     * @throws UncheckedIOException if the object cannot be serialized or the entry cannot be written
+     */
+    @Override
+    public void saveAsJSON(Object fileToSave, String folderPath, String fileName) {
+        byte[] bytes;
+        try {
+            bytes = objectMapper.writeValueAsBytes(fileToSave);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Failed to save json file " + fileName, e);
+        }
+        synchronized (this) {
+            try {
+                zipStream.putNextEntry(new ZipEntry(entryName(folderPath, fileName)));
+                zipStream.write(bytes);
+                zipStream.closeEntry();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to save json file " + fileName, e);
+            }
+        }
+    }
+
+    /**
+     * Copies the provided file as zip entry under the provided path and name
+     * @param fileToCopy The file to copy
+     * @param folderPath The path to copy the file to, relative to the root of the zip file
+     * @param fileName The name to copy the file under
+     * @throws UncheckedIOException if the file cannot be read or the entry cannot be written
+     */
+    @Override
+    public synchronized void copyFile(File fileToCopy, String folderPath, String fileName) {
+        try {
+            zipStream.putNextEntry(new ZipEntry(entryName(folderPath, fileName)));
+            Files.copy(fileToCopy.toPath(), zipStream);
+            zipStream.closeEntry();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save submission file " + fileToCopy, e);
+        }
+    }
+
+    /**
+     * Finishes the zip file.
+     * @throws IOException if the zip file cannot be finished
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        zipStream.close();
+    }
+
+    private static String entryName(String folderPath, String fileName) {
+        String entryName = folderPath.isEmpty() ? fileName : folderPath + "/" + fileName;
+        return entryName.replace(File.separatorChar, '/');
+    }
+}
@@ -1,20 +1,20 @@
 package de.jplag.reporting.reportobject;
 
-import static de.jplag.reporting.jsonfactory.DirectoryManager.createDirectory;
-import static de.jplag.reporting.jsonfactory.DirectoryManager.deleteDirectory;
-import static de.jplag.reporting.jsonfactory.DirectoryManager.zipDirectory;
 import static de.jplag.reporting.reportobject.mapper.SubmissionNameToIdMapper.buildSubmissionNameToIdMap;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -26,62 +26,84 @@ import de.jplag.JPlagComparison;
 import de.jplag.JPlagResult;
 import de.jplag.Language;
 import de.jplag.Submission;
+import de.jplag.SubmissionContents;
 import de.jplag.reporting.jsonfactory.ComparisonReportWriter;
-import de.jplag.reporting.jsonfactory.ToDiskWriter;
+import de.jplag.reporting.jsonfactory.FileWriter;
+import de.jplag.reporting.jsonfactory.ZipWriter;
 import de.jplag.reporting.reportobject.mapper.ClusteringResultMapper;
 import de.jplag.reporting.reportobject.mapper.MetricMapper;
 import de.jplag.reporting.reportobject.model.Metric;
 import de.jplag.reporting.reportobject.model.OverviewReport;
+import de.jplag.reporting.reportobject.model.SubmissionFileIndex;
+import de.jplag.reporting.reportobject.model.TopComparison;
 import de.jplag.reporting.reportobject.model.Version;
 
 /**
  * Factory class, responsible for converting a JPlagResult object to Overview and Comparison DTO classes and writing it
- * to the disk.
+ * to the disk. The report files are written directly into the zip file of the report. The contents of the submission
+ * files are stored content-addressed, such that identical files (e.g. provided templates) are stored only once. If
+ * there are more top comparisons than fit on one page, the overview only holds the first page of each metric, and the
+ * further pages as well as the comparison file names of each submission are written to separate files, such that the
+ * report viewer only loads what is displayed.
  */
 public class ReportObjectFactory {
     private static final Logger logger = LoggerFactory.getLogger(ReportObjectFactory.class);
 
-    private static final ToDiskWriter fileWriter = new ToDiskWriter();
     public static final String OVERVIEW_FILE_NAME = "overview.json";
     public static final String SUBMISSIONS_FOLDER = "files";
+    public static final String BLOBS_FOLDER = "blobs";
+    public static final String SUBMISSION_FILE_INDEX_FILE_NAME = "submissionFileIndex.json";
+    public static final String OVERVIEW_PAGES_FOLDER = "overview";
+    public static final String COMPARISON_FILE_NAMES_FOLDER = OVERVIEW_PAGES_FOLDER + "/comparisons";
+    public static final int DEFAULT_TOP_COMPARISON_PAGE_SIZE = 1000;
     public static final Version REPORT_VIEWER_VERSION = JPlag.JPLAG_VERSION;
 
+    private final int topComparisonPageSize;
     private Map<String, String> submissionNameToIdMap;
     private Function<Submission, String> submissionToIdFunction;
     private Map<String, Map<String, String>> submissionNameToNameToComparisonFileName;
 
+    public ReportObjectFactory() {
+        this(DEFAULT_TOP_COMPARISON_PAGE_SIZE);
+    }
+
+    /**
+     * @param topComparisonPageSize is the maximum number of top comparisons per page of the overview.
+     */
+    ReportObjectFactory(int topComparisonPageSize) {
+        this.topComparisonPageSize = topComparisonPageSize;
+    }
+
     /**
      * Creates all necessary report viewer files, writes them to the disk as zip.
      * @param result The JPlagResult to be converted into a report.
-     * @param path The Path to save the report to
+     * @param path The Path to save the report to, the zip file is named after it
      */
     public void createAndSaveReport(JPlagResult result, String path) {
+        File zipFile = new File(path + ".zip");
+        File parentDirectory = zipFile.getAbsoluteFile().getParentFile();
+        if (!parentDirectory.exists() && !parentDirectory.mkdirs()) {
+            logger.error("Could not create directory " + parentDirectory + " for report viewer generation");
+            return;
+        }
 
-        try {
-            logger.info("Start writing report files...");
-            createDirectory(path);
+        logger.info("Start writing report files...");
+        try (ZipWriter fileWriter = new ZipWriter(zipFile)) {
             buildSubmissionToIdMap(result);
 
-            copySubmissionFilesToReport(path, result);
-
-            writeComparisons(result, path);
-            writeOverview(result, path);
+            copySubmissionFilesToReport(fileWriter, result);
 
-            logger.info("Zipping report files...");
-            zipAndDelete(path);
-        } catch (IOException e) {
-            logger.error("Could not create directory " + path + " for report viewer generation", e);
-        }
-
-    }
-
-    private void zipAndDelete(String path) {
-        boolean zipWasSuccessful = zipDirectory(path);
-        if (zipWasSuccessful) {
-            deleteDirectory(path);
-        } else {
-            logger.error("Could not zip results. The results are still available uncompressed at " + path);
+            writeComparisons(fileWriter, result);
+            writeOverview(fileWriter, result);
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Could not write report file " + zipFile, e);
+            if (zipFile.isFile() && !zipFile.delete()) {
+                logger.error("Could not delete incomplete report file {}", zipFile);
+            }
+            return;
         }
+        logger.info("Successfully zipped report files: {}", zipFile);
+        logger.info("Display the results with the report viewer at https://jplag.github.io/JPlag/");
     }
 
     private void buildSubmissionToIdMap(JPlagResult result) {
@@ -89,61 +111,48 @@ public class ReportObjectFactory {
         submissionToIdFunction = (Submission submission) -> submissionNameToIdMap.get(submission.getName());
     }
 
-    private void copySubmissionFilesToReport(String path, JPlagResult result) {
-        logger.info("Start copying submission files to the output directory...");
+    /**
+     * Copies the submission files into the report, storing each distinct content once as blob named by its SHA-256 hash.
+     * The manifest of each submission in the {@link SubmissionFileIndex} maps its file names to their blobs.
+     */
+    private void copySubmissionFilesToReport(FileWriter fileWriter, JPlagResult result) {
+        logger.info("Start copying submission files to the report...");
         List<JPlagComparison> comparisons = result.getComparisons(result.getOptions().maximumNumberOfComparisons());
         Set<Submission> submissions = getSubmissions(comparisons);
-        File submissionsPath = createSubmissionsDirectory(path);
-        if (submissionsPath == null) {
-            return;
-        }
         Language language = result.getOptions().language();
+        Map<String, Map<String, String>> submissionFiles = new TreeMap<>();
+        Set<String> storedBlobs = new HashSet<>();
+        int numberOfFiles = 0;
         for (Submission submission : submissions) {
-            File directory = createSubmissionDirectory(path, submissionsPath, submission);
-            File submissionRoot = submission.getRoot();
-            if (directory == null) {
-                continue;
-            }
+            String submissionId = submissionToIdFunction.apply(submission);
+            Path submissionRoot = submission.getRoot().toPath();
+            Map<String, String> manifest = new TreeMap<>();
             for (File file : submission.getFiles()) {
-                File fullPath = createSubmissionDirectory(path, submissionsPath, submission, file, submissionRoot);
+                // same file names as in the comparison reports, see ComparisonReportWriter
+                Path relativePath = file.toPath().equals(submissionRoot) ? Path.of(submissionId) : submissionRoot.relativize(file.toPath());
                 File fileToCopy = getFileToCopy(language, file);
-                try {
-                    if (fullPath != null) {
-                        Files.copy(fileToCopy.toPath(), fullPath.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                    } else {
-                        throw new NullPointerException("Could not create file with full path");
-                    }
-                } catch (IOException e) {
-                    logger.error("Could not save submission file " + fileToCopy, e);
+                Optional<String> contentHash = contentHash(fileToCopy);
+                if (contentHash.isEmpty()) {
+                    continue;
+                }
+                if (storedBlobs.add(contentHash.get())) {
+                    fileWriter.copyFile(fileToCopy, BLOBS_FOLDER, contentHash.get());
                 }
+                manifest.put(Path.of(submissionId).resolve(relativePath).toString(), BLOBS_FOLDER + "/" + contentHash.get());
+                numberOfFiles++;
             }
+            submissionFiles.put(submissionId, manifest);
         }
+        fileWriter.saveAsJSON(new SubmissionFileIndex(submissionFiles), "", SUBMISSION_FILE_INDEX_FILE_NAME);
+        logger.info("Stored {} submission files as {} distinct files", numberOfFiles, storedBlobs.size());
     }
 
-    private File createSubmissionDirectory(String path, File submissionsPath, Submission submission, File file, File submissionRoot) {
-        try {
-            return createDirectory(submissionsPath.getPath(), submissionToIdFunction.apply(submission), file, submissionRoot);
-        } catch (IOException e) {
-            logger.error("Could not create directory " + path + " for report viewer generation", e);
-            return null;
-        }
-    }
-
-    private File createSubmissionDirectory(String path, File submissionsPath, Submission submission) {
-        try {
-            return createDirectory(submissionsPath.getPath(), submissionToIdFunction.apply(submission));
-        } catch (IOException e) {
-            logger.error("Could not create directory " + path + " for report viewer generation", e);
-            return null;
-        }
-    }
-
-    private File createSubmissionsDirectory(String path) {
+    private Optional<String> contentHash(File file) {
         try {
-            return createDirectory(path, SUBMISSIONS_FOLDER);
+            return Optional.of(SubmissionContents.hashOf(file));
         } catch (IOException e) {
-            logger.error("Could not create directory " + path + " for report viewer generation", e);
-            return null;
+            logger.error("Could not save submission file " + file, e);
+            return Optional.empty();
         }
     }
 
@@ -151,12 +160,12 @@ public class ReportObjectFactory {
         return language.useViewFiles() ? new File(file.getPath() + language.viewFileSuffix()) : file;
     }
 
-    private void writeComparisons(JPlagResult result, String path) {
+    private void writeComparisons(FileWriter fileWriter, JPlagResult result) {
         ComparisonReportWriter comparisonReportWriter = new ComparisonReportWriter(submissionToIdFunction, fileWriter);
-        submissionNameToNameToComparisonFileName = comparisonReportWriter.writeComparisonReports(result, path);
+        submissionNameToNameToComparisonFileName = comparisonReportWriter.writeComparisonReports(result, "");
     }
 
-    private void writeOverview(JPlagResult result, String path) {
+    private void writeOverview(FileWriter fileWriter, JPlagResult result) {
 
         List<File> folders = new ArrayList<>();
         folders.addAll(result.getOptions().submissionDirectories());
@@ -165,29 +174,58 @@ public class ReportObjectFactory {
         String baseCodePath = result.getOptions().hasBaseCode() ? result.getOptions().baseCodeSubmissionDirectory().getName() : "";
         ClusteringResultMapper clusteringResultMapper = new ClusteringResultMapper(submissionToIdFunction);
 
-        int totalComparisons = result.getAllComparisons().size();
+        int totalComparisons = result.getTotalNumberOfComparisons();
         int numberOfMaximumComparisons = result.getOptions().maximumNumberOfComparisons();
         int shownComparisons = totalComparisons > numberOfMaximumComparisons ? numberOfMaximumComparisons : totalComparisons;
         int missingComparisons = totalComparisons > numberOfMaximumComparisons ? (totalComparisons - numberOfMaximumComparisons) : 0;
         logger.info("Total Comparisons: {}. Comparisons in Report: {}. Omitted Comparisons: {}.", totalComparisons, shownComparisons,
                 missingComparisons);
+        List<Metric> metrics = getMetrics(result).stream().map(metric -> paginate(fileWriter, metric)).toList();
+        Map<String, Map<String, String>> comparisonFileNames = submissionNameToNameToComparisonFileName;
+        String comparisonFileNamesFolder = null;
+        if (metrics.stream().anyMatch(metric -> !metric.topComparisonPages().isEmpty())) {
+            comparisonFileNames.forEach((id, fileNames) -> fileWriter.saveAsJSON(fileNames, COMPARISON_FILE_NAMES_FOLDER, id + ".json"));
+            comparisonFileNames = Map.of();
+            comparisonFileNamesFolder = COMPARISON_FILE_NAMES_FOLDER;
+        }
         OverviewReport overviewReport = new OverviewReport(REPORT_VIEWER_VERSION, folders.stream().map(File::getPath).toList(), // submissionFolderPath
                 baseCodePath, // baseCodeFolderPath
                 result.getOptions().language().getName(), // language
                 result.getOptions().fileSuffixes(), // fileExtensions
                 submissionNameToIdMap.entrySet().stream().collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey)), // submissionIds
-                submissionNameToNameToComparisonFileName, // result.getOptions().getMinimumTokenMatch(),
+                comparisonFileNames, // submissionIdsToComparisonFileName
                 List.of(), // failedSubmissionNames
                 result.getOptions().excludedFiles(), // excludedFiles
                 result.getOptions().minimumTokenMatch(), // matchSensitivity
                 getDate(),// dateOfExecution
                 result.getDuration(), // executionTime
-                getMetrics(result),// metrics
+                metrics,// metrics
                 clusteringResultMapper.map(result), // clusters
-                totalComparisons); // totalComparisons
+                totalComparisons, // totalComparisons
+                comparisonFileNamesFolder); // comparisonFileNamesFolder
+
+        fileWriter.saveAsJSON(overviewReport, "", OVERVIEW_FILE_NAME);
 
-        fileWriter.saveAsJSON(overviewReport, path, OVERVIEW_FILE_NAME);
+    }
 
+    /**
+     * Writes all but the first page of the top comparisons of a metric to separate files.
+     * @return the metric with the first page of top comparisons and the file names of the further pages.
+     */
+    private Metric paginate(FileWriter fileWriter, Metric metric) {
+        List<TopComparison> topComparisons = metric.topComparisons();
+        if (topComparisons.size() <= topComparisonPageSize) {
+            return metric;
+        }
+        List<String> pages = new ArrayList<>();
+        for (int start = topComparisonPageSize; start < topComparisons.size(); start += topComparisonPageSize) {
+            String fileName = metric.name() + "-" + (start / topComparisonPageSize) + ".json";
+            fileWriter.saveAsJSON(topComparisons.subList(start, Math.min(topComparisons.size(), start + topComparisonPageSize)),
+                    OVERVIEW_PAGES_FOLDER, fileName);
+            pages.add(OVERVIEW_PAGES_FOLDER + "/" + fileName);
+        }
+        List<TopComparison> firstPage = topComparisons.subList(0, topComparisonPageSize);
+        return new Metric(metric.name(), metric.distribution(), firstPage, metric.description(), pages);
     }
 
     private Set<Submission> getSubmissions(List<JPlagComparison> comparisons) {
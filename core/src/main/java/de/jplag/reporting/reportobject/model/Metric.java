@@ -4,6 +4,19 @@ import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+/**
+ * ReportViewer DTO for a similarity metric.
+ * @param name name of the metric
+ * @param distribution distribution of the similarities of all comparisons
+ * @param topComparisons the comparisons with the highest similarities, only the first page if there are several pages
+ * @param description description of the metric
+ * @param topComparisonPages the file names of the further pages of top comparisons, in descending order of similarity
+ */
 public record Metric(@JsonProperty("name") String name, @JsonProperty("distribution") List<Integer> distribution,
-        @JsonProperty("topComparisons") List<TopComparison> topComparisons, @JsonProperty String description) {
+        @JsonProperty("topComparisons") List<TopComparison> topComparisons, @JsonProperty String description,
+        @JsonProperty("top_comparison_pages") List<String> topComparisonPages) {
+
+    public Metric(String name, List<Integer> distribution, List<TopComparison> topComparisons, String description) {
+        this(name, distribution, topComparisons, description, List.of());
+    }
 }
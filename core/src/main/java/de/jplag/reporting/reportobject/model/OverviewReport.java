@@ -35,5 +35,7 @@ public record OverviewReport(
 
         @JsonProperty("clusters") List<Cluster> clusters,
 
-        @JsonProperty("total_comparisons") int totalComparisons) {
+        @JsonProperty("total_comparisons") int totalComparisons,
+
+        @JsonProperty("comparison_file_names_folder") String comparisonFileNamesFolder) {
 }
@@ -0,0 +1,13 @@
+package de.jplag.reporting.reportobject.model;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * ReportViewer DTO for the files of the submissions, whose contents are stored once per distinct content.
+ * @param submissionFiles maps each submission id to its manifest, which maps the file names of the submission (as used in
+ * the matches) to the path of the blob holding their content
+ */
+public record SubmissionFileIndex(@JsonProperty("submission_files") Map<String, Map<String, String>> submissionFiles) {
+}
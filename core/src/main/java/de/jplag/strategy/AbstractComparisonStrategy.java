@@ -1,28 +1,36 @@
 package de.jplag.strategy;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import de.jplag.GreedyStringTiling;
 import de.jplag.JPlagComparison;
+import de.jplag.Match;
+import de.jplag.MatchingEngine;
 import de.jplag.Submission;
 import de.jplag.SubmissionSet;
+import de.jplag.options.CandidateFilter;
 import de.jplag.options.JPlagOptions;
+import de.jplag.options.PerformanceOptions;
 
 public abstract class AbstractComparisonStrategy implements ComparisonStrategy {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
-    private final GreedyStringTiling greedyStringTiling;
+    private final MatchingEngine matchingEngine;
 
     protected final JPlagOptions options;
 
-    protected AbstractComparisonStrategy(JPlagOptions options, GreedyStringTiling greedyStringTiling) {
-        this.greedyStringTiling = greedyStringTiling;
+    protected AbstractComparisonStrategy(JPlagOptions options, MatchingEngine matchingEngine) {
+        this.matchingEngine = matchingEngine;
         this.options = options;
         logger.info("Start comparing...");
     }
@@ -37,16 +45,48 @@ public abstract class AbstractComparisonStrategy implements ComparisonStrategy {
     protected void compareSubmissionsToBaseCode(SubmissionSet submissionSet) {
         Submission baseCodeSubmission = submissionSet.getBaseCode();
         for (Submission currentSubmission : submissionSet.getSubmissions()) {
-            JPlagComparison baseCodeComparison = greedyStringTiling.generateBaseCodeMarking(currentSubmission, baseCodeSubmission);
+            JPlagComparison baseCodeComparison = matchingEngine.generateBaseCodeMarking(currentSubmission, baseCodeSubmission);
             currentSubmission.setBaseCodeComparison(baseCodeComparison);
         }
     }
 
     /**
-     * Compares two submissions and optionally returns the results if similarity is high enough.
+     * Precomputes the data required for comparing the submissions in parallel. Must be called after the base code
+     * comparison, such that the pairwise comparisons only read immutable data.
+     * @param submissionSet Submissions to prepare.
+     */
+    protected void prepareSubmissions(SubmissionSet submissionSet) {
+        matchingEngine.prepareSubmissions(submissionSet.getSubmissions());
+    }
+
+    /**
+     * Compares a single submission to the base code if there is one and precomputes its comparison data, such that it can
+     * be compared while other submissions are still parsed.
+     * @param submission is the parsed submission to prepare.
+     * @param baseCode is the parsed base code submission, or null if there is none.
+     */
+    protected void prepareSubmission(Submission submission, Submission baseCode) {
+        if (baseCode != null) {
+            submission.setBaseCodeComparison(matchingEngine.generateBaseCodeMarking(submission, baseCode));
+        }
+        matchingEngine.prepareSubmissions(List.of(submission));
+    }
+
+    /**
+     * Compares two submissions and optionally returns the results if similarity is high enough. Pairs whose upper bound of
+     * matched tokens cannot reach the similarity threshold are not compared, and comparisons stop as soon as the threshold
+     * becomes unreachable.
      */
     protected Optional<JPlagComparison> compareSubmissions(Submission first, Submission second) {
-        JPlagComparison comparison = greedyStringTiling.compare(first, second);
+        int minimumMatchedTokens = 0;
+        if (options.similarityThreshold() > 0) {
+            minimumMatchedTokens = minimumMatchedTokens(first, second);
+            if (minimumMatchedTokens > matchingEngine.maximumMatchedTokens(first, second)) {
+                logger.debug("Skipping {}-{}: similarity threshold is unreachable", first.getName(), second.getName());
+                return Optional.empty();
+            }
+        }
+        JPlagComparison comparison = matchingEngine.compare(first, second, minimumMatchedTokens);
         logger.info("Comparing {}-{}: {}", first.getName(), second.getName(), comparison.similarity());
 
         if (options.similarityMetric().isAboveThreshold(comparison, options.similarityThreshold())) {
@@ -56,15 +96,151 @@ public abstract class AbstractComparisonStrategy implements ComparisonStrategy {
     }
 
     /**
-     * @return a list of all submission tuples to be processed.
+     * Determines the minimum number of matched tokens for which two submissions reach the similarity threshold, by binary
+     * search over the similarity metric of comparisons with a single match of that length. All metrics grow with the
+     * number of matched tokens.
+     * @return the minimum number of matched tokens, or more than the tokens of the smaller submission if the threshold is
+     * unreachable.
      */
-    protected static List<SubmissionTuple> buildComparisonTuples(List<Submission> submissions) {
-        List<SubmissionTuple> tuples = new ArrayList<>();
+    private int minimumMatchedTokens(Submission first, Submission second) {
+        int lowerBound = 0;
+        int upperBound = Math.min(first.getNumberOfTokens(), second.getNumberOfTokens()) + 1;
+        while (lowerBound < upperBound) {
+            int matchedTokens = (lowerBound + upperBound) >>> 1;
+            List<Match> matches = matchedTokens == 0 ? List.of() : List.of(new Match(0, 0, matchedTokens));
+            if (options.similarityMetric().isAboveThreshold(new JPlagComparison(first, second, matches), options.similarityThreshold())) {
+                upperBound = matchedTokens;
+            } else {
+                lowerBound = matchedTokens + 1;
+            }
+        }
+        return lowerBound;
+    }
+
+    /**
+     * Builds the schedule of the pairs to be compared, restricted to the candidate pairs of the configured
+     * {@link CandidateFilter}. Must be called after the base code comparison.
+     * @return the schedule of all pairs to be compared.
+     */
+    PairSchedule buildPairSchedule(List<Submission> submissions) {
+        return buildPairSchedule(submissions, ReusedComparisons.none());
+    }
+
+    /**
+     * Builds the schedule of the pairs to be compared, restricted to the candidate pairs of the configured
+     * {@link CandidateFilter} and excluding the pairs reused from a previous run. Must be called after the base code
+     * comparison.
+     * @return the schedule of all pairs to be compared.
+     */
+    PairSchedule buildPairSchedule(List<Submission> submissions, ReusedComparisons reusedComparisons) {
+        CandidateFilter filter = options.performanceOptions().candidateFilter();
+        boolean incremental = !reusedComparisons.unchangedSubmissions().isEmpty();
+        if (filter == CandidateFilter.SHARED_SUBSEQUENCES && options.similarityThreshold() <= 0) {
+            logger.info("Candidate filter {} is not applied, as comparisons without matches exceed the similarity threshold", filter);
+            filter = CandidateFilter.NONE;
+        }
+        if (filter == CandidateFilter.NONE) {
+            return incremental ? PairSchedule.of(buildChangedTuples(submissions, reusedComparisons)) : buildAllPairsSchedule(submissions);
+        }
+
         List<Submission> validSubmissions = submissions.stream().filter(s -> s.getTokenList() != null).toList();
+        List<SubmissionTuple> tuples;
+        if (filter == CandidateFilter.SHARED_SUBSEQUENCES) {
+            tuples = buildSharedSubsequenceTuples(validSubmissions);
+        } else {
+            tuples = buildMinHashTuples(validSubmissions, filter);
+        }
+        long numberOfNewSubmissions = validSubmissions.stream().filter(Submission::isNew).count();
+        long numberOfPairs = numberOfNewSubmissions * (numberOfNewSubmissions - 1) / 2
+                + numberOfNewSubmissions * (validSubmissions.size() - numberOfNewSubmissions);
+        logger.info("Candidate filter {} selected {} of {} pairs for comparison", filter, tuples.size(), numberOfPairs);
+        if (incremental) {
+            tuples = tuples.stream().filter(tuple -> !reusedComparisons.isReused(tuple.left(), tuple.right())).toList();
+        }
+        return PairSchedule.of(tuples);
+    }
 
-        for (int i = 0; i < (validSubmissions.size() - 1); i++) {
+    /**
+     * Selects the pairs of valid submissions with at least one new and at least one changed submission, such that the
+     * effort scales with the number of changed submissions.
+     */
+    private List<SubmissionTuple> buildChangedTuples(List<Submission> submissions, ReusedComparisons reusedComparisons) {
+        List<Submission> validSubmissions = submissions.stream().filter(s -> s.getTokenList() != null).toList();
+        Set<Submission> unchangedSubmissions = reusedComparisons.unchangedSubmissions();
+        List<SubmissionTuple> tuples = new ArrayList<>();
+        for (int i = 0; i < validSubmissions.size(); i++) {
+            Submission changed = validSubmissions.get(i);
+            if (unchangedSubmissions.contains(changed)) {
+                continue;
+            }
+            for (int j = 0; j < validSubmissions.size(); j++) {
+                Submission other = validSubmissions.get(j);
+                boolean pairedBefore = j <= i && !unchangedSubmissions.contains(other); // pairs of two changed submissions are added once
+                if (!pairedBefore && (changed.isNew() || other.isNew())) {
+                    tuples.add(j < i ? new SubmissionTuple(other, changed) : new SubmissionTuple(changed, other));
+                }
+            }
+        }
+        logger.info("Comparing {} pairs with changed submissions, reusing {} comparisons of the previous run", tuples.size(),
+                reusedComparisons.comparisons().size());
+        return tuples;
+    }
+
+    private PairSchedule buildAllPairsSchedule(List<Submission> submissions) {
+        int blockTokens = options.performanceOptions().comparisonBlockTokens();
+        if (blockTokens == PerformanceOptions.NO_BLOCKS) {
+            return PairSchedule.allPairs(submissions);
+        }
+        return PairSchedule.blockedPairs(submissions, blockTokens);
+    }
+
+    /**
+     * Selects the pairs sharing a subsequence of minimum match length. The new submissions are indexed among each other,
+     * while the old submissions are looked up in an {@link ArchiveIndex}, such that the effort scales with the number of
+     * hits in the archive instead of its size.
+     */
+    private List<SubmissionTuple> buildSharedSubsequenceTuples(List<Submission> validSubmissions) {
+        int[] newPositions = IntStream.range(0, validSubmissions.size()).filter(index -> validSubmissions.get(index).isNew()).toArray();
+        int[] oldPositions = IntStream.range(0, validSubmissions.size()).filter(index -> !validSubmissions.get(index).isNew()).toArray();
+
+        List<int[]> subsequenceHashes = Arrays.stream(newPositions).parallel()
+                .mapToObj(position -> matchingEngine.matchableSubsequenceHashes(validSubmissions.get(position))).toList();
+        CandidatePairFilter newSubmissionFilter = new CandidatePairFilter(subsequenceHashes, CandidateFilter.SHARED_SUBSEQUENCES, 0);
+        ArchiveIndex archiveIndex = oldPositions.length == 0 ? null
+                : new ArchiveIndex(Arrays.stream(oldPositions).mapToObj(validSubmissions::get).toList(), options.minimumTokenMatch(),
+                        options.language().getIdentifier(), options.performanceOptions().archiveIndexFile());
+
+        ThreadLocal<int[]> visitedBuffers = ThreadLocal.withInitial(() -> new int[newPositions.length]);
+        long[] pairs = IntStream.range(0, newPositions.length).parallel().mapToObj(index -> {
+            int position = newPositions[index];
+            int[] newCandidates = newSubmissionFilter.candidatesOf(index, visitedBuffers.get());
+            int[] oldCandidates = archiveIndex == null ? new int[0] : archiveIndex.candidatesOf(validSubmissions.get(position));
+            return LongStream.concat(Arrays.stream(newCandidates).mapToLong(candidate -> packPair(position, newPositions[candidate])),
+                    Arrays.stream(oldCandidates).mapToLong(candidate -> packPair(position, oldPositions[candidate])));
+        }).flatMapToLong(Function.identity()).sorted().toArray();
+
+        List<SubmissionTuple> tuples = new ArrayList<>(pairs.length);
+        for (long pair : pairs) {
+            tuples.add(new SubmissionTuple(validSubmissions.get((int) (pair >>> 32)), validSubmissions.get((int) pair)));
+        }
+        return tuples;
+    }
+
+    /**
+     * Selects the pairs whose estimated Jaccard similarity reaches the configured bound.
+     */
+    private List<SubmissionTuple> buildMinHashTuples(List<Submission> validSubmissions, CandidateFilter filter) {
+        List<int[]> subsequenceHashes = validSubmissions.parallelStream().map(matchingEngine::matchableSubsequenceHashes).toList();
+        CandidatePairFilter candidatePairFilter = new CandidatePairFilter(subsequenceHashes, filter,
+                options.performanceOptions().minimumEstimatedJaccard());
+        ThreadLocal<int[]> visitedBuffers = ThreadLocal.withInitial(() -> new int[validSubmissions.size()]);
+        List<int[]> candidates = IntStream.range(0, validSubmissions.size()).parallel()
+                .mapToObj(index -> candidatePairFilter.candidatesOf(index, visitedBuffers.get())).toList();
+
+        List<SubmissionTuple> tuples = new ArrayList<>();
+        for (int i = 0; i < validSubmissions.size(); i++) {
             Submission first = validSubmissions.get(i);
-            for (int j = (i + 1); j < validSubmissions.size(); j++) {
+            for (int j : candidates.get(i)) {
                 Submission second = validSubmissions.get(j);
                 if (first.isNew() || second.isNew()) {
                     tuples.add(new SubmissionTuple(first, second));
@@ -73,4 +249,11 @@ public abstract class AbstractComparisonStrategy implements ComparisonStrategy {
         }
         return tuples;
     }
+
+    /**
+     * Packs the positions of two submissions into a single value that orders pairs row by row.
+     */
+    static long packPair(int firstPosition, int secondPosition) {
+        return ((long) Math.min(firstPosition, secondPosition) << 32) | Math.max(firstPosition, secondPosition);
+    }
 }
@@ -0,0 +1,202 @@
+package de.jplag.strategy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.jplag.Submission;
+import de.jplag.Token;
+import de.jplag.TokenType;
+
+/**
+ * Inverted index from the token windows of minimum match length to the old submissions (the archive) containing them.
+ * A new submission can only have a match with an old submission if both share such a window, so only these old
+ * submissions need to be compared. In contrast to the token values of the comparison, the window keys are derived from
+ * the token type descriptions and thus stable across runs. This allows to persist the keys of each old submission and to
+ * reuse them as long as the files of the submission are unchanged.
+ */
+class ArchiveIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveIndex.class);
+
+    private static final int FORMAT_VERSION = 1;
+    private static final long HASH_BASE = 0x100000001B3L;
+
+    private final int windowSize;
+    private final InvertedIndex invertedIndex;
+    private final Map<TokenType, Long> tokenTypeValues = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes the given old submissions.
+     * @param oldSubmissions are the old submissions to index.
+     * @param minimumTokenMatch is the minimum match length, which determines the window size.
+     * @param languageIdentifier identifies the language of the submissions, as the keys depend on the token types.
+     * @param indexFile is the file in which the keys are persisted, or null if they should not be persisted.
+     */
+    ArchiveIndex(List<Submission> oldSubmissions, int minimumTokenMatch, String languageIdentifier, File indexFile) {
+        this.windowSize = Math.max(1, minimumTokenMatch);
+        Map<String, PersistedKeys> persistedKeys = indexFile == null ? Map.of() : readKeys(indexFile, languageIdentifier);
+
+        PersistedKeys[] keys = oldSubmissions.parallelStream().map(submission -> {
+            long fingerprint = fingerprint(submission);
+            PersistedKeys persisted = persistedKeys.get(submission.getName());
+            if (persisted != null && persisted.fingerprint() == fingerprint) {
+                return persisted;
+            }
+            return new PersistedKeys(fingerprint, windowKeys(submission.getTokenList()));
+        }).toArray(PersistedKeys[]::new);
+        invertedIndex = new InvertedIndex(Arrays.stream(keys).map(PersistedKeys::keys).toArray(int[][]::new));
+
+        int reusedKeys = 0;
+        for (int i = 0; i < keys.length; i++) {
+            reusedKeys += keys[i] == persistedKeys.get(oldSubmissions.get(i).getName()) ? 1 : 0;
+        }
+        logger.info("Indexed {} old submissions, reused the index of {}", keys.length, reusedKeys);
+        if (indexFile != null && (reusedKeys != keys.length || persistedKeys.size() != keys.length)) {
+            writeKeys(indexFile, languageIdentifier, oldSubmissions, keys);
+        }
+    }
+
+    /**
+     * Determines the old submissions that share at least one window with the given submission.
+     * @param submission is the (new) submission.
+     * @return the sorted indexes of the candidate old submissions.
+     */
+    int[] candidatesOf(Submission submission) {
+        int[] candidates = new int[16];
+        int numberOfCandidates = 0;
+        for (int key : windowKeys(submission.getTokenList())) {
+            int keyIndex = invertedIndex.keyIndex(key);
+            if (keyIndex == InvertedIndex.NO_KEY) {
+                continue;
+            }
+            for (int position = invertedIndex.memberRangeStart(keyIndex); position < invertedIndex.memberRangeEnd(keyIndex); position++) {
+                if (numberOfCandidates == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, candidates.length * 2);
+                }
+                candidates[numberOfCandidates++] = invertedIndex.member(position);
+            }
+        }
+        return Arrays.stream(candidates, 0, numberOfCandidates).sorted().distinct().toArray();
+    }
+
+    /**
+     * Computes the distinct keys of all windows that contain no token excluded from matching, using a polynomial rolling
+     * hash over the stable token type values.
+     */
+    int[] windowKeys(List<Token> tokens) {
+        long highestPower = 1;
+        for (int i = 1; i < windowSize; i++) {
+            highestPower *= HASH_BASE;
+        }
+        int[] keys = new int[Math.max(0, tokens.size() - windowSize + 1)];
+        int numberOfKeys = 0;
+        long hash = 0;
+        int validLength = 0;
+        for (int index = 0; index < tokens.size(); index++) {
+            TokenType type = tokens.get(index).getType();
+            if (type.isExcludedFromMatching()) {
+                hash = 0;
+                validLength = 0;
+                continue;
+            }
+            if (validLength == windowSize) {
+                hash -= highestPower * tokenTypeValue(tokens.get(index - windowSize).getType());
+                validLength--;
+            }
+            hash = hash * HASH_BASE + tokenTypeValue(type);
+            validLength++;
+            if (validLength == windowSize) {
+                keys[numberOfKeys++] = (int) (hash ^ (hash >>> 32));
+            }
+        }
+        return Arrays.stream(keys, 0, numberOfKeys).distinct().toArray();
+    }
+
+    private long tokenTypeValue(TokenType type) {
+        return tokenTypeValues.computeIfAbsent(type, it -> (it.getClass().getName() + '.' + it.getDescription()).hashCode() | 1L);
+    }
+
+    /**
+     * Fingerprints the files of a submission by their paths, sizes, and modification times.
+     */
+    private static long fingerprint(Submission submission) {
+        long fingerprint = 0;
+        for (File file : submission.getFiles().stream().sorted(Comparator.comparing(File::getPath)).toList()) {
+            fingerprint = fingerprint * HASH_BASE + file.getAbsolutePath().hashCode();
+            fingerprint = fingerprint * HASH_BASE + file.length();
+            fingerprint = fingerprint * HASH_BASE + file.lastModified();
+        }
+        return fingerprint;
+    }
+
+    private Map<String, PersistedKeys> readKeys(File indexFile, String languageIdentifier) {
+        if (!indexFile.exists()) {
+            return Map.of();
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile.toPath())))) {
+            if (input.readInt() != FORMAT_VERSION || !input.readUTF().equals(languageIdentifier) || input.readInt() != windowSize) {
+                logger.info("Archive index {} was created with different settings and is rebuilt", indexFile);
+                return Map.of();
+            }
+            int numberOfSubmissions = input.readInt();
+            Map<String, PersistedKeys> persistedKeys = new HashMap<>(numberOfSubmissions);
+            for (int i = 0; i < numberOfSubmissions; i++) {
+                String name = input.readUTF();
+                long fingerprint = input.readLong();
+                int[] keys = new int[input.readInt()];
+                for (int j = 0; j < keys.length; j++) {
+                    keys[j] = input.readInt();
+                }
+                persistedKeys.put(name, new PersistedKeys(fingerprint, keys));
+            }
+            return persistedKeys;
+        } catch (IOException e) {
+            logger.warn("Could not read archive index {}, it is rebuilt: {}", indexFile, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private void writeKeys(File indexFile, String languageIdentifier, List<Submission> oldSubmissions, PersistedKeys[] keys) {
+        Path temporaryFile = indexFile.toPath().resolveSibling(indexFile.getName() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(languageIdentifier);
+                output.writeInt(windowSize);
+                output.writeInt(keys.length);
+                for (int i = 0; i < keys.length; i++) {
+                    output.writeUTF(oldSubmissions.get(i).getName());
+                    output.writeLong(keys[i].fingerprint());
+                    output.writeInt(keys[i].keys().length);
+                    for (int key : keys[i].keys()) {
+                        output.writeInt(key);
+                    }
+                }
+            }
+            Files.move(temporaryFile, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Could not write archive index {}: {}", indexFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Window keys of an old submission together with the fingerprint of its files.
+     */
+    private record PersistedKeys(long fingerprint, int[] keys) {
+    }
+}
@@ -0,0 +1,156 @@
+package de.jplag.strategy;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import de.jplag.options.CandidateFilter;
+
+/**
+ * Selects the pairs of submissions that are worth comparing, based on the hashes of their subsequences of minimum match
+ * length. Each submission is described by a set of integer keys, which are indexed in an {@link InvertedIndex}. Only pairs that
+ * share at least one key are candidates:
+ * <ul>
+ * <li>For {@link CandidateFilter#SHARED_SUBSEQUENCES}, the keys are the subsequence hashes themselves. This never drops a
+ * pair that has a match.</li>
+ * <li>For {@link CandidateFilter#MIN_HASH}, the keys are the bands of a MinHash signature over the subsequence hashes
+ * (locality-sensitive hashing). Candidates are additionally required to reach the minimum estimated Jaccard
+ * similarity.</li>
+ * </ul>
+ */
+class CandidatePairFilter {
+    static final int SIGNATURE_LENGTH = 128;
+    private static final double MINIMUM_BAND_RECALL = 0.99;
+    private static final long MIX_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final CandidateFilter filter;
+    private final double minimumEstimatedJaccard;
+    private final int[][] signatures; // only used for MinHash
+
+    private final int[][] keys; // distinct keys per submission
+    private final InvertedIndex invertedIndex;
+
+    /**
+     * Creates the filter and indexes the submissions.
+     * @param subsequenceHashes are the distinct matchable subsequence hashes of each submission.
+     * @param filter is the type of filter, must not be {@link CandidateFilter#NONE}.
+     * @param minimumEstimatedJaccard is the minimum estimated Jaccard similarity for the MinHash filter.
+     */
+    CandidatePairFilter(List<int[]> subsequenceHashes, CandidateFilter filter, double minimumEstimatedJaccard) {
+        if (filter == CandidateFilter.NONE) {
+            throw new IllegalArgumentException("No candidate filter specified");
+        }
+        this.filter = filter;
+        this.minimumEstimatedJaccard = minimumEstimatedJaccard;
+        if (filter == CandidateFilter.MIN_HASH) {
+            signatures = subsequenceHashes.parallelStream().map(CandidatePairFilter::minHashSignature).toArray(int[][]::new);
+            int rowsPerBand = rowsPerBand(minimumEstimatedJaccard);
+            keys = IntStream.range(0, signatures.length)
+                    .mapToObj(index -> bandKeys(signatures[index], subsequenceHashes.get(index), rowsPerBand)).toArray(int[][]::new);
+        } else {
+            signatures = null;
+            keys = subsequenceHashes.toArray(int[][]::new);
+        }
+
+        invertedIndex = new InvertedIndex(keys);
+    }
+
+    /**
+     * Determines the candidates for a submission. Uses the given buffer to avoid duplicates.
+     * @param index is the index of the submission.
+     * @param visited is a buffer with one entry per submission, initially zero. Visited submissions are stamped with index +
+     * 1, so the buffer can be reused for other submissions without resetting it.
+     * @return the sorted indexes of all candidates that are greater than the given index.
+     */
+    int[] candidatesOf(int index, int[] visited) {
+        int[] candidates = new int[16];
+        int numberOfCandidates = 0;
+        for (int key : keys[index]) {
+            int keyIndex = invertedIndex.keyIndex(key);
+            for (int position = invertedIndex.memberRangeStart(keyIndex); position < invertedIndex.memberRangeEnd(keyIndex); position++) {
+                int member = invertedIndex.member(position);
+                if (member > index && visited[member] != index + 1) {
+                    visited[member] = index + 1;
+                    if (isCandidate(index, member)) {
+                        if (numberOfCandidates == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, candidates.length * 2);
+                        }
+                        candidates[numberOfCandidates++] = member;
+                    }
+                }
+            }
+        }
+        int[] result = Arrays.copyOf(candidates, numberOfCandidates);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private boolean isCandidate(int first, int second) {
+        return filter != CandidateFilter.MIN_HASH || estimatedJaccard(signatures[first], signatures[second]) >= minimumEstimatedJaccard;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of two sets as the fraction of equal MinHash values.
+     */
+    static double estimatedJaccard(int[] firstSignature, int[] secondSignature) {
+        int equalValues = 0;
+        for (int index = 0; index < SIGNATURE_LENGTH; index++) {
+            if (firstSignature[index] == secondSignature[index]) {
+                equalValues++;
+            }
+        }
+        return equalValues / (double) SIGNATURE_LENGTH;
+    }
+
+    /**
+     * Computes the MinHash signature of a set of hashes, using one hash function per signature entry.
+     */
+    static int[] minHashSignature(int[] hashes) {
+        int[] signature = new int[SIGNATURE_LENGTH];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int hash : hashes) {
+            for (int index = 0; index < SIGNATURE_LENGTH; index++) {
+                signature[index] = Math.min(signature[index], mix(hash, index));
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Chooses the largest number of rows per band (i.e. the fewest spurious candidates) for which a pair with exactly the
+     * minimum Jaccard similarity still shares at least one band with high probability.
+     */
+    private static int rowsPerBand(double minimumJaccard) {
+        int rowsPerBand = 1;
+        for (int rows = 2; rows <= SIGNATURE_LENGTH; rows *= 2) {
+            int bands = SIGNATURE_LENGTH / rows;
+            double recall = 1 - Math.pow(1 - Math.pow(minimumJaccard, rows), bands);
+            if (recall >= MINIMUM_BAND_RECALL) {
+                rowsPerBand = rows;
+            }
+        }
+        return rowsPerBand;
+    }
+
+    private static int[] bandKeys(int[] signature, int[] hashes, int rowsPerBand) {
+        if (hashes.length == 0) {
+            return new int[0]; // nothing to match, would otherwise collide with all other empty submissions
+        }
+        int[] bandKeys = new int[SIGNATURE_LENGTH / rowsPerBand];
+        for (int band = 0; band < bandKeys.length; band++) {
+            int bandKey = band;
+            for (int row = band * rowsPerBand; row < (band + 1) * rowsPerBand; row++) {
+                bandKey = mix(bandKey, signature[row]);
+            }
+            bandKeys[band] = bandKey;
+        }
+        return Arrays.stream(bandKeys).distinct().toArray();
+    }
+
+    private static int mix(int value, int seed) {
+        long mixed = (value ^ ((long) seed << 32)) * MIX_MULTIPLIER;
+        mixed ^= mixed >>> 29;
+        mixed *= MIX_MULTIPLIER;
+        return (int) (mixed >>> 32);
+    }
+}
@@ -0,0 +1,109 @@
+package de.jplag.strategy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.jplag.JPlagComparison;
+import de.jplag.ParsingListener;
+import de.jplag.Submission;
+
+/**
+ * Compares the pairs of submissions while the submissions are still parsed. Each parsed submission is compared against
+ * all submissions parsed before it, such that each pair is compared as soon as both of its submissions are parsed.
+ */
+class ComparisonPipeline implements ParsingListener, AutoCloseable {
+    private static final int PAIRS_PER_TASK = 64;
+    private static final Comparator<Submission> PAIR_ORDER = Comparator.comparing(Submission::isNew).reversed()
+            .thenComparing(Comparator.comparingInt(Submission::getNumberOfTokens).reversed()).thenComparing(Submission::getName);
+
+    private final AbstractComparisonStrategy strategy;
+    private final ExecutorService executor;
+    private final List<Submission> parsedSubmissions = new ArrayList<>(); // guarded by this
+    private final Queue<Future<?>> tasks = new ConcurrentLinkedQueue<>();
+    private final Queue<JPlagComparison> comparisons = new ConcurrentLinkedQueue<>();
+    private volatile Submission baseCode;
+
+    /**
+     * @param strategy compares the pairs of submissions.
+     * @param threads is the number of threads that compare pairs of submissions.
+     */
+    ComparisonPipeline(AbstractComparisonStrategy strategy, int threads) {
+        this.strategy = strategy;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @Override
+    public void baseCodeParsed(Submission baseCode) {
+        this.baseCode = baseCode;
+    }
+
+    @Override
+    public void submissionParsed(Submission submission) {
+        strategy.prepareSubmission(submission, baseCode);
+        int numberOfPartners;
+        synchronized (this) {
+            numberOfPartners = parsedSubmissions.size();
+            parsedSubmissions.add(submission);
+        }
+        for (int start = 0; start < numberOfPartners; start += PAIRS_PER_TASK) {
+            int from = start;
+            int to = Math.min(numberOfPartners, start + PAIRS_PER_TASK);
+            tasks.add(executor.submit(() -> compare(submission, from, to)));
+        }
+    }
+
+    /**
+     * Waits until all pairs of the parsed submissions are compared.
+     * @return the comparisons that exceed the similarity threshold, in no particular order.
+     */
+    Queue<JPlagComparison> awaitComparisons() {
+        try {
+            for (Future<?> task = tasks.poll(); task != null; task = tasks.poll()) {
+                task.get();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while comparing submissions", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (exception.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Could not compare submissions", exception.getCause());
+        }
+        return comparisons;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Compares a submission against the parsed submissions in a range of positions, skipping pairs of two old submissions.
+     * The pairs are oriented like those of {@link PairSchedule#allPairs(List)}, with ties broken by name instead of position.
+     */
+    private void compare(Submission submission, int from, int to) {
+        for (int position = from; position < to; position++) {
+            Submission partner = parsedSubmission(position);
+            if (submission.isNew() || partner.isNew()) {
+                boolean submissionFirst = PAIR_ORDER.compare(submission, partner) <= 0;
+                Submission first = submissionFirst ? submission : partner;
+                Submission second = submissionFirst ? partner : submission;
+                strategy.compareSubmissions(first, second).ifPresent(comparisons::add);
+            }
+        }
+    }
+
+    private synchronized Submission parsedSubmission(int position) {
+        return parsedSubmissions.get(position);
+    }
+}
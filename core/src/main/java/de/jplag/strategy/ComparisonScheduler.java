@@ -0,0 +1,81 @@
+package de.jplag.strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs the comparisons of a {@link PairSchedule} on a dedicated thread pool instead of the common fork-join pool. The
+ * threads claim chunks of consecutive pairs, which shrink towards the end of the schedule, such that idle threads take
+ * over the remaining work. As the schedule starts with the most expensive pairs, a run does not end with a few large
+ * pairs on a single thread.
+ */
+class ComparisonScheduler {
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MAXIMUM_CHUNK_SIZE = 256;
+
+    private final int threads;
+
+    /**
+     * @param threads is the number of threads that compare pairs concurrently.
+     */
+    ComparisonScheduler(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Runs the given comparison for all pairs of the schedule and waits until all are done.
+     * @param schedule contains the pairs.
+     * @param comparison is run for each pair, concurrently on multiple threads.
+     */
+    void run(PairSchedule schedule, Consumer<SubmissionTuple> comparison) {
+        long size = schedule.size();
+        AtomicLong nextIndex = new AtomicLong();
+        Runnable worker = () -> {
+            while (true) {
+                long remaining = size - nextIndex.get();
+                long chunkSize = Math.max(1, Math.min(MAXIMUM_CHUNK_SIZE, remaining / ((long) threads * CHUNKS_PER_THREAD)));
+                long start = nextIndex.getAndAdd(chunkSize);
+                if (start >= size) {
+                    return;
+                }
+                for (long index = start; index < Math.min(size, start + chunkSize); index++) {
+                    comparison.accept(schedule.get(index));
+                }
+            }
+        };
+
+        int numberOfWorkers = (int) Math.min(threads, size);
+        if (numberOfWorkers <= 1) {
+            worker.run();
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfWorkers);
+        try {
+            List<Future<?>> results = new ArrayList<>(numberOfWorkers);
+            for (int i = 0; i < numberOfWorkers; i++) {
+                results.add(executor.submit(worker));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while comparing submissions", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (exception.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Could not compare submissions", exception.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package de.jplag.strategy;
 
 import de.jplag.JPlagResult;
 import de.jplag.SubmissionSet;
+import de.jplag.SubmissionSetBuilder;
+import de.jplag.exceptions.ExitException;
 
 /**
  * Strategy for comparing a set of submissions.
@@ -12,6 +14,28 @@ public interface ComparisonStrategy {
      * Compares submissions from a set of submissions while considering a given base code.
      * @param submissionSet Collection of submissions with optional basecode to compare.
      * @return the comparison results.
+     * @throws ExitException if the comparison exits preemptively.
      */
-    JPlagResult compareSubmissions(SubmissionSet submissionSet);
+    default JPlagResult compareSubmissions(SubmissionSet submissionSet) throws ExitException {
+        return compareSubmissions(submissionSet, ReusedComparisons.none());
+    }
+
+    /**
+     * Compares submissions from a set of submissions while considering a given base code, but only the pairs that are not
+     * reused from a previous run.
+     * @param submissionSet Collection of submissions with optional basecode to compare.
+     * @param reusedComparisons are the comparisons reused from a previous run.
+     * @return the comparison results, including the reused comparisons.
+     * @throws ExitException if the comparison exits preemptively.
+     */
+    JPlagResult compareSubmissions(SubmissionSet submissionSet, ReusedComparisons reusedComparisons) throws ExitException;
+
+    /**
+     * Parses the submissions and compares each pair as soon as both of its submissions are parsed, such that parsing and
+     * comparing overlap.
+     * @param builder builds the set of submissions to parse and compare.
+     * @return the comparison results.
+     * @throws ExitException if the parsing or the comparison exits preemptively.
+     */
+    JPlagResult parseAndCompareSubmissions(SubmissionSetBuilder builder) throws ExitException;
 }
@@ -0,0 +1,99 @@
+package de.jplag.strategy;
+
+import java.util.Arrays;
+
+/**
+ * Compact inverted index from integer keys to the indexes of the entries containing them. The members of all keys are
+ * stored consecutively (and in ascending order) in a single array, so the index consists only of three flat arrays.
+ */
+class InvertedIndex {
+    /** Indicator that no entry contains the requested key */
+    static final int NO_KEY = -1;
+
+    private final int[] distinctKeys; // sorted
+    private final int[] offsets; // members of distinctKeys[i] are at the positions [offsets[i], offsets[i + 1])
+    private final int[] members;
+
+    /**
+     * Creates the index.
+     * @param keys are the distinct keys of each entry.
+     */
+    InvertedIndex(int[][] keys) {
+        long[] postings = sortedPostings(keys);
+        int numberOfDistinctKeys = 0;
+        for (int position = 0; position < postings.length; position++) {
+            if (position == 0 || key(postings[position]) != key(postings[position - 1])) {
+                numberOfDistinctKeys++;
+            }
+        }
+        distinctKeys = new int[numberOfDistinctKeys];
+        offsets = new int[numberOfDistinctKeys + 1];
+        members = new int[postings.length];
+        int keyIndex = -1;
+        for (int position = 0; position < postings.length; position++) {
+            if (position == 0 || key(postings[position]) != key(postings[position - 1])) {
+                distinctKeys[++keyIndex] = key(postings[position]);
+                offsets[keyIndex] = position;
+            }
+            members[position] = member(postings[position]);
+        }
+        offsets[numberOfDistinctKeys] = postings.length;
+    }
+
+    /**
+     * @param key is the key to look up.
+     * @return the index of the key, or {@link #NO_KEY} if no entry contains it.
+     */
+    int keyIndex(int key) {
+        int keyIndex = Arrays.binarySearch(distinctKeys, key);
+        return keyIndex < 0 ? NO_KEY : keyIndex;
+    }
+
+    /**
+     * @param keyIndex is an index obtained via {@link #keyIndex(int)}.
+     * @return the first member position of the key (inclusive).
+     */
+    int memberRangeStart(int keyIndex) {
+        return offsets[keyIndex];
+    }
+
+    /**
+     * @param keyIndex is an index obtained via {@link #keyIndex(int)}.
+     * @return the last member position of the key (exclusive).
+     */
+    int memberRangeEnd(int keyIndex) {
+        return offsets[keyIndex + 1];
+    }
+
+    /**
+     * @param position is a member position within the range of a key.
+     * @return the index of the entry at that position.
+     */
+    int member(int position) {
+        return members[position];
+    }
+
+    /**
+     * Packs each key with the index of its entry (key in the upper half, index in the lower half) and sorts them, so that
+     * the postings of each key are consecutive and ordered by entry.
+     */
+    private static long[] sortedPostings(int[][] keys) {
+        long[] postings = new long[Arrays.stream(keys).mapToInt(entryKeys -> entryKeys.length).sum()];
+        int position = 0;
+        for (int index = 0; index < keys.length; index++) {
+            for (int key : keys[index]) {
+                postings[position++] = ((long) key << 32) | index;
+            }
+        }
+        Arrays.parallelSort(postings);
+        return postings;
+    }
+
+    private static int key(long posting) {
+        return (int) (posting >> 32);
+    }
+
+    private static int member(long posting) {
+        return (int) posting;
+    }
+}
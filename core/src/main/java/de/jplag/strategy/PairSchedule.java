@@ -0,0 +1,301 @@
+package de.jplag.strategy;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import de.jplag.Submission;
+
+/**
+ * Indexed sequence of the submission pairs to compare, ordered roughly from the most to the least expensive pair. The
+ * cost of a pair is estimated by the product of the numbers of tokens of its submissions.
+ */
+abstract class PairSchedule {
+    private static final long PAIRS_PER_SHARD_UNIT = 4096;
+
+    /**
+     * @return the number of pairs.
+     */
+    abstract long size();
+
+    /**
+     * @param index is the index of the pair, between zero and {@link #size()} (exclusive).
+     * @return the pair.
+     */
+    abstract SubmissionTuple get(long index);
+
+    /**
+     * Splits the schedule into units of consecutive pairs that are assigned to the shards as a whole. By default, a unit
+     * consists of a fixed number of pairs.
+     * @return the index of the first pair of each unit, followed by the size.
+     */
+    long[] shardUnitOffsets() {
+        long size = size();
+        int numberOfUnits = (int) ((size + PAIRS_PER_SHARD_UNIT - 1) / PAIRS_PER_SHARD_UNIT);
+        long[] offsets = new long[numberOfUnits + 1];
+        for (int unit = 0; unit < numberOfUnits; unit++) {
+            offsets[unit] = unit * PAIRS_PER_SHARD_UNIT;
+        }
+        offsets[numberOfUnits] = size;
+        return offsets;
+    }
+
+    /**
+     * Restricts the schedule to the pairs of one shard. The units of {@link #shardUnitOffsets()} are assigned to the shards
+     * round-robin, so the expensive pairs at the beginning of the schedule are spread across all shards.
+     * @param shardIndex is the index of the shard, between zero and the number of shards (exclusive).
+     * @param numberOfShards is the number of shards.
+     * @return the schedule of the pairs of the shard.
+     */
+    PairSchedule shard(int shardIndex, int numberOfShards) {
+        return new ShardedPairs(this, shardIndex, numberOfShards);
+    }
+
+    /**
+     * Creates a schedule of all pairs of valid submissions with at least one new submission. The pairs are generated on
+     * access instead of being materialized.
+     * @param submissions are the submissions to compare, invalid ones are skipped.
+     * @return the schedule.
+     */
+    static PairSchedule allPairs(List<Submission> submissions) {
+        List<Submission> newSubmissions = sortedByCost(submissions, true);
+        Submission[] orderedSubmissions = Stream.concat(newSubmissions.stream(), sortedByCost(submissions, false).stream())
+                .toArray(Submission[]::new);
+        return new AllPairs(orderedSubmissions, newSubmissions.size());
+    }
+
+    /**
+     * Creates a schedule of all pairs of valid submissions with at least one new submission that traverses the matrix of
+     * pairs in blocks. The submissions are split into blocks of at most the given number of tokens, and all pairs between
+     * two blocks are scheduled consecutively. Thus, the comparison data of the two blocks can stay in the processor caches
+     * while their pairs are compared. The pairs are generated on access instead of being materialized.
+     * @param submissions are the submissions to compare, invalid ones are skipped.
+     * @param tokensPerBlock is the maximum number of tokens per block, unless a single submission exceeds it.
+     * @return the schedule.
+     */
+    static PairSchedule blockedPairs(List<Submission> submissions, long tokensPerBlock) {
+        List<Submission> newSubmissions = sortedByCost(submissions, true);
+        List<Submission> oldSubmissions = sortedByCost(submissions, false);
+        return new BlockedPairs(newSubmissions, oldSubmissions, tokensPerBlock);
+    }
+
+    private static List<Submission> sortedByCost(List<Submission> submissions, boolean isNew) {
+        return submissions.stream().filter(submission -> submission.getTokenList() != null && submission.isNew() == isNew)
+                .sorted(Comparator.comparingInt(Submission::getNumberOfTokens).reversed()).toList();
+    }
+
+    /**
+     * Creates a schedule of the given pairs.
+     * @param tuples are the pairs to compare.
+     * @return the schedule.
+     */
+    static PairSchedule of(List<SubmissionTuple> tuples) {
+        Comparator<SubmissionTuple> byCost = Comparator.comparingLong(PairSchedule::cost);
+        return new SelectedPairs(tuples.stream().sorted(byCost.reversed()).toArray(SubmissionTuple[]::new));
+    }
+
+    private static long cost(SubmissionTuple tuple) {
+        return (long) tuple.left().getNumberOfTokens() * tuple.right().getNumberOfTokens();
+    }
+
+    /**
+     * All pairs (i, j) with i &lt; j of submissions ordered by descending cost, where i is a new submission. As the new
+     * submissions precede the old ones, pairs of two old submissions are excluded. The pairs are enumerated row by row.
+     */
+    private static final class AllPairs extends PairSchedule {
+        private final Submission[] submissions;
+        private final int numberOfRows;
+
+        AllPairs(Submission[] submissions, int numberOfNewSubmissions) {
+            this.submissions = submissions;
+            this.numberOfRows = Math.min(numberOfNewSubmissions, Math.max(0, submissions.length - 1));
+        }
+
+        @Override
+        long size() {
+            return triangleRowOffset(numberOfRows, submissions.length);
+        }
+
+        @Override
+        SubmissionTuple get(long index) {
+            int row = triangleRow(index, submissions.length, numberOfRows);
+            int column = (int) (row + 1 + index - triangleRowOffset(row, submissions.length));
+            return new SubmissionTuple(submissions[row], submissions[column]);
+        }
+    }
+
+    /**
+     * Pairs of blocks of submissions (a, b) with a &lt;= b, where a is a block of new submissions. Within a pair of blocks,
+     * the pairs of submissions are enumerated row by row like {@link AllPairs}.
+     */
+    private static final class BlockedPairs extends PairSchedule {
+        private final Submission[] submissions;
+        private final int[] blockStarts; // block i spans [blockStarts[i], blockStarts[i + 1])
+        private final int[] firstBlocks;
+        private final int[] secondBlocks;
+        private final long[] blockPairOffsets; // index of the first pair of each pair of blocks, followed by the size
+
+        BlockedPairs(List<Submission> newSubmissions, List<Submission> oldSubmissions, long tokensPerBlock) {
+            submissions = Stream.concat(newSubmissions.stream(), oldSubmissions.stream()).toArray(Submission[]::new);
+            int[] starts = new int[submissions.length + 1];
+            int numberOfBlocks = 0;
+            long blockTokens = 0;
+            for (int position = 0; position < submissions.length; position++) {
+                long tokens = submissions[position].getNumberOfTokens();
+                boolean startsOldSubmissions = position == newSubmissions.size();
+                if (position == 0 || startsOldSubmissions || blockTokens + tokens > tokensPerBlock) {
+                    starts[numberOfBlocks++] = position;
+                    blockTokens = 0;
+                }
+                blockTokens += tokens;
+            }
+            starts[numberOfBlocks] = submissions.length;
+            blockStarts = Arrays.copyOf(starts, numberOfBlocks + 1);
+
+            int numberOfNewBlocks = 0;
+            while (numberOfNewBlocks < numberOfBlocks && blockStarts[numberOfNewBlocks] < newSubmissions.size()) {
+                numberOfNewBlocks++;
+            }
+            int numberOfBlockPairs = numberOfNewBlocks * numberOfBlocks - numberOfNewBlocks * (numberOfNewBlocks - 1) / 2;
+            firstBlocks = new int[numberOfBlockPairs];
+            secondBlocks = new int[numberOfBlockPairs];
+            blockPairOffsets = new long[numberOfBlockPairs + 1];
+            int blockPair = 0;
+            for (int first = 0; first < numberOfNewBlocks; first++) {
+                for (int second = first; second < numberOfBlocks; second++) {
+                    firstBlocks[blockPair] = first;
+                    secondBlocks[blockPair] = second;
+                    long firstSize = blockSize(first);
+                    long pairs = first == second ? firstSize * (firstSize - 1) / 2 : firstSize * blockSize(second);
+                    blockPairOffsets[blockPair + 1] = blockPairOffsets[blockPair] + pairs;
+                    blockPair++;
+                }
+            }
+        }
+
+        @Override
+        long size() {
+            return blockPairOffsets[blockPairOffsets.length - 1];
+        }
+
+        @Override
+        long[] shardUnitOffsets() {
+            return blockPairOffsets;
+        }
+
+        @Override
+        SubmissionTuple get(long index) {
+            int blockPair = Arrays.binarySearch(blockPairOffsets, index);
+            if (blockPair < 0) {
+                blockPair = -blockPair - 2;
+            }
+            while (blockPairOffsets[blockPair + 1] == index) { // skips pairs of blocks without pairs of submissions
+                blockPair++;
+            }
+            long localIndex = index - blockPairOffsets[blockPair];
+            int first = firstBlocks[blockPair];
+            int second = secondBlocks[blockPair];
+            int row;
+            int column;
+            if (first == second) {
+                int size = blockSize(first);
+                row = triangleRow(localIndex, size, size - 1);
+                column = (int) (row + 1 + localIndex - triangleRowOffset(row, size));
+            } else {
+                row = (int) (localIndex / blockSize(second));
+                column = (int) (localIndex % blockSize(second));
+            }
+            return new SubmissionTuple(submissions[blockStarts[first] + row], submissions[blockStarts[second] + column]);
+        }
+
+        private int blockSize(int block) {
+            return blockStarts[block + 1] - blockStarts[block];
+        }
+    }
+
+    /**
+     * @return the index of the first pair of the given row in the row by row enumeration of all pairs (i, j) with i &lt; j
+     * of a sequence of the given length.
+     */
+    private static long triangleRowOffset(long row, long length) {
+        return row * (length - 1) - row * (row - 1) / 2;
+    }
+
+    /**
+     * @return the row of the pair with the given index in the row by row enumeration of all pairs (i, j) with i &lt; j of a
+     * sequence of the given length, limited to the given number of rows.
+     */
+    private static int triangleRow(long index, long length, int numberOfRows) {
+        double discriminant = Math.pow(2 * length - 1, 2) - 8.0 * index;
+        int row = (int) Math.max(0, Math.floor((2 * length - 1 - Math.sqrt(Math.max(0, discriminant))) / 2));
+        while (row > 0 && triangleRowOffset(row, length) > index) { // corrects floating point errors
+            row--;
+        }
+        while (row + 1 < numberOfRows && triangleRowOffset(row + 1, length) <= index) {
+            row++;
+        }
+        return row;
+    }
+
+    /**
+     * Explicitly given pairs.
+     */
+    private static final class SelectedPairs extends PairSchedule {
+        private final SubmissionTuple[] tuples;
+
+        SelectedPairs(SubmissionTuple[] tuples) {
+            this.tuples = tuples;
+        }
+
+        @Override
+        long size() {
+            return tuples.length;
+        }
+
+        @Override
+        SubmissionTuple get(long index) {
+            return tuples[(int) index];
+        }
+    }
+
+    /**
+     * The units of another schedule that are assigned to one shard.
+     */
+    private static final class ShardedPairs extends PairSchedule {
+        private final PairSchedule schedule;
+        private final long[] unitStarts; // index of the first pair of each unit of the shard in the other schedule
+        private final long[] localOffsets; // index of the first pair of each unit of the shard in this schedule, followed by the size
+
+        ShardedPairs(PairSchedule schedule, int shardIndex, int numberOfShards) {
+            this.schedule = schedule;
+            long[] unitOffsets = schedule.shardUnitOffsets();
+            int numberOfUnits = unitOffsets.length - 1;
+            int numberOfShardUnits = Math.max(0, (numberOfUnits - shardIndex + numberOfShards - 1) / numberOfShards);
+            unitStarts = new long[numberOfShardUnits];
+            localOffsets = new long[numberOfShardUnits + 1];
+            for (int shardUnit = 0; shardUnit < numberOfShardUnits; shardUnit++) {
+                int unit = shardIndex + shardUnit * numberOfShards;
+                unitStarts[shardUnit] = unitOffsets[unit];
+                localOffsets[shardUnit + 1] = localOffsets[shardUnit] + unitOffsets[unit + 1] - unitOffsets[unit];
+            }
+        }
+
+        @Override
+        long size() {
+            return localOffsets[localOffsets.length - 1];
+        }
+
+        @Override
+        SubmissionTuple get(long index) {
+            int shardUnit = Arrays.binarySearch(localOffsets, index);
+            if (shardUnit < 0) {
+                shardUnit = -shardUnit - 2;
+            }
+            while (localOffsets[shardUnit + 1] == index) { // skips empty units
+                shardUnit++;
+            }
+            return schedule.get(unitStarts[shardUnit] + index - localOffsets[shardUnit]);
+        }
+    }
+}
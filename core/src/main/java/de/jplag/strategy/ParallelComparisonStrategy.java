@@ -1,25 +1,48 @@
 package de.jplag.strategy;
 
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import de.jplag.GreedyStringTiling;
 import de.jplag.JPlagComparison;
 import de.jplag.JPlagResult;
+import de.jplag.MatchingEngine;
+import de.jplag.ResultSnapshot;
+import de.jplag.Submission;
 import de.jplag.SubmissionSet;
+import de.jplag.SubmissionSetBuilder;
+import de.jplag.exceptions.ExitException;
+import de.jplag.exceptions.ShardException;
 import de.jplag.options.JPlagOptions;
+import de.jplag.options.ShardingOptions;
 
 /**
- * Strategy for the parallel comparison of submissions. Uses all available cores.
+ * Strategy for the parallel comparison of submissions. Uses a dedicated thread pool, by default with one thread per
+ * available core. If sharding is enabled, only the pairs of one shard are compared and written to its shard file, or the
+ * shard files of all shards are merged instead of comparing. In an incremental run, the comparisons of unchanged pairs
+ * are taken from the previous run. If pipelined, the pairs are compared while the submissions are still parsed.
  * @author Timur Saglam
  */
 public class ParallelComparisonStrategy extends AbstractComparisonStrategy {
-    public ParallelComparisonStrategy(JPlagOptions options, GreedyStringTiling greedyStringTiling) {
-        super(options, greedyStringTiling);
+    private static final Logger logger = LoggerFactory.getLogger(ParallelComparisonStrategy.class);
+
+    public ParallelComparisonStrategy(JPlagOptions options, MatchingEngine matchingEngine) {
+        super(options, matchingEngine);
     }
 
     @Override
-    public JPlagResult compareSubmissions(SubmissionSet submissionSet) {
+    public JPlagResult compareSubmissions(SubmissionSet submissionSet, ReusedComparisons reusedComparisons) throws ExitException {
         // Initialize:
         long timeBeforeStartInMillis = System.currentTimeMillis();
         boolean withBaseCode = submissionSet.hasBaseCode();
@@ -27,11 +50,103 @@ public class ParallelComparisonStrategy extends AbstractComparisonStrategy {
             compareSubmissionsToBaseCode(submissionSet);
         }
 
-        List<SubmissionTuple> tuples = buildComparisonTuples(submissionSet.getSubmissions());
-        List<JPlagComparison> comparisons = tuples.stream().parallel().map(tuple -> compareSubmissions(tuple.left(), tuple.right()))
-                .flatMap(Optional::stream).toList();
+        List<Submission> submissions = submissionSet.getSubmissions();
+        ShardingOptions sharding = options.performanceOptions().sharding();
+        TopComparisonCollector collector = null;
+        Collection<JPlagComparison> comparisons;
+        Consumer<JPlagComparison> sink;
+        if (options.performanceOptions().streamComparisons()) {
+            collector = new TopComparisonCollector(submissions, options);
+            comparisons = null;
+            sink = collector::add;
+        } else {
+            comparisons = sharding.isMerge() ? new ArrayList<>() : new ConcurrentLinkedQueue<>();
+            sink = comparisons::add;
+        }
+
+        if (sharding.isMerge()) {
+            mergeShards(submissionSet, sharding, sink);
+        } else {
+            prepareSubmissions(submissionSet);
+            PairSchedule schedule = buildPairSchedule(submissions, reusedComparisons);
+            if (sharding.enabled()) {
+                compareShard(schedule.shard(sharding.shardIndex(), sharding.numberOfShards()), submissionSet, sharding, sink);
+            } else {
+                compare(schedule, sink);
+            }
+        }
+        if (!sharding.enabled() || sharding.isMerge()) { // the shard files only contain compared pairs
+            reusedComparisons.comparisons().forEach(sink);
+        }
 
         long durationInMillis = System.currentTimeMillis() - timeBeforeStartInMillis;
-        return new JPlagResult(comparisons, submissionSet, durationInMillis, options);
+        if (collector != null) {
+            return new JPlagResult(collector, submissionSet, durationInMillis, options);
+        }
+        return new JPlagResult(inSubmissionOrder(comparisons, submissions), submissionSet, durationInMillis, options);
+    }
+
+    @Override
+    public JPlagResult parseAndCompareSubmissions(SubmissionSetBuilder builder) throws ExitException {
+        long timeBeforeStartInMillis = System.currentTimeMillis();
+        try (ComparisonPipeline pipeline = new ComparisonPipeline(this, options.performanceOptions().effectiveComparisonThreads())) {
+            SubmissionSet submissionSet = builder.buildSubmissionSet(pipeline);
+            Collection<JPlagComparison> comparisons = pipeline.awaitComparisons();
+            long durationInMillis = System.currentTimeMillis() - timeBeforeStartInMillis;
+            return new JPlagResult(inSubmissionOrder(comparisons, submissionSet.getSubmissions()), submissionSet, durationInMillis,
+                    options);
+        }
+    }
+
+    private void compare(PairSchedule schedule, Consumer<JPlagComparison> sink) {
+        ComparisonScheduler scheduler = new ComparisonScheduler(options.performanceOptions().effectiveComparisonThreads());
+        scheduler.run(schedule, tuple -> compareSubmissions(tuple.left(), tuple.right()).ifPresent(sink));
+    }
+
+    private void compareShard(PairSchedule schedule, SubmissionSet submissionSet, ShardingOptions sharding, Consumer<JPlagComparison> sink)
+            throws ShardException {
+        ShardFile.Header header = shardHeader(submissionSet, sharding.shardIndex());
+        ShardFile shardFile = new ShardFile(sharding.shardFile(sharding.shardIndex()), header, submissionSet.getSubmissions());
+        try {
+            compare(schedule, sink.andThen(shardFile::add));
+            shardFile.complete();
+        } catch (UncheckedIOException e) {
+            throw new ShardException("Could not write shard file " + sharding.shardFile(sharding.shardIndex()), e.getCause());
+        } finally {
+            shardFile.discard();
+        }
+        logger.info("Compared {} pairs of shard {} of {}", schedule.size(), sharding.shardIndex(), sharding.numberOfShards());
+    }
+
+    private void mergeShards(SubmissionSet submissionSet, ShardingOptions sharding, Consumer<JPlagComparison> sink) throws ShardException {
+        for (int shard = 0; shard < sharding.numberOfShards(); shard++) {
+            ShardFile.read(sharding.shardFile(shard), shardHeader(submissionSet, shard), submissionSet.getSubmissions(), sink);
+        }
+        logger.info("Merged the comparisons of {} shards", sharding.numberOfShards());
+    }
+
+    private ShardFile.Header shardHeader(SubmissionSet submissionSet, int shardIndex) throws ShardException {
+        String baseCodeHash = "";
+        if (submissionSet.hasBaseCode()) {
+            Submission baseCode = submissionSet.getBaseCode();
+            baseCodeHash = ResultSnapshot.contentHash(baseCode)
+                    .orElseThrow(() -> new ShardException("Could not hash the files of the base code " + baseCode.getName()));
+        }
+        return new ShardFile.Header(options.language().getIdentifier(), options.minimumTokenMatch(),
+                options.performanceOptions().matchingAlgorithm().name(), options.similarityMetric().name(), options.similarityThreshold(),
+                baseCodeHash, options.performanceOptions().sharding().numberOfShards(), shardIndex);
+    }
+
+    /**
+     * Orders the comparisons by the positions of their submissions, such that the result does not depend on the schedule.
+     */
+    private static List<JPlagComparison> inSubmissionOrder(Collection<JPlagComparison> comparisons, List<Submission> submissions) {
+        Map<Submission, Integer> positions = new IdentityHashMap<>(submissions.size());
+        for (int position = 0; position < submissions.size(); position++) {
+            positions.put(submissions.get(position), position);
+        }
+        ToLongFunction<JPlagComparison> pairPosition = comparison -> packPair(positions.get(comparison.firstSubmission()),
+                positions.get(comparison.secondSubmission()));
+        return comparisons.stream().sorted(Comparator.comparingLong(pairPosition)).toList();
     }
 }
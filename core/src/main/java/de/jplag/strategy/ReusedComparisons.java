@@ -0,0 +1,33 @@
+package de.jplag.strategy;
+
+import java.util.List;
+import java.util.Set;
+
+import de.jplag.JPlagComparison;
+import de.jplag.Submission;
+
+/**
+ * Comparisons of a previous run that are reused by an incremental run. The pairs of two unchanged submissions are not
+ * compared again, their comparisons are taken from the previous run instead.
+ * @param unchangedSubmissions are the submissions whose files and tokens did not change since the previous run.
+ * @param comparisons are the comparisons of the previous run between unchanged submissions that exceed the similarity
+ * threshold, referencing the submissions of the current run.
+ */
+public record ReusedComparisons(Set<Submission> unchangedSubmissions, List<JPlagComparison> comparisons) {
+
+    /**
+     * @return the reused comparisons of a run that compares all pairs.
+     */
+    public static ReusedComparisons none() {
+        return new ReusedComparisons(Set.of(), List.of());
+    }
+
+    /**
+     * @param first is the first submission of the pair.
+     * @param second is the second submission of the pair.
+     * @return whether the pair is taken from the previous run instead of being compared.
+     */
+    public boolean isReused(Submission first, Submission second) {
+        return unchangedSubmissions.contains(first) && unchangedSubmissions.contains(second);
+    }
+}
@@ -0,0 +1,218 @@
+package de.jplag.strategy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import de.jplag.JPlagComparison;
+import de.jplag.Match;
+import de.jplag.Submission;
+import de.jplag.exceptions.ShardException;
+
+/**
+ * Binary file with the comparisons of one shard of a sharded comparison. The header identifies the shard, the settings,
+ * and the submissions, so that the merging process can verify that all shards compared the same submissions with the same
+ * settings. The comparisons reference the submissions by their position. The comparisons are written to a temporary file
+ * that is only moved to the final file when the shard is complete, so an incomplete shard is never merged.
+ */
+class ShardFile {
+    private static final int FORMAT_VERSION = 2;
+    private static final int END_OF_COMPARISONS = -1;
+
+    private final File file;
+    private final Path temporaryFile;
+    private final DataOutputStream output;
+    private final Map<Submission, Integer> positions;
+
+    /**
+     * Creates the temporary shard file and writes its header.
+     * @param file is the final file of the shard.
+     * @param header identifies the shard.
+     * @param submissions are the compared submissions.
+     * @throws ShardException if the file cannot be created.
+     */
+    ShardFile(File file, Header header, List<Submission> submissions) throws ShardException {
+        this.file = file;
+        this.temporaryFile = file.toPath().resolveSibling(file.getName() + ".tmp");
+        positions = new IdentityHashMap<>(submissions.size());
+        for (int position = 0; position < submissions.size(); position++) {
+            positions.put(submissions.get(position), position);
+        }
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)));
+            output.writeInt(FORMAT_VERSION);
+            header.write(output);
+            output.writeInt(submissions.size());
+            for (Submission submission : submissions) {
+                output.writeUTF(submission.getName());
+            }
+        } catch (IOException e) {
+            throw new ShardException("Could not write shard file " + file, e);
+        }
+    }
+
+    /**
+     * Appends a comparison. May be called concurrently.
+     * @param comparison is the comparison.
+     * @throws UncheckedIOException if the comparison cannot be written.
+     */
+    synchronized void add(JPlagComparison comparison) {
+        try {
+            output.writeInt(positions.get(comparison.firstSubmission()));
+            output.writeInt(positions.get(comparison.secondSubmission()));
+            output.writeInt(comparison.matches().size());
+            for (Match match : comparison.matches()) {
+                output.writeInt(match.startOfFirst());
+                output.writeInt(match.startOfSecond());
+                output.writeInt(match.length());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Completes the shard by moving the temporary file to the final file.
+     * @throws ShardException if the file cannot be completed.
+     */
+    synchronized void complete() throws ShardException {
+        try {
+            output.writeInt(END_OF_COMPARISONS);
+            output.close();
+            Files.move(temporaryFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new ShardException("Could not write shard file " + file, e);
+        }
+    }
+
+    /**
+     * Discards the temporary file of an incomplete shard.
+     */
+    synchronized void discard() {
+        try {
+            output.close();
+            Files.deleteIfExists(temporaryFile);
+        } catch (IOException e) {
+            // the temporary file is overwritten by the next attempt
+        }
+    }
+
+    /**
+     * Reads the comparisons of a shard.
+     * @param file is the shard file.
+     * @param header is the expected header of the file.
+     * @param submissions are the compared submissions, they must be the submissions of the file.
+     * @param consumer receives the comparisons.
+     * @throws ShardException if the file is missing or belongs to a different comparison.
+     */
+    static void read(File file, Header header, List<Submission> submissions, Consumer<JPlagComparison> consumer) throws ShardException {
+        if (!file.exists()) {
+            throw new ShardException("Shard file " + file + " does not exist, shard " + header.shardIndex() + " is not compared yet");
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (input.readInt() != FORMAT_VERSION) {
+                throw new ShardException("Shard file " + file + " was written by an incompatible version of JPlag");
+            }
+            Optional<String> incompatibility = Header.read(input).incompatibility(header);
+            if (incompatibility.isPresent()) {
+                throw new ShardException("Shard file " + file + " was created with a different " + incompatibility.get());
+            }
+            if (!hasSubmissions(input, submissions)) {
+                throw new ShardException("Shard file " + file + " was created for different submissions");
+            }
+            for (int first = input.readInt(); first != END_OF_COMPARISONS; first = input.readInt()) {
+                Submission firstSubmission = submissions.get(first);
+                Submission secondSubmission = submissions.get(input.readInt());
+                int numberOfMatches = input.readInt();
+                List<Match> matches = new ArrayList<>(numberOfMatches);
+                for (int i = 0; i < numberOfMatches; i++) {
+                    matches.add(new Match(input.readInt(), input.readInt(), input.readInt()));
+                }
+                consumer.accept(new JPlagComparison(firstSubmission, secondSubmission, matches));
+            }
+        } catch (IOException | IndexOutOfBoundsException e) {
+            throw new ShardException("Could not read shard file " + file, e);
+        }
+    }
+
+    private static boolean hasSubmissions(DataInputStream input, List<Submission> submissions) throws IOException {
+        if (input.readInt() != submissions.size()) {
+            return false;
+        }
+        for (Submission submission : submissions) {
+            if (!input.readUTF().equals(submission.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Settings that must be equal for all shards of a comparison. As each shard only contains the comparisons above its
+     * similarity threshold, merging shards of a different threshold, metric, matching algorithm, or base code would silently
+     * yield a different result.
+     * @param languageIdentifier identifies the language of the submissions.
+     * @param minimumTokenMatch is the minimum match length.
+     * @param matchingAlgorithm is the name of the matching algorithm.
+     * @param similarityMetric is the name of the similarity metric of the threshold.
+     * @param similarityThreshold is the similarity threshold.
+     * @param baseCodeHash is the content hash of the base code, empty without base code.
+     * @param numberOfShards is the number of shards.
+     * @param shardIndex is the index of the shard.
+     */
+    record Header(String languageIdentifier, int minimumTokenMatch, String matchingAlgorithm, String similarityMetric,
+            double similarityThreshold, String baseCodeHash, int numberOfShards, int shardIndex) {
+
+        private void write(DataOutputStream output) throws IOException {
+            output.writeUTF(languageIdentifier);
+            output.writeInt(minimumTokenMatch);
+            output.writeUTF(matchingAlgorithm);
+            output.writeUTF(similarityMetric);
+            output.writeDouble(similarityThreshold);
+            output.writeUTF(baseCodeHash);
+            output.writeInt(numberOfShards);
+            output.writeInt(shardIndex);
+        }
+
+        private static Header read(DataInputStream input) throws IOException {
+            return new Header(input.readUTF(), input.readInt(), input.readUTF(), input.readUTF(), input.readDouble(), input.readUTF(),
+                    input.readInt(), input.readInt());
+        }
+
+        /**
+         * @param expected is the header expected by the merging process.
+         * @return the first setting in which this header differs from the expected one, if any.
+         */
+        private Optional<String> incompatibility(Header expected) {
+            if (!languageIdentifier.equals(expected.languageIdentifier)) {
+                return Optional.of("language");
+            } else if (minimumTokenMatch != expected.minimumTokenMatch) {
+                return Optional.of("minimum match length");
+            } else if (!matchingAlgorithm.equals(expected.matchingAlgorithm)) {
+                return Optional.of("matching algorithm");
+            } else if (!similarityMetric.equals(expected.similarityMetric)) {
+                return Optional.of("similarity metric");
+            } else if (Double.compare(similarityThreshold, expected.similarityThreshold) != 0) {
+                return Optional.of("similarity threshold");
+            } else if (!baseCodeHash.equals(expected.baseCodeHash)) {
+                return Optional.of("base code");
+            } else if (numberOfShards != expected.numberOfShards || shardIndex != expected.shardIndex) {
+                return Optional.of("sharding");
+            }
+            return Optional.empty();
+        }
+    }
+}
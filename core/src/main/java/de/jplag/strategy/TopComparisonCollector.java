@@ -0,0 +1,131 @@
+package de.jplag.strategy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import de.jplag.JPlagComparison;
+import de.jplag.JPlagResult;
+import de.jplag.Submission;
+import de.jplag.clustering.ClusteringOptions;
+import de.jplag.clustering.CondensedSimilarityMatrix;
+import de.jplag.options.JPlagOptions;
+
+/**
+ * Thread-safe sink for the comparisons of a comparison strategy that only retains the comparisons shown in the report.
+ * Everything else that is derived from all comparisons (the similarity distributions, the number of comparisons and the
+ * similarities used for clustering) is aggregated when a comparison is added, so that the remaining comparisons and
+ * their matches can be discarded right away.
+ */
+public class TopComparisonCollector {
+
+    /** Ascending by similarity, ties are broken by the submission names to keep the retained comparisons deterministic. */
+    private static final Comparator<JPlagComparison> SIMILARITY_ORDER = Comparator.comparingDouble(JPlagComparison::similarity)
+            .thenComparing(comparison -> comparison.firstSubmission().getName())
+            .thenComparing(comparison -> comparison.secondSubmission().getName());
+
+    private final int limit;
+    private final PriorityQueue<JPlagComparison> topComparisons; // least similar retained comparison at the head
+    private volatile double minimumRetainedSimilarity = Double.NEGATIVE_INFINITY;
+
+    private final AtomicInteger numberOfComparisons = new AtomicInteger();
+    private final AtomicIntegerArray similarityDistribution = new AtomicIntegerArray(JPlagResult.SIMILARITY_DISTRIBUTION_SIZE);
+    private final AtomicIntegerArray maxSimilarityDistribution = new AtomicIntegerArray(JPlagResult.SIMILARITY_DISTRIBUTION_SIZE);
+
+    private final Map<Submission, Integer> submissionIndexes; // identity based, only read after construction
+    private final ClusteringOptions clusteringOptions;
+    private final CondensedSimilarityMatrix clusteringSimilarities;
+
+    /**
+     * Creates a collector for the comparisons between the given submissions.
+     * @param submissions are the submissions that are compared with each other.
+     * @param options determine the number of retained comparisons and the clustering metric.
+     */
+    public TopComparisonCollector(List<Submission> submissions, JPlagOptions options) {
+        this.limit = options.maximumNumberOfComparisons();
+        this.topComparisons = new PriorityQueue<>(limit == JPlagOptions.SHOW_ALL_COMPARISONS ? 11 : limit + 1, SIMILARITY_ORDER);
+        this.submissionIndexes = new IdentityHashMap<>(submissions.size());
+        for (int index = 0; index < submissions.size(); index++) {
+            submissionIndexes.put(submissions.get(index), index);
+        }
+        this.clusteringOptions = options.clusteringOptions();
+        this.clusteringSimilarities = clusteringOptions.enabled() ? new CondensedSimilarityMatrix(submissions.size()) : null;
+    }
+
+    /**
+     * Adds a comparison. Only retains it if it belongs to the most similar comparisons.
+     * @param comparison is the comparison to add.
+     */
+    public void add(JPlagComparison comparison) {
+        numberOfComparisons.incrementAndGet();
+        similarityDistribution.incrementAndGet(JPlagResult.similarityDistributionIndex(comparison.similarity()));
+        maxSimilarityDistribution.incrementAndGet(JPlagResult.similarityDistributionIndex(comparison.maximalSimilarity()));
+        if (clusteringSimilarities != null) {
+            int firstIndex = submissionIndexes.get(comparison.firstSubmission());
+            int secondIndex = submissionIndexes.get(comparison.secondSubmission());
+            clusteringSimilarities.set(firstIndex, secondIndex, clusteringOptions.similarityMetric().applyAsDouble(comparison));
+        }
+        if (comparison.similarity() >= minimumRetainedSimilarity) {
+            retain(comparison);
+        }
+    }
+
+    /**
+     * @return the retained comparisons sorted by similarity (descending).
+     */
+    public synchronized List<JPlagComparison> getComparisons() {
+        List<JPlagComparison> comparisons = new ArrayList<>(topComparisons);
+        comparisons.sort(SIMILARITY_ORDER.reversed());
+        return comparisons;
+    }
+
+    /**
+     * @return the number of all added comparisons, including the ones that were not retained.
+     */
+    public int getNumberOfComparisons() {
+        return numberOfComparisons.get();
+    }
+
+    /**
+     * @return the distribution of the average similarity over all added comparisons.
+     */
+    public int[] getSimilarityDistribution() {
+        return toArray(similarityDistribution);
+    }
+
+    /**
+     * @return the distribution of the maximum similarity over all added comparisons.
+     */
+    public int[] getMaxSimilarityDistribution() {
+        return toArray(maxSimilarityDistribution);
+    }
+
+    /**
+     * @return the similarities of all added comparisons according to the clustering metric, or null if clustering is
+     * disabled. The indexes correspond to the order of the submissions the collector was created with.
+     */
+    public CondensedSimilarityMatrix getClusteringSimilarities() {
+        return clusteringSimilarities;
+    }
+
+    private synchronized void retain(JPlagComparison comparison) {
+        topComparisons.add(comparison);
+        if (limit != JPlagOptions.SHOW_ALL_COMPARISONS && topComparisons.size() > limit) {
+            topComparisons.poll();
+            minimumRetainedSimilarity = topComparisons.peek().similarity();
+        }
+    }
+
+    private static int[] toArray(AtomicIntegerArray distribution) {
+        int[] values = new int[distribution.length()];
+        for (int index = 0; index < values.length; index++) {
+            values[index] = distribution.get(index);
+        }
+        return values;
+    }
+}
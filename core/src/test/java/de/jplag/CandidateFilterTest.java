@@ -0,0 +1,73 @@
+package de.jplag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.jplag.exceptions.ExitException;
+import de.jplag.options.CandidateFilter;
+
+/**
+ * Tests the prefilters that select the pairs of submissions to compare.
+ */
+class CandidateFilterTest extends TestBase {
+
+    private static final double SIMILARITY_THRESHOLD = 0.01;
+
+    @Test
+    @DisplayName("test that filtering for shared subsequences does not change the result")
+    void testSharedSubsequencesFilter() throws ExitException {
+        JPlagResult expected = runJPlag("PartialPlagiarism", options -> options.withSimilarityThreshold(SIMILARITY_THRESHOLD));
+        JPlagResult actual = runJPlag("PartialPlagiarism", options -> options.withSimilarityThreshold(SIMILARITY_THRESHOLD)
+                .withPerformanceOptions(options.performanceOptions().withCandidateFilter(CandidateFilter.SHARED_SUBSEQUENCES)));
+
+        assertSameComparisons(expected, actual);
+    }
+
+    @Test
+    @DisplayName("test that the persisted archive index does not change the comparisons against old submissions")
+    void testArchiveIndex(@TempDir Path temporaryDirectory) throws ExitException {
+        List<String> newDirectories = List.of(getBasePath("PartialPlagiarism"));
+        List<String> oldDirectories = List.of(getBasePath("SimpleDuplicate"));
+        File indexFile = temporaryDirectory.resolve("archive.index").toFile();
+        JPlagResult expected = runJPlag(newDirectories, oldDirectories, options -> options.withSimilarityThreshold(SIMILARITY_THRESHOLD));
+
+        for (int run = 0; run < 2; run++) { // the second run reuses the persisted index
+            JPlagResult actual = runJPlag(newDirectories, oldDirectories,
+                    options -> options.withSimilarityThreshold(SIMILARITY_THRESHOLD).withPerformanceOptions(options.performanceOptions()
+                            .withCandidateFilter(CandidateFilter.SHARED_SUBSEQUENCES).withArchiveIndexFile(indexFile)));
+            assertTrue(indexFile.exists());
+            assertSameComparisons(expected, actual);
+        }
+    }
+
+    @Test
+    @DisplayName("test that the MinHash filter keeps highly similar pairs")
+    void testMinHashFilter() throws ExitException {
+        JPlagResult expected = runJPlagWithDefaultOptions("PartialPlagiarism");
+        JPlagResult actual = runJPlag("PartialPlagiarism",
+                options -> options.withPerformanceOptions(options.performanceOptions().withCandidateFilter(CandidateFilter.MIN_HASH)));
+
+        assertTrue(actual.getAllComparisons().size() <= expected.getAllComparisons().size());
+        JPlagComparison mostSimilar = expected.getAllComparisons().get(0);
+        String first = mostSimilar.firstSubmission().getName();
+        String second = mostSimilar.secondSubmission().getName();
+        assertEquals(mostSimilar.similarity(), getSelectedPercent(actual, first, second), DELTA);
+    }
+
+    private static void assertSameComparisons(JPlagResult expected, JPlagResult actual) {
+        assertEquals(expected.getAllComparisons().size(), actual.getAllComparisons().size());
+        for (JPlagComparison comparison : expected.getAllComparisons()) {
+            String first = comparison.firstSubmission().getName();
+            String second = comparison.secondSubmission().getName();
+            assertEquals(comparison.similarity(), getSelectedPercent(actual, first, second), DELTA);
+        }
+    }
+}
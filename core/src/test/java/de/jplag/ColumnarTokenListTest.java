@@ -0,0 +1,74 @@
+package de.jplag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.jplag.java.JavaTokenType;
+
+class ColumnarTokenListTest {
+
+    private static final File FIRST_FILE = new File("A.java");
+    private static final File SECOND_FILE = new File("B.java");
+
+    @Test
+    @DisplayName("test that the columnar list returns views equal to the original tokens")
+    void testTokenViews() {
+        List<Token> tokens = List.of(new Token(JavaTokenType.J_CLASS_BEGIN, FIRST_FILE, 1, 1, 5), Token.fileEnd(FIRST_FILE),
+                new Token(JavaTokenType.J_METHOD_BEGIN, SECOND_FILE, 3, 5, 10), new Token(JavaTokenType.J_METHOD_END, null, 7, 5, 1));
+        TokenTypeRegistry typeRegistry = new TokenTypeRegistry();
+        ColumnarTokenList columnarTokens = ColumnarTokenList.of(tokens, typeRegistry);
+
+        assertEquals(tokens.size(), columnarTokens.size());
+        for (int index = 0; index < tokens.size(); index++) {
+            Token expected = tokens.get(index);
+            Token actual = columnarTokens.get(index);
+            assertSame(expected.getType(), actual.getType());
+            assertSame(expected.getType(), columnarTokens.getType(index));
+            assertEquals(expected.getFile(), actual.getFile());
+            assertEquals(expected.getLine(), actual.getLine());
+            assertEquals(expected.getColumn(), actual.getColumn());
+            assertEquals(expected.getLength(), actual.getLength());
+        }
+        assertNull(columnarTokens.get(3).getFile());
+        assertSame(columnarTokens, ColumnarTokenList.of(columnarTokens, typeRegistry));
+        assertNotSame(columnarTokens, ColumnarTokenList.of(columnarTokens, new TokenTypeRegistry()));
+        assertThrows(UnsupportedOperationException.class, () -> columnarTokens.add(Token.fileEnd(FIRST_FILE)));
+    }
+
+    @Test
+    @DisplayName("test that type ids are equal across lists if and only if the types are equal")
+    void testTypeIds() {
+        TokenTypeRegistry typeRegistry = new TokenTypeRegistry();
+        int[] first = new ColumnarTokenList.Builder(2, typeRegistry).add(JavaTokenType.J_IF_BEGIN, FIRST_FILE, 1, 1, 2)
+                .add(SharedTokenType.FILE_END, FIRST_FILE, Token.NO_VALUE, Token.NO_VALUE, Token.NO_VALUE).build().typeIds();
+        int[] second = new ColumnarTokenList.Builder(2, typeRegistry).add(JavaTokenType.J_IF_END, SECOND_FILE, 2, 1, 1)
+                .add(JavaTokenType.J_IF_BEGIN, SECOND_FILE, 1, 1, 2).build().typeIds();
+
+        assertEquals(first[0], second[1]);
+        assertNotEquals(first[0], second[0]);
+        assertEquals(0, first[1]);
+    }
+
+    @Test
+    @DisplayName("test that type ids only depend on the types registered in the same registry")
+    void testRegistriesAreIndependent() {
+        TokenTypeRegistry first = new TokenTypeRegistry();
+        first.idOf(JavaTokenType.J_IF_BEGIN);
+        TokenTypeRegistry second = new TokenTypeRegistry();
+
+        assertNotEquals(first.idOf(JavaTokenType.J_IF_END), second.idOf(JavaTokenType.J_IF_END));
+        assertEquals(1, second.idOf(JavaTokenType.J_IF_END));
+        assertSame(JavaTokenType.J_IF_END, second.typeOf(second.idOf(JavaTokenType.J_IF_END)));
+        assertEquals(0, second.idOf(SharedTokenType.FILE_END));
+    }
+}
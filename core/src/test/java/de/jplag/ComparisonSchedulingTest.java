@@ -0,0 +1,142 @@
+package de.jplag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.jplag.exceptions.ExitException;
+import de.jplag.exceptions.ShardException;
+import de.jplag.options.ShardingOptions;
+
+/**
+ * Tests that the scheduling of the pairwise comparisons does not affect the result.
+ */
+class ComparisonSchedulingTest extends TestBase {
+
+    @Test
+    @DisplayName("test that all pairs are compared exactly once in a deterministic order, independent of the number of threads")
+    void testComparisonThreads() throws ExitException {
+        List<String> newDirectories = List.of(getBasePath("PartialPlagiarism"));
+        List<String> oldDirectories = List.of(getBasePath("SimpleDuplicate"));
+        JPlagResult singleThreaded = runJPlag(newDirectories, oldDirectories,
+                options -> options.withPerformanceOptions(options.performanceOptions().withComparisonThreads(1)));
+        JPlagResult multiThreaded = runJPlag(newDirectories, oldDirectories,
+                options -> options.withPerformanceOptions(options.performanceOptions().withComparisonThreads(3)));
+
+        long numberOfNew = singleThreaded.getSubmissions().getSubmissions().stream().filter(Submission::isNew).count();
+        long numberOfOld = singleThreaded.getSubmissions().numberOfSubmissions() - numberOfNew;
+        assertEquals(numberOfNew * (numberOfNew - 1) / 2 + numberOfNew * numberOfOld, singleThreaded.getAllComparisons().size());
+        assertEquals(describe(singleThreaded), describe(multiThreaded));
+    }
+
+    @Test
+    @DisplayName("test that comparing the pairs block by block does not change the result")
+    void testComparisonBlocks() throws ExitException {
+        List<String> newDirectories = List.of(getBasePath("PartialPlagiarism"));
+        List<String> oldDirectories = List.of(getBasePath("SimpleDuplicate"));
+        JPlagResult expected = runJPlag(newDirectories, oldDirectories, options -> options);
+        for (int blockTokens : new int[] {1, 200, 1000, Integer.MAX_VALUE}) {
+            JPlagResult blocked = runJPlag(newDirectories, oldDirectories,
+                    options -> options.withPerformanceOptions(options.performanceOptions().withComparisonBlockTokens(blockTokens)));
+            assertEquals(describe(expected), describe(blocked), "block tokens " + blockTokens);
+        }
+    }
+
+    @Test
+    @DisplayName("test that merging the shards of a sharded comparison yields the result of a single comparison")
+    void testShardedComparison(@TempDir File shardDirectory) throws ExitException {
+        List<String> newDirectories = List.of(getBasePath("PartialPlagiarism"));
+        List<String> oldDirectories = List.of(getBasePath("SimpleDuplicate"));
+        JPlagResult expected = runJPlag(newDirectories, oldDirectories, options -> options);
+        for (int blockTokens : new int[] {0, 200}) {
+            File directory = new File(shardDirectory, "block-tokens-" + blockTokens);
+            directory.mkdir();
+            int numberOfComparisons = 0;
+            for (int shard = 0; shard < 3; shard++) {
+                ShardingOptions sharding = new ShardingOptions(3, shard, directory);
+                JPlagResult shardResult = runJPlag(newDirectories, oldDirectories, options -> options.withPerformanceOptions(
+                        options.performanceOptions().withSharding(sharding).withComparisonBlockTokens(blockTokens)));
+                numberOfComparisons += shardResult.getAllComparisons().size();
+            }
+            ShardingOptions merge = new ShardingOptions(3, ShardingOptions.MERGE, directory);
+            JPlagResult merged = runJPlag(newDirectories, oldDirectories,
+                    options -> options.withPerformanceOptions(options.performanceOptions().withSharding(merge)));
+            assertEquals(describe(expected), describe(merged), "block tokens " + blockTokens);
+            assertEquals(expected.getAllComparisons().size(), numberOfComparisons, "block tokens " + blockTokens);
+        }
+    }
+
+    @Test
+    @DisplayName("test that merging fails if a shard has not been compared")
+    void testMissingShard(@TempDir File shardDirectory) throws ExitException {
+        String sample = "PartialPlagiarism";
+        runJPlag(sample, options -> options.withPerformanceOptions(
+                options.performanceOptions().withSharding(new ShardingOptions(2, 0, shardDirectory))));
+        ShardingOptions merge = new ShardingOptions(2, ShardingOptions.MERGE, shardDirectory);
+        assertThrows(ShardException.class,
+                () -> runJPlag(sample, options -> options.withPerformanceOptions(options.performanceOptions().withSharding(merge))));
+    }
+
+    @Test
+    @DisplayName("test that merging fails if the shards were compared with a different similarity threshold")
+    void testShardWithDifferentThreshold(@TempDir File shardDirectory) throws ExitException {
+        String sample = "PartialPlagiarism";
+        for (int shard = 0; shard < 2; shard++) {
+            ShardingOptions sharding = new ShardingOptions(2, shard, shardDirectory);
+            runJPlag(sample, options -> options.withSimilarityThreshold(0.5)
+                    .withPerformanceOptions(options.performanceOptions().withSharding(sharding)));
+        }
+        ShardingOptions merge = new ShardingOptions(2, ShardingOptions.MERGE, shardDirectory);
+        ShardException exception = assertThrows(ShardException.class, () -> runJPlag(sample,
+                options -> options.withSimilarityThreshold(0.2).withPerformanceOptions(options.performanceOptions().withSharding(merge))));
+        assertTrue(exception.getMessage().contains("similarity threshold"), exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("test that comparing pairs while parsing yields the result of comparing after parsing")
+    void testPipelinedComparison() throws ExitException {
+        List<String> newDirectories = List.of(getBasePath("PartialPlagiarism"));
+        List<String> oldDirectories = List.of(getBasePath("SimpleDuplicate"));
+        JPlagResult expected = runJPlag(newDirectories, oldDirectories, options -> options);
+        JPlagResult pipelined = runJPlag(newDirectories, oldDirectories,
+                options -> options.withPerformanceOptions(options.performanceOptions().withPipelined(true).withComparisonThreads(3)));
+        assertEquals(expected.getAllComparisons().size(), pipelined.getAllComparisons().size());
+        assertEquals(describeUnordered(expected), describeUnordered(pipelined));
+    }
+
+    @Test
+    @DisplayName("test that comparing pairs while parsing considers the base code")
+    void testPipelinedComparisonWithBaseCode() throws ExitException {
+        JPlagResult expected = runJPlag("basecode",
+                it -> it.withBaseCodeSubmissionDirectory(new File(it.submissionDirectories().iterator().next(), "base")));
+        JPlagResult pipelined = runJPlag("basecode",
+                it -> it.withBaseCodeSubmissionDirectory(new File(it.submissionDirectories().iterator().next(), "base"))
+                        .withPerformanceOptions(it.performanceOptions().withPipelined(true)));
+        assertEquals(describeUnordered(expected), describeUnordered(pipelined));
+    }
+
+    /**
+     * Describes the comparisons independent of the orientation of their pairs, which pipelined comparisons may flip for
+     * submissions with the same number of tokens.
+     */
+    private static Set<String> describeUnordered(JPlagResult result) {
+        return result.getAllComparisons().stream()
+                .map(comparison -> Stream.of(comparison.firstSubmission(), comparison.secondSubmission()).map(Submission::getName).sorted()
+                        .collect(Collectors.joining(" <-> ")) + ": " + comparison.similarity())
+                .collect(Collectors.toSet());
+    }
+
+    private static List<String> describe(JPlagResult result) {
+        return result.getAllComparisons().stream().map(comparison -> comparison + ": " + comparison.similarity()).toList();
+    }
+}
@@ -0,0 +1,73 @@
+package de.jplag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.jplag.exceptions.ExitException;
+import de.jplag.options.SimilarityMetric;
+
+/**
+ * Tests the {@link GreedyStringTiling} independently of the comparison strategy.
+ */
+class GreedyStringTilingTest extends TestBase {
+
+    @Test
+    @DisplayName("test that comparing without cached submission data yields identical matches")
+    void testComparisonWithoutCache() throws ExitException {
+        JPlagResult result = runJPlagWithDefaultOptions("PartialPlagiarism");
+        GreedyStringTiling uncached = new GreedyStringTiling(result.getOptions(), 0);
+
+        for (JPlagComparison expected : result.getAllComparisons()) {
+            JPlagComparison actual = uncached.compare(expected.firstSubmission(), expected.secondSubmission());
+            assertEquals(expected.matches(), actual.matches(), expected.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("test that the upper bound of matched tokens is never exceeded")
+    void testMaximumMatchedTokens() throws ExitException {
+        JPlagResult result = runJPlagWithDefaultOptions("PartialPlagiarism");
+        GreedyStringTiling greedyStringTiling = new GreedyStringTiling(result.getOptions());
+
+        for (JPlagComparison comparison : result.getAllComparisons()) {
+            int bound = greedyStringTiling.maximumMatchedTokens(comparison.firstSubmission(), comparison.secondSubmission());
+            assertTrue(bound >= comparison.getNumberOfMatchedTokens(), comparison.toString());
+            assertTrue(bound <= Math.min(comparison.firstSubmission().getNumberOfTokens(), comparison.secondSubmission().getNumberOfTokens()));
+        }
+    }
+
+    @Test
+    @DisplayName("test that skipping pairs that cannot reach the similarity threshold keeps all comparisons above it")
+    void testThresholdPruning() throws ExitException {
+        double threshold = 0.5;
+        for (SimilarityMetric metric : SimilarityMetric.values()) {
+            JPlagResult all = runJPlag("PartialPlagiarism", options -> options.withSimilarityMetric(metric));
+            JPlagResult pruned = runJPlag("PartialPlagiarism", options -> options.withSimilarityMetric(metric).withSimilarityThreshold(threshold));
+
+            List<String> expected = all.getAllComparisons().stream().filter(comparison -> metric.isAboveThreshold(comparison, threshold))
+                    .map(JPlagComparison::toString).sorted().toList();
+            assertEquals(expected, pruned.getAllComparisons().stream().map(JPlagComparison::toString).sorted().toList(), metric.name());
+        }
+    }
+
+    @Test
+    @DisplayName("test that stopping early only affects comparisons below the required number of matched tokens")
+    void testEarlyTermination() throws ExitException {
+        JPlagResult result = runJPlagWithDefaultOptions("PartialPlagiarism");
+        GreedyStringTiling greedyStringTiling = new GreedyStringTiling(result.getOptions());
+
+        for (JPlagComparison expected : result.getAllComparisons()) {
+            int matchedTokens = expected.getNumberOfMatchedTokens();
+            JPlagComparison reachable = greedyStringTiling.compare(expected.firstSubmission(), expected.secondSubmission(), matchedTokens);
+            assertEquals(expected.matches(), reachable.matches(), expected.toString());
+
+            JPlagComparison unreachable = greedyStringTiling.compare(expected.firstSubmission(), expected.secondSubmission(), matchedTokens + 1);
+            assertTrue(unreachable.getNumberOfMatchedTokens() <= matchedTokens, expected.toString());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package de.jplag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.jplag.exceptions.ExitException;
+
+/**
+ * Tests parsing the submissions on multiple threads.
+ */
+class ParallelParsingTest extends TestBase {
+
+    @Test
+    @DisplayName("test that parsing on multiple threads yields the same tokens as sequential parsing")
+    void testParallelParsing() throws ExitException {
+        JPlagResult sequential = runJPlag("PartialPlagiarism",
+                options -> options.withPerformanceOptions(options.performanceOptions().withParsingThreads(1)));
+        JPlagResult parallel = runJPlag("PartialPlagiarism",
+                options -> options.withPerformanceOptions(options.performanceOptions().withParsingThreads(4)));
+
+        List<Submission> expected = sequential.getSubmissions().getSubmissions();
+        List<Submission> actual = parallel.getSubmissions().getSubmissions();
+        assertEquals(expected.size(), actual.size());
+        for (int index = 0; index < expected.size(); index++) {
+            assertEquals(expected.get(index).getName(), actual.get(index).getName());
+            assertEquals(expected.get(index).getTokenList().stream().map(ParallelParsingTest::describe).toList(),
+                    actual.get(index).getTokenList().stream().map(ParallelParsingTest::describe).toList());
+        }
+        assertEquals(sequential.getAllComparisons().size(), parallel.getAllComparisons().size());
+        for (JPlagComparison comparison : sequential.getAllComparisons()) {
+            String first = comparison.firstSubmission().getName();
+            String second = comparison.secondSubmission().getName();
+            assertEquals(comparison.similarity(), getSelectedPercent(parallel, first, second), DELTA);
+        }
+    }
+
+    private static String describe(Token token) {
+        return token.getType() + "@" + token.getFile() + ":" + token.getLine() + ":" + token.getColumn() + "+" + token.getLength();
+    }
+}
@@ -0,0 +1,145 @@
+package de.jplag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.jplag.exceptions.ExitException;
+import de.jplag.exceptions.SnapshotException;
+import de.jplag.options.JPlagOptions;
+import de.jplag.reporting.reportobject.ReportObjectFactory;
+import de.jplag.strategy.ReusedComparisons;
+
+/**
+ * Tests that a result restored from its snapshot equals the original result, and that incremental runs based on a
+ * snapshot yield the same result as full runs.
+ */
+class ResultSnapshotTest extends TestBase {
+
+    @Test
+    @DisplayName("test that a restored result has the same comparisons and clustering as the original result")
+    void testRestoredResult(@TempDir File directory) throws ExitException {
+        JPlagResult result = runJPlag("PartialPlagiarism", options -> options);
+        File snapshot = new File(directory, "result.snapshot");
+        ResultSnapshot.write(result, snapshot);
+
+        JPlagResult restored = new JPlag(result.getOptions()).restore(snapshot);
+        assertEquals(describe(result), describe(restored));
+        assertEquals(result.getSubmissions().numberOfSubmissions(), restored.getSubmissions().numberOfSubmissions());
+        assertEquals(result.getClusteringResult().size(), restored.getClusteringResult().size());
+
+        ReportObjectFactory reportObjectFactory = new ReportObjectFactory();
+        reportObjectFactory.createAndSaveReport(restored, new File(directory, "report").getPath());
+        assertTrue(new File(directory, "report.zip").exists());
+    }
+
+    @Test
+    @DisplayName("test that a restored result is evaluated with the new similarity threshold")
+    void testRestoredResultWithThreshold(@TempDir File directory) throws ExitException {
+        JPlagResult result = runJPlag("PartialPlagiarism", options -> options);
+        File snapshot = new File(directory, "result.snapshot");
+        ResultSnapshot.write(result, snapshot);
+
+        JPlagOptions options = result.getOptions().withSimilarityThreshold(0.5);
+        JPlagResult restored = new JPlag(options).restore(snapshot);
+        List<String> expected = result.getAllComparisons().stream().filter(comparison -> comparison.similarity() >= 0.5)
+                .map(comparison -> comparison + ": " + comparison.similarity()).toList();
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, describe(restored));
+    }
+
+    @Test
+    @DisplayName("test that a snapshot cannot be restored with a threshold below its own")
+    void testRestoredResultWithLowerThreshold(@TempDir File directory) throws ExitException {
+        JPlagResult result = runJPlag("PartialPlagiarism", options -> options.withSimilarityThreshold(0.5));
+        File snapshot = new File(directory, "result.snapshot");
+        ResultSnapshot.write(result, snapshot);
+
+        JPlagOptions options = result.getOptions().withSimilarityThreshold(0.2);
+        assertThrows(SnapshotException.class, () -> new JPlag(options).restore(snapshot));
+    }
+
+    @Test
+    @DisplayName("test that the base code comparisons are restored")
+    void testRestoredBaseCode(@TempDir File directory) throws ExitException {
+        JPlagResult result = runJPlag("basecode",
+                options -> options.withBaseCodeSubmissionDirectory(new File(options.submissionDirectories().iterator().next(), "base")));
+        File snapshot = new File(directory, "result.snapshot");
+        ResultSnapshot.write(result, snapshot);
+
+        JPlagResult restored = new JPlag(result.getOptions()).restore(snapshot);
+        assertTrue(restored.getSubmissions().hasBaseCode());
+        assertEquals(describe(result), describe(restored));
+        for (Submission submission : restored.getSubmissions().getSubmissions()) {
+            assertTrue(submission.hasBaseCodeMatches());
+        }
+    }
+
+    @Test
+    @DisplayName("test that an incremental run reuses the comparisons of unchanged submissions and yields the full result")
+    void testIncrementalRun(@TempDir File directory) throws ExitException, IOException {
+        Path submissions = directory.toPath().resolve("submissions");
+        copyDirectory(Path.of(getBasePath("PartialPlagiarism")), submissions);
+        File snapshot = new File(directory, "result.snapshot");
+        ResultSnapshot.write(runJPlag(List.of(submissions.toString()), options -> options), snapshot);
+
+        Files.delete(submissions.resolve("B").resolve("Token.java"));
+        copyDirectory(submissions.resolve("A"), submissions.resolve("F"));
+        JPlagResult incremental = runJPlag(List.of(submissions.toString()),
+                options -> options.withPerformanceOptions(options.performanceOptions().withPreviousResult(snapshot)));
+        JPlagResult full = runJPlag(List.of(submissions.toString()), options -> options);
+        assertEquals(describeUnordered(full), describeUnordered(incremental));
+
+        ReusedComparisons reused = ResultSnapshot.reusableComparisons(snapshot, full.getSubmissions(), full.getOptions());
+        Set<String> unchangedNames = reused.unchangedSubmissions().stream().map(Submission::getName).collect(Collectors.toSet());
+        assertEquals(Set.of("A", "C", "D", "E"), unchangedNames);
+        ReusedComparisons otherMatchLength = ResultSnapshot.reusableComparisons(snapshot, full.getSubmissions(),
+                full.getOptions().withMinimumTokenMatch(full.getOptions().minimumTokenMatch() + 1));
+        assertTrue(otherMatchLength.unchangedSubmissions().isEmpty());
+    }
+
+    @Test
+    @DisplayName("test that a missing snapshot is reported")
+    void testMissingSnapshot(@TempDir File directory) throws ExitException {
+        JPlagResult result = runJPlag("PartialPlagiarism", options -> options);
+        JPlag jplag = new JPlag(result.getOptions());
+        assertThrows(SnapshotException.class, () -> jplag.restore(new File(directory, "missing.snapshot")));
+    }
+
+    private static void copyDirectory(Path source, Path target) throws IOException {
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : paths.toList()) {
+                Files.copy(path, target.resolve(source.relativize(path).toString()));
+            }
+        }
+    }
+
+    /**
+     * Describes the comparisons independent of the order of the submissions, which may differ for equally sized
+     * submissions.
+     */
+    private static Set<String> describeUnordered(JPlagResult result) {
+        return result.getAllComparisons().stream()
+                .map(comparison -> Stream.of(comparison.firstSubmission(), comparison.secondSubmission()).map(Submission::getName).sorted()
+                        .collect(Collectors.joining(" <-> ")) + ": " + comparison.similarity())
+                .collect(Collectors.toSet());
+    }
+
+    private static List<String> describe(JPlagResult result) {
+        return result.getAllComparisons().stream().map(comparison -> comparison + ": " + comparison.similarity()).toList();
+    }
+}
@@ -0,0 +1,40 @@
+package de.jplag;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.jplag.exceptions.ExitException;
+
+/**
+ * Tests that streaming the comparisons only reduces the retained comparisons but not the aggregated result data.
+ */
+class StreamedComparisonTest extends TestBase {
+
+    private static final int RETAINED_COMPARISONS = 3;
+
+    @Test
+    @DisplayName("test that streamed comparisons retain the most similar comparisons and aggregate all others")
+    void testStreamedComparisons() throws ExitException {
+        JPlagResult expected = runJPlagWithDefaultOptions("PartialPlagiarism");
+        JPlagResult actual = runJPlag("PartialPlagiarism", options -> options.withMaximumNumberOfComparisons(RETAINED_COMPARISONS)
+                .withPerformanceOptions(options.performanceOptions().withStreamComparisons(true)));
+
+        assertEquals(RETAINED_COMPARISONS, actual.getAllComparisons().size());
+        assertEquals(expected.getAllComparisons().size(), actual.getTotalNumberOfComparisons());
+        assertArrayEquals(expected.getSimilarityDistribution(), actual.getSimilarityDistribution());
+        assertArrayEquals(expected.getMaxSimilarityDistribution(), actual.getMaxSimilarityDistribution());
+        assertTrue(actual.getClusteringSimilarities().isPresent());
+
+        List<JPlagComparison> expectedTop = expected.getComparisons(RETAINED_COMPARISONS);
+        for (int index = 0; index < RETAINED_COMPARISONS; index++) {
+            assertEquals(expectedTop.get(index).similarity(), actual.getAllComparisons().get(index).similarity(), DELTA);
+        }
+        assertEquals(expected.getClusteringResult().get(0).getClusters().size(), actual.getClusteringResult().get(0).getClusters().size());
+    }
+}
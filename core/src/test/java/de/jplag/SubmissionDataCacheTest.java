@@ -0,0 +1,74 @@
+package de.jplag;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.jplag.java.JavaTokenType;
+
+class SubmissionDataCacheTest {
+
+    private static final int TOKENS_PER_SUBMISSION = 10;
+
+    private final Language language = new de.jplag.java.Language();
+    private final TokenTypeRegistry typeRegistry = new TokenTypeRegistry();
+
+    @Test
+    @DisplayName("test that the submission of the current row stays cached while the other submissions are evicted")
+    void testRowSubmissionStaysResident() {
+        SubmissionDataCache<Object> cache = new SubmissionDataCache<>(2 * TOKENS_PER_SUBMISSION, (values, marking) -> new Object());
+        Submission row = submission("row");
+        SubmissionDataCache.SubmissionData<Object> rowData = cache.get(row);
+
+        for (int index = 0; index < 10; index++) {
+            Submission column = submission("column" + index);
+            assertSame(rowData, cache.get(row));
+            SubmissionDataCache.SubmissionData<Object> columnData = cache.get(column);
+            assertSame(columnData, cache.get(column));
+        }
+    }
+
+    @Test
+    @DisplayName("test that data is recomputed after it was evicted")
+    void testEviction() {
+        SubmissionDataCache<Object> cache = new SubmissionDataCache<>(2 * TOKENS_PER_SUBMISSION, (values, marking) -> new Object());
+        List<Submission> submissions = new ArrayList<>();
+        for (int index = 0; index < 3; index++) {
+            submissions.add(submission("submission" + index));
+        }
+        SubmissionDataCache.SubmissionData<Object> first = cache.get(submissions.get(0));
+        cache.get(submissions.get(1));
+        cache.get(submissions.get(2)); // evicts the least recently used submission
+
+        assertNotSame(first, cache.get(submissions.get(0)));
+    }
+
+    @Test
+    @DisplayName("test that preparing does not evict cached data")
+    void testPrepareDoesNotEvict() {
+        SubmissionDataCache<Object> cache = new SubmissionDataCache<>(TOKENS_PER_SUBMISSION, (values, marking) -> new Object());
+        Submission cached = submission("cached");
+        SubmissionDataCache.SubmissionData<Object> data = cache.get(cached);
+
+        cache.prepare(List.of(submission("prepared")));
+        assertSame(data, cache.get(cached));
+    }
+
+    private Submission submission(String name) {
+        File file = new File(name, "Main.java");
+        List<Token> tokens = new ArrayList<>();
+        for (int index = 0; index < TOKENS_PER_SUBMISSION - 1; index++) {
+            tokens.add(new Token(JavaTokenType.J_IF_BEGIN, file, index + 1, 1, 2));
+        }
+        tokens.add(Token.fileEnd(file));
+        Submission submission = new Submission(name, new File(name), true, List.of(file), language, typeRegistry);
+        submission.setTokenList(tokens);
+        return submission;
+    }
+}
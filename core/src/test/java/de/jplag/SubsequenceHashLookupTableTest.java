@@ -0,0 +1,96 @@
+package de.jplag;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the hash index over subsequences of token values.
+ */
+class SubsequenceHashLookupTableTest {
+
+    private static final int WINDOW_SIZE = 3;
+
+    @Test
+    @DisplayName("test that equal subsequences share their candidate range")
+    void testCandidatesOfEqualSubsequences() {
+        int[] values = {1, 2, 3, 1, 2, 3, 4, 1, 2, 3, 0};
+        SubsequenceHashLookupTable table = new SubsequenceHashLookupTable(WINDOW_SIZE, values, new TokenMarking(values.length));
+
+        int hash = table.subsequenceHashForStartIndex(0);
+        assertArrayEquals(new int[] {0, 3, 7}, candidatesFor(table, hash));
+    }
+
+    @Test
+    @DisplayName("test that every hashed start index is a candidate for its own hash")
+    void testEveryStartIndexIsIndexed() {
+        int[] values = IntStream.range(0, 500).map(i -> (i * 7) % 13).toArray();
+        SubsequenceHashLookupTable table = new SubsequenceHashLookupTable(WINDOW_SIZE, values, new TokenMarking(values.length));
+
+        for (int startIndex = 0; startIndex < values.length - WINDOW_SIZE; startIndex++) {
+            int[] candidates = candidatesFor(table, table.subsequenceHashForStartIndex(startIndex));
+            assertNotEquals(-1, Arrays.binarySearch(candidates, startIndex));
+        }
+    }
+
+    @Test
+    @DisplayName("test that subsequences with marked values are not indexed")
+    void testMarkedValuesAreExcluded() {
+        int[] values = {1, 2, 3, 1, 2, 3, 0};
+        TokenMarking marking = new TokenMarking(values.length);
+        marking.mark(4);
+        SubsequenceHashLookupTable table = new SubsequenceHashLookupTable(WINDOW_SIZE, values, marking);
+
+        assertEquals(SubsequenceHashLookupTable.NO_HASH, table.subsequenceHashForStartIndex(3));
+        assertArrayEquals(new int[] {0}, candidatesFor(table, table.subsequenceHashForStartIndex(0)));
+        assertEquals(SubsequenceHashLookupTable.NO_SLOT, table.slotForSubsequenceHash(SubsequenceHashLookupTable.NO_HASH));
+    }
+
+    @Test
+    @DisplayName("test that distinct hashes can be computed without building a table")
+    void testDistinctHashesWithoutTable() {
+        int[] values = IntStream.range(0, 500).map(i -> (i * 7) % 13).toArray();
+        TokenMarking marking = new TokenMarking(values.length);
+        marking.markRange(100, 20);
+        int[] expected = new SubsequenceHashLookupTable(WINDOW_SIZE, values, marking).distinctSubsequenceHashes();
+        Arrays.sort(expected);
+        assertArrayEquals(expected, SubsequenceHashLookupTable.distinctSubsequenceHashes(WINDOW_SIZE, values, marking));
+    }
+
+    @Test
+    @DisplayName("test that values beyond the former hash modulo do not alias")
+    void testLargeValuesDoNotAlias() {
+        int[] values = {1, 2, 3, 65, 66, 67, 1025, 2, 3, 0};
+        SubsequenceHashLookupTable table = new SubsequenceHashLookupTable(WINDOW_SIZE, values, new TokenMarking(values.length));
+
+        assertArrayEquals(new int[] {0}, candidatesFor(table, table.subsequenceHashForStartIndex(0)));
+        assertArrayEquals(new int[] {3}, candidatesFor(table, table.subsequenceHashForStartIndex(3)));
+        assertArrayEquals(new int[] {6}, candidatesFor(table, table.subsequenceHashForStartIndex(6)));
+    }
+
+    @Test
+    @DisplayName("test that long windows hash the whole subsequence")
+    void testLongWindows() {
+        int windowSize = 40;
+        int[] values = IntStream.range(0, 2 * windowSize + 1).map(i -> i == windowSize - 1 ? 7 : 1).toArray();
+        SubsequenceHashLookupTable table = new SubsequenceHashLookupTable(windowSize, values, new TokenMarking(values.length));
+
+        assertEquals(windowSize, table.getWindowSize());
+        assertNotEquals(table.subsequenceHashForStartIndex(0), table.subsequenceHashForStartIndex(windowSize));
+        assertArrayEquals(new int[] {windowSize}, candidatesFor(table, table.subsequenceHashForStartIndex(windowSize)));
+    }
+
+    private static int[] candidatesFor(SubsequenceHashLookupTable table, int hash) {
+        int slot = table.slotForSubsequenceHash(hash);
+        if (slot == SubsequenceHashLookupTable.NO_SLOT) {
+            return new int[0];
+        }
+        return IntStream.range(table.candidateRangeStart(slot), table.candidateRangeEnd(slot)).map(table::candidateStartIndex).toArray();
+    }
+}
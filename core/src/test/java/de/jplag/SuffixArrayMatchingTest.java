@@ -0,0 +1,78 @@
+package de.jplag;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.jplag.exceptions.ExitException;
+import de.jplag.options.MatchingAlgorithm;
+
+/**
+ * Tests the {@link SuffixArrayMatching} engine against {@link GreedyStringTiling}.
+ */
+class SuffixArrayMatchingTest extends TestBase {
+    private static final double MAXIMUM_SIMILARITY_DIFFERENCE = 0.05;
+
+    @Test
+    @DisplayName("test that the suffix array matches are valid tiles with a similarity close to greedy string tiling")
+    void testMatchesAreValidTiles() throws ExitException {
+        JPlagResult expected = runJPlagWithDefaultOptions("PartialPlagiarism");
+        JPlagResult result = runJPlag("PartialPlagiarism", options -> options
+                .withPerformanceOptions(options.performanceOptions().withMatchingAlgorithm(MatchingAlgorithm.SUFFIX_ARRAY)));
+
+        assertEquals(expected.getAllComparisons().size(), result.getAllComparisons().size());
+        for (JPlagComparison comparison : result.getAllComparisons()) {
+            List<Token> firstTokens = comparison.firstSubmission().getTokenList();
+            List<Token> secondTokens = comparison.secondSubmission().getTokenList();
+            boolean[] firstTiled = new boolean[firstTokens.size()];
+            boolean[] secondTiled = new boolean[secondTokens.size()];
+            for (Match match : comparison.matches()) {
+                assertTrue(match.length() >= result.getOptions().minimumTokenMatch());
+                for (int offset = 0; offset < match.length(); offset++) {
+                    assertEquals(firstTokens.get(match.startOfFirst() + offset).getType(),
+                            secondTokens.get(match.startOfSecond() + offset).getType());
+                    assertFalse(firstTiled[match.startOfFirst() + offset]);
+                    assertFalse(secondTiled[match.startOfSecond() + offset]);
+                    firstTiled[match.startOfFirst() + offset] = true;
+                    secondTiled[match.startOfSecond() + offset] = true;
+                }
+            }
+            String first = comparison.firstSubmission().getName();
+            String second = comparison.secondSubmission().getName();
+            assertEquals(getSelectedPercent(expected, first, second), comparison.similarity(), MAXIMUM_SIMILARITY_DIFFERENCE,
+                    comparison.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("test the suffix array and longest common prefixes against a naive construction")
+    void testSuffixArray() {
+        Random random = new Random(42);
+        for (int run = 0; run < 100; run++) {
+            int[] sequence = random.ints(random.nextInt(60), 0, 1 + random.nextInt(4)).toArray();
+            int[] suffixArray = SuffixArrayMatching.suffixArray(sequence);
+            int[] expected = IntStream.range(0, sequence.length).boxed()
+                    .sorted(Comparator.comparing(start -> Arrays.copyOfRange(sequence, start, sequence.length), Arrays::compare))
+                    .mapToInt(Integer::intValue).toArray();
+            assertArrayEquals(expected, suffixArray);
+
+            int[] longestCommonPrefixes = SuffixArrayMatching.longestCommonPrefixes(sequence, suffixArray);
+            for (int rank = 1; rank < sequence.length; rank++) {
+                int[] previous = Arrays.copyOfRange(sequence, suffixArray[rank - 1], sequence.length);
+                int[] current = Arrays.copyOfRange(sequence, suffixArray[rank], sequence.length);
+                int mismatch = Arrays.mismatch(previous, current);
+                assertEquals(mismatch == -1 ? previous.length : mismatch, longestCommonPrefixes[rank]);
+            }
+        }
+    }
+}
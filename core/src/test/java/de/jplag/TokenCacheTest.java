@@ -0,0 +1,71 @@
+package de.jplag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.jplag.exceptions.ExitException;
+
+/**
+ * Tests the persistent token cache.
+ */
+class TokenCacheTest extends TestBase {
+
+    @Test
+    @DisplayName("test that cached tokens are reused and yield the same result as parsing")
+    void testCachedTokens(@TempDir Path cacheDirectory) throws ExitException {
+        JPlagResult expected = runJPlagWithDefaultOptions("PartialPlagiarism");
+        JPlagResult coldRun = runJPlag("PartialPlagiarism", options -> options
+                .withPerformanceOptions(options.performanceOptions().withTokenCacheDirectory(cacheDirectory.toFile())));
+
+        File[] entries = cacheDirectory.toFile().listFiles();
+        assertNotNull(entries);
+        assertEquals(expected.getNumberOfSubmissions(), entries.length);
+        Map<String, Long> modificationTimes = Arrays.stream(entries).collect(Collectors.toMap(File::getName, File::lastModified));
+
+        JPlagResult warmRun = runJPlag("PartialPlagiarism", options -> options
+                .withPerformanceOptions(options.performanceOptions().withTokenCacheDirectory(cacheDirectory.toFile())));
+
+        // cache hits do not rewrite the entries
+        assertEquals(modificationTimes, Arrays.stream(cacheDirectory.toFile().listFiles())
+                .collect(Collectors.toMap(File::getName, File::lastModified)));
+        for (JPlagResult result : List.of(coldRun, warmRun)) {
+            assertSameTokens(expected.getSubmissions().getSubmissions(), result.getSubmissions().getSubmissions());
+            assertEquals(expected.getAllComparisons().size(), result.getAllComparisons().size());
+            for (JPlagComparison comparison : expected.getAllComparisons()) {
+                String first = comparison.firstSubmission().getName();
+                String second = comparison.secondSubmission().getName();
+                assertEquals(comparison.similarity(), getSelectedPercent(result, first, second), DELTA);
+            }
+        }
+    }
+
+    private static void assertSameTokens(List<Submission> expected, List<Submission> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int index = 0; index < expected.size(); index++) {
+            List<Token> expectedTokens = expected.get(index).getTokenList();
+            List<Token> actualTokens = actual.get(index).getTokenList();
+            assertEquals(expected.get(index).getName(), actual.get(index).getName());
+            assertEquals(expectedTokens.size(), actualTokens.size());
+            for (int position = 0; position < expectedTokens.size(); position++) {
+                Token expectedToken = expectedTokens.get(position);
+                Token actualToken = actualTokens.get(position);
+                assertEquals(expectedToken.getType(), actualToken.getType());
+                assertEquals(expectedToken.getFile(), actualToken.getFile());
+                assertEquals(expectedToken.getLine(), actualToken.getLine());
+                assertEquals(expectedToken.getColumn(), actualToken.getColumn());
+                assertEquals(expectedToken.getLength(), actualToken.getLength());
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package de.jplag;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the primitive bitset used to mark token indexes during the comparison.
+ */
+class TokenMarkingTest {
+
+    @Test
+    @DisplayName("test marking single indexes")
+    void testMarkSingleIndexes() {
+        TokenMarking marking = new TokenMarking(130);
+        marking.mark(0);
+        marking.mark(63);
+        marking.mark(64);
+        marking.mark(129);
+        for (int index = 0; index < marking.size(); index++) {
+            boolean expected = index == 0 || index == 63 || index == 64 || index == 129;
+            assertEquals(expected, marking.isMarked(index), "index " + index);
+        }
+    }
+
+    @Test
+    @DisplayName("test marking ranges within and across words")
+    void testMarkRanges() {
+        TokenMarking marking = new TokenMarking(300);
+        marking.markRange(3, 5); // within one word
+        marking.markRange(60, 10); // across a word boundary
+        marking.markRange(128, 64); // exactly one full word
+        marking.markRange(200, 0); // empty range
+        for (int index = 0; index < marking.size(); index++) {
+            boolean expected = (index >= 3 && index < 8) || (index >= 60 && index < 70) || (index >= 128 && index < 192);
+            assertEquals(expected, marking.isMarked(index), "index " + index);
+        }
+    }
+
+    @Test
+    @DisplayName("test that copying reuses and resets the buffer")
+    void testCopyFrom() {
+        TokenMarking large = new TokenMarking(200);
+        large.markRange(0, 200);
+        TokenMarking small = new TokenMarking(10);
+        small.mark(5);
+
+        TokenMarking buffer = new TokenMarking(0);
+        buffer.copyFrom(large);
+        assertEquals(200, buffer.size());
+        assertTrue(buffer.isMarked(150));
+
+        buffer.copyFrom(small);
+        assertEquals(10, buffer.size());
+        assertTrue(buffer.isMarked(5));
+        assertFalse(buffer.isMarked(4));
+        assertFalse(buffer.isMarked(150));
+    }
+}
@@ -49,4 +49,30 @@ public class ClusteringAdapterTest {
         assertEquals(expectedResult, clusteringResult.getClusters().stream().map(Cluster::getMembers).collect(Collectors.toList()));
     }
 
+    @Test
+    public void testClusteringFromCondensedMatrix() {
+        List<Submission> submissions = IntStream.range(0, 4).mapToObj(x -> mock(Submission.class)).toList();
+        CondensedSimilarityMatrix similarities = new CondensedSimilarityMatrix(submissions.size());
+        similarities.set(0, 1, 0.5);
+        similarities.set(2, 0, 0.25);
+        similarities.set(1, 2, 0.75);
+
+        // Mock algorithm that checks the similarities and returns everything in a single cluster
+        GenericClusteringAlgorithm algorithm = mock(GenericClusteringAlgorithm.class);
+        when(algorithm.cluster(any(RealMatrix.class))).then((InvocationOnMock invocation) -> {
+            RealMatrix arg = invocation.getArgument(0);
+            assertEquals(3, arg.getRowDimension());
+            assertEquals(0.25, arg.getEntry(0, 2));
+            assertEquals(0.75, arg.getEntry(2, 1));
+            return List.of(IntStream.range(0, arg.getRowDimension()).boxed().collect(Collectors.toList()));
+        });
+
+        ClusteringAdapter clustering = new ClusteringAdapter(submissions, similarities);
+        ClusteringResult<Submission> clusteringResult = clustering.doClustering(algorithm);
+
+        Collection<Collection<Submission>> expectedResult = List.of(submissions.subList(0, 3));
+
+        assertEquals(expectedResult, clusteringResult.getClusters().stream().map(Cluster::getMembers).collect(Collectors.toList()));
+    }
+
 }
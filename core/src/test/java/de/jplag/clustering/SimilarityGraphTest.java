@@ -0,0 +1,80 @@
+package de.jplag.clustering;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class SimilarityGraphTest {
+
+    private static final double EPSILON = 0.000001;
+
+    private static SimilarityGraph createGraph() {
+        return new SimilarityGraph.Builder(4).addEdge(2, 0, 0.5).addEdge(1, 3, 0.25).addEdge(0, 3, 0.75).addEdge(1, 2, 0.0).build();
+    }
+
+    @Test
+    public void testEntriesAreSymmetric() {
+        SimilarityGraph graph = createGraph();
+        assertEquals(4, graph.getRowDimension());
+        assertEquals(6, graph.numberOfEntries());
+        assertEquals(0.5, graph.getEntry(0, 2));
+        assertEquals(0.5, graph.getEntry(2, 0));
+        assertEquals(0.25, graph.getEntry(3, 1));
+        assertEquals(0.0, graph.getEntry(1, 2));
+        assertEquals(0.0, graph.getEntry(1, 1));
+        assertEquals(3.0, graph.sum(), EPSILON);
+    }
+
+    @Test
+    public void testRowsAreSortedByColumn() {
+        SimilarityGraph graph = createGraph();
+        int[] columns = new int[graph.rowEnd(0) - graph.rowStart(0)];
+        for (int position = graph.rowStart(0); position < graph.rowEnd(0); position++) {
+            columns[position - graph.rowStart(0)] = graph.column(position);
+        }
+        assertArrayEquals(new int[] {2, 3}, columns);
+    }
+
+    @Test
+    public void testDenseRoundTrip() {
+        double[][] dense = {{1, 0.5, 0}, {0.5, 0, 0.125}, {0, 0.125, 0}};
+        SimilarityGraph graph = SimilarityGraph.fromDense(dense);
+        assertArrayEquals(dense, graph.getData());
+        assertArrayEquals(new double[] {0.5, 0.125}, graph.pairValues());
+        assertEquals(3, graph.numberOfPairs());
+    }
+
+    @Test
+    public void testMapDropsZeros() {
+        SimilarityGraph graph = createGraph().map(value -> value >= 0.5 ? value * 2 : 0);
+        assertEquals(4, graph.numberOfEntries());
+        assertEquals(1.0, graph.getEntry(2, 0));
+        assertEquals(1.5, graph.getEntry(3, 0));
+        assertEquals(0.0, graph.getEntry(1, 3));
+    }
+
+    @Test
+    public void testSubgraph() {
+        SimilarityGraph graph = createGraph().subgraph(new int[] {0, 1, 3});
+        assertEquals(3, graph.getRowDimension());
+        assertEquals(0.75, graph.getEntry(0, 2));
+        assertEquals(0.25, graph.getEntry(2, 1));
+        assertEquals(0.0, graph.getEntry(0, 1));
+    }
+
+    @Test
+    public void testDuplicateEdgesAreRejected() {
+        SimilarityGraph.Builder builder = new SimilarityGraph.Builder(2).addEdge(0, 1, 0.5).addEdge(1, 0, 0.5);
+        assertThrows(IllegalStateException.class, builder::build);
+    }
+
+    @Test
+    public void testIsImmutable() {
+        SimilarityGraph graph = createGraph();
+        assertThrows(UnsupportedOperationException.class, () -> graph.setEntry(0, 1, 1.0));
+        graph.copy().setEntry(0, 1, 1.0);
+        assertEquals(0.0, graph.getEntry(0, 1));
+    }
+}
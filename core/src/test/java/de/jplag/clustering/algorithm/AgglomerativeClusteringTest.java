@@ -1,9 +1,24 @@
 package de.jplag.clustering.algorithm;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
 import org.junit.jupiter.api.Test;
 
+import de.jplag.clustering.ClusteringOptions;
+import de.jplag.clustering.SimilarityGraph;
+
 public class AgglomerativeClusteringTest {
 
     @Test
@@ -14,4 +29,86 @@ public class AgglomerativeClusteringTest {
             testData.assertValid(result);
         }
     }
+
+    @Test
+    public void testMatchesGreedyMerging() {
+        RealMatrix similarity = createRandomSimilarities(new Random(7), 40);
+        for (InterClusterSimilarity interClusterSimilarity : InterClusterSimilarity.values()) {
+            for (double threshold : new double[] {0.1, 0.3, 0.6}) {
+                ClusteringOptions options = new ClusteringOptions().withAgglomerativeInterClusterSimilarity(interClusterSimilarity)
+                        .withAgglomerativeThreshold(threshold);
+                Set<Set<Integer>> expected = asSets(greedyClustering(similarity, options));
+                String message = interClusterSimilarity + " " + threshold;
+                assertEquals(expected, asSets(new AgglomerativeClustering(options).cluster(similarity)), message);
+                SimilarityGraph graph = SimilarityGraph.fromDense(similarity.getData());
+                assertEquals(expected, asSets(new AgglomerativeClustering(options).cluster(graph)), message);
+            }
+        }
+    }
+
+    @Test
+    public void testMergedSimilarityMatchesClusterSimilarity() {
+        RealMatrix similarity = createRandomSimilarities(new Random(3), 9);
+        List<Integer> left = List.of(0, 1, 2, 3);
+        List<Integer> right = List.of(4, 5);
+        List<Integer> other = List.of(6, 7, 8);
+        List<Integer> union = IntStream.range(0, 6).boxed().toList();
+        for (InterClusterSimilarity interClusterSimilarity : InterClusterSimilarity.values()) {
+            double leftSimilarity = interClusterSimilarity.clusterSimilarity(left, other, similarity);
+            double rightSimilarity = interClusterSimilarity.clusterSimilarity(right, other, similarity);
+            double merged = interClusterSimilarity.mergedSimilarity(leftSimilarity, left.size(), rightSimilarity, right.size());
+            assertEquals(interClusterSimilarity.clusterSimilarity(union, other, similarity), merged, 0.0000001);
+        }
+    }
+
+    private static RealMatrix createRandomSimilarities(Random random, int size) {
+        // distinct values that are exact in single precision, so that no merge depends on rounding or ties
+        List<Integer> values = IntStream.range(0, size * (size - 1) / 2).boxed().collect(Collectors.toList());
+        Collections.shuffle(values, random);
+        RealMatrix similarity = new Array2DRowRealMatrix(size, size);
+        int index = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                double value = values.get(index++) / 1024.0;
+                similarity.setEntry(i, j, value);
+                similarity.setEntry(j, i, value);
+            }
+        }
+        return similarity;
+    }
+
+    /**
+     * Reference implementation that always merges the most similar pair of clusters.
+     */
+    private static List<List<Integer>> greedyClustering(RealMatrix similarity, ClusteringOptions options) {
+        List<List<Integer>> clusters = new ArrayList<>();
+        for (int i = 0; i < similarity.getRowDimension(); i++) {
+            clusters.add(new ArrayList<>(List.of(i)));
+        }
+        while (clusters.size() > 1) {
+            int bestLeft = -1;
+            int bestRight = -1;
+            double best = Double.NEGATIVE_INFINITY;
+            for (int left = 0; left < clusters.size(); left++) {
+                for (int right = left + 1; right < clusters.size(); right++) {
+                    double value = options.agglomerativeInterClusterSimilarity().clusterSimilarity(clusters.get(left), clusters.get(right),
+                            similarity);
+                    if (value > best) {
+                        best = value;
+                        bestLeft = left;
+                        bestRight = right;
+                    }
+                }
+            }
+            if (best < options.agglomerativeThreshold()) {
+                break;
+            }
+            clusters.get(bestLeft).addAll(clusters.remove(bestRight));
+        }
+        return clusters;
+    }
+
+    private static Set<Set<Integer>> asSets(Collection<? extends Collection<Integer>> clusters) {
+        return clusters.stream().map(HashSet::new).collect(Collectors.toSet());
+    }
 }
@@ -3,9 +3,13 @@ package de.jplag.clustering.preprocessors;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import de.jplag.clustering.SimilarityGraph;
+
 public class CumulativeDistributionFunctionPreprocessorTest extends PreprocessingTestBase {
 
     private static final double EPSILON = 0.0000001;
@@ -37,4 +41,24 @@ public class CumulativeDistributionFunctionPreprocessorTest extends Preprocessin
         });
     }
 
+    @Test
+    public void sparseMatchesDense() {
+        sparseMatchesDense(CumulativeDistributionFunctionPreprocessor::new, createRandomTestData(new Random(42), 30));
+        sparseMatchesDense(CumulativeDistributionFunctionPreprocessor::new, createRandomTestData(new Random(7), 300));
+    }
+
+    @Test
+    public void sparseScalesWithEdges() {
+        int size = 50_000; // more pairs of nodes than fit into an array
+        SimilarityGraph.Builder builder = new SimilarityGraph.Builder(size);
+        for (int node = 0; node + 1 < size; node += 2) {
+            builder.addEdge(node, node + 1, (node % 7 + 1) / 8.0);
+        }
+        SimilarityGraph result = preprocessor.preprocessSimilarities(builder.build());
+        assertTrue(result.numberOfEntries() > 0);
+        for (int position = 0; position < result.numberOfEntries(); position++) {
+            assertTrue(result.value(position) > 0 && result.value(position) <= 7 / 8.0);
+        }
+    }
+
 }
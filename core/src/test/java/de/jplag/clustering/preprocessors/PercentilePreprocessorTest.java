@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Optional;
+import java.util.Random;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -38,4 +39,12 @@ public class PercentilePreprocessorTest extends PreprocessingTestBase {
         });
     }
 
+    @Test
+    public void sparseMatchesDense() {
+        double[][] original = createRandomTestData(new Random(42), 30);
+        for (double percentile : new double[] {0.5, 20, 50, 61.3, 75, 100}) {
+            sparseMatchesDense(() -> new PercentileThresholdProcessor(percentile), original);
+        }
+    }
+
 }
@@ -8,8 +8,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 import java.util.function.BiConsumer;
 import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -18,6 +20,7 @@ import org.apache.commons.math3.linear.ArrayRealVector;
 import org.apache.commons.math3.linear.RealMatrix;
 
 import de.jplag.clustering.ClusteringPreprocessor;
+import de.jplag.clustering.SimilarityGraph;
 
 public class PreprocessingTestBase {
 
@@ -43,6 +46,39 @@ public class PreprocessingTestBase {
         return similarity.getData();
     }
 
+    /**
+     * Creates a sparse similarity matrix with values that are exact in single precision and a few diagonal entries.
+     */
+    public double[][] createRandomTestData(Random random, int size) {
+        double[][] similarity = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            similarity[i][i] = i % 3 == 0 ? 1 : 0;
+            for (int j = i + 1; j < size; j++) {
+                double value = random.nextDouble() < 0.6 ? 0 : random.nextInt(64) / 64.0;
+                similarity[i][j] = value;
+                similarity[j][i] = value;
+            }
+        }
+        return similarity;
+    }
+
+    /**
+     * Checks that preprocessing a similarity graph yields the same result as preprocessing the equivalent dense matrix.
+     */
+    public void sparseMatchesDense(Supplier<ClusteringPreprocessor> preprocessorSupplier, double[][] original) {
+        ClusteringPreprocessor denseProcessor = preprocessorSupplier.get();
+        double[][] dense = denseProcessor.preprocessSimilarities(original);
+        ClusteringPreprocessor sparseProcessor = preprocessorSupplier.get();
+        double[][] sparse = sparseProcessor.preprocessSimilarities(SimilarityGraph.fromDense(original)).getData();
+        assertEquals(dense.length, sparse.length, "number of preserved rows");
+        for (int row = 0; row < dense.length; row++) {
+            assertEquals(denseProcessor.originalIndexOf(row), sparseProcessor.originalIndexOf(row));
+            for (int column = 0; column < dense.length; column++) {
+                assertEquals(dense[row][column], sparse[row][column], EPSILON, "entry " + row + ", " + column);
+            }
+        }
+    }
+
     public void validPreprocessing(double[][] originalArray, double[][] resultArray, IntUnaryOperator originalIndex) {
         RealMatrix result = new Array2DRowRealMatrix(resultArray, false);
         RealMatrix original = new Array2DRowRealMatrix(originalArray, false);
@@ -3,6 +3,7 @@ package de.jplag.clustering.preprocessors;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.Optional;
+import java.util.Random;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -38,4 +39,12 @@ public class ThresholdPreprocessorTest extends PreprocessingTestBase {
         });
     }
 
+    @Test
+    public void sparseMatchesDense() {
+        double[][] original = createRandomTestData(new Random(42), 30);
+        for (double threshold : new double[] {0, 0.2, 0.5, 1}) {
+            sparseMatchesDense(() -> new ThresholdPreprocessor(threshold), original);
+        }
+    }
+
 }
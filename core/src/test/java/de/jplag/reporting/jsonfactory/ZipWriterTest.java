@@ -0,0 +1,51 @@
+package de.jplag.reporting.jsonfactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test for the writer that writes the report files directly into the zip file.
+ */
+class ZipWriterTest {
+
+    @Test
+    @DisplayName("test that objects and files are written as entries relative to the root of the zip file")
+    void testEntries(@TempDir File directory) throws IOException {
+        File source = new File(directory, "Source.java");
+        Files.writeString(source.toPath(), "class Source {}");
+        File zip = new File(directory, "report.zip");
+        try (ZipWriter writer = new ZipWriter(zip)) {
+            writer.saveAsJSON(List.of(1, 2), "", "overview.json");
+            writer.copyFile(source, "blobs", "hash");
+        }
+
+        try (ZipFile zipFile = new ZipFile(zip)) {
+            assertNotNull(zipFile.getEntry("overview.json"));
+            assertEquals("class Source {}",
+                    new String(zipFile.getInputStream(zipFile.getEntry("blobs/hash")).readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("test that an entry that cannot be written fails instead of being skipped")
+    void testFailingEntry(@TempDir File directory) throws IOException {
+        try (ZipWriter writer = new ZipWriter(new File(directory, "report.zip"))) {
+            File missingFile = new File(directory, "Missing.java");
+            assertThrows(UncheckedIOException.class, () -> writer.copyFile(missingFile, "blobs", "hash"));
+            assertThrows(UncheckedIOException.class, () -> writer.saveAsJSON(new Object(), "", "overview.json"));
+        }
+    }
+}
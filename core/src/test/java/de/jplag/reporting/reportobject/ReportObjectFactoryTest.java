@@ -1,17 +1,28 @@
 package de.jplag.reporting.reportobject;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import de.jplag.JPlagResult;
 import de.jplag.TestBase;
 import de.jplag.exceptions.ExitException;
+import de.jplag.reporting.reportobject.model.SubmissionFileIndex;
 import de.jplag.reporting.reportobject.model.Version;
 
 class ReportObjectFactoryTest extends TestBase {
@@ -39,4 +50,67 @@ class ReportObjectFactoryTest extends TestBase {
         expectedFile.delete();
     }
 
-}
\ No newline at end of file
+    @Test
+    void testReportIsWrittenDirectlyIntoZip(@TempDir File directory) throws ExitException, IOException {
+        JPlagResult result = runJPlag("PartialPlagiarism", it -> it);
+        File reportPath = new File(directory, "report");
+        new ReportObjectFactory().createAndSaveReport(result, reportPath.getPath());
+
+        assertFalse(reportPath.exists());
+        try (ZipFile zipFile = new ZipFile(new File(directory, "report" + FILE_SUFFIX))) {
+            List<String> entries = zipFile.stream().map(ZipEntry::getName).toList();
+            assertTrue(entries.contains(ReportObjectFactory.OVERVIEW_FILE_NAME));
+            List<String> otherFiles = List.of(ReportObjectFactory.OVERVIEW_FILE_NAME, ReportObjectFactory.SUBMISSION_FILE_INDEX_FILE_NAME);
+            long comparisonFiles = entries.stream().filter(name -> !name.contains("/") && !otherFiles.contains(name)).count();
+            assertEquals(result.getComparisons(result.getOptions().maximumNumberOfComparisons()).size(), comparisonFiles);
+            assertTrue(entries.stream().anyMatch(name -> name.startsWith(ReportObjectFactory.BLOBS_FOLDER + "/")));
+        }
+    }
+
+    @Test
+    void testIdenticalSubmissionFilesAreStoredOnce(@TempDir File directory) throws ExitException, IOException {
+        JPlagResult result = runJPlag("PartialPlagiarism", it -> it);
+        new ReportObjectFactory().createAndSaveReport(result, new File(directory, "report").getPath());
+
+        try (ZipFile zipFile = new ZipFile(new File(directory, "report" + FILE_SUFFIX))) {
+            ZipEntry indexEntry = zipFile.getEntry(ReportObjectFactory.SUBMISSION_FILE_INDEX_FILE_NAME);
+            SubmissionFileIndex index = new ObjectMapper().readValue(zipFile.getInputStream(indexEntry), SubmissionFileIndex.class);
+            List<String> referencedBlobs = index.submissionFiles().values().stream().flatMap(manifest -> manifest.values().stream())
+                    .toList();
+            long storedBlobs = zipFile.stream().filter(entry -> entry.getName().startsWith(ReportObjectFactory.BLOBS_FOLDER + "/")).count();
+
+            assertEquals(referencedBlobs.stream().distinct().count(), storedBlobs);
+            assertTrue(storedBlobs < referencedBlobs.size());
+            referencedBlobs.forEach(blob -> assertNotNull(zipFile.getEntry(blob), blob));
+            assertTrue(index.submissionFiles().get("A").containsKey(Path.of("A", "GSTiling.java").toString()));
+        }
+    }
+
+    @Test
+    void testPaginatedOverview(@TempDir File directory) throws ExitException, IOException {
+        JPlagResult result = runJPlag("PartialPlagiarism", it -> it);
+        int pageSize = 4;
+        new ReportObjectFactory(pageSize).createAndSaveReport(result, new File(directory, "report").getPath());
+
+        int numberOfComparisons = result.getComparisons(result.getOptions().maximumNumberOfComparisons()).size();
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (ZipFile zipFile = new ZipFile(new File(directory, "report" + FILE_SUFFIX))) {
+            JsonNode overview = objectMapper.readTree(zipFile.getInputStream(zipFile.getEntry(ReportObjectFactory.OVERVIEW_FILE_NAME)));
+            assertTrue(overview.get("submission_ids_to_comparison_file_name").isEmpty());
+            String comparisonFileNamesFolder = overview.get("comparison_file_names_folder").asText();
+            for (JsonNode metric : overview.get("metrics")) {
+                assertEquals(pageSize, metric.get("topComparisons").size());
+                int pagedComparisons = metric.get("topComparisons").size();
+                for (JsonNode page : metric.get("top_comparison_pages")) {
+                    JsonNode comparisons = objectMapper.readTree(zipFile.getInputStream(zipFile.getEntry(page.asText())));
+                    assertTrue(comparisons.size() <= pageSize);
+                    pagedComparisons += comparisons.size();
+                }
+                assertEquals(numberOfComparisons, pagedComparisons);
+            }
+            ZipEntry comparisonFileNames = zipFile.getEntry(comparisonFileNamesFolder + "/A.json");
+            JsonNode fileNamesOfA = objectMapper.readTree(zipFile.getInputStream(comparisonFileNames));
+            fileNamesOfA.forEach(fileName -> assertNotNull(zipFile.getEntry(fileName.asText()), fileName.asText()));
+        }
+    }
+}
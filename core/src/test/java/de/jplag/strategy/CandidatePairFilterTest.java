@@ -0,0 +1,55 @@
+package de.jplag.strategy;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import de.jplag.options.CandidateFilter;
+
+/**
+ * Tests the selection of candidate pairs based on subsequence hashes.
+ */
+class CandidatePairFilterTest {
+
+    @Test
+    @DisplayName("test that exactly the pairs sharing a subsequence hash are candidates")
+    void testSharedSubsequences() {
+        List<int[]> hashes = List.of(new int[] {1, 2, 3}, new int[] {4, 5}, new int[] {3, 6}, new int[] {5, -7}, new int[0]);
+        CandidatePairFilter filter = new CandidatePairFilter(hashes, CandidateFilter.SHARED_SUBSEQUENCES, 0);
+        int[] visited = new int[hashes.size()];
+
+        assertArrayEquals(new int[] {2}, filter.candidatesOf(0, visited));
+        assertArrayEquals(new int[] {3}, filter.candidatesOf(1, visited));
+        assertArrayEquals(new int[0], filter.candidatesOf(2, visited));
+        assertArrayEquals(new int[0], filter.candidatesOf(4, visited));
+    }
+
+    @Test
+    @DisplayName("test that MinHash selects similar sets and drops dissimilar ones")
+    void testMinHash() {
+        int[] original = IntStream.range(0, 1000).toArray();
+        int[] copy = IntStream.range(100, 1000).toArray(); // Jaccard similarity of 0.9
+        int[] unrelated = IntStream.range(5000, 6000).toArray();
+        CandidatePairFilter filter = new CandidatePairFilter(List.of(original, copy, unrelated), CandidateFilter.MIN_HASH, 0.5);
+
+        assertArrayEquals(new int[] {1}, filter.candidatesOf(0, new int[3]));
+        assertArrayEquals(new int[0], filter.candidatesOf(1, new int[3]));
+    }
+
+    @Test
+    @DisplayName("test the Jaccard estimation of MinHash signatures")
+    void testEstimatedJaccard() {
+        int[] first = CandidatePairFilter.minHashSignature(IntStream.range(0, 2000).toArray());
+        int[] second = CandidatePairFilter.minHashSignature(IntStream.range(1000, 3000).toArray()); // Jaccard similarity of 1/3
+
+        assertEquals(1.0, CandidatePairFilter.estimatedJaccard(first, first));
+        double estimation = CandidatePairFilter.estimatedJaccard(first, second);
+        assertTrue(estimation > 0.2 && estimation < 0.5, "estimation was " + estimation);
+    }
+}
@@ -2,6 +2,7 @@ package de.jplag;
 
 import java.io.File;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -37,6 +38,15 @@ public interface Language {
      */
     List<Token> parse(Set<File> files) throws ParsingException;
 
+    /**
+     * Creates a new instance of this language with its own parser state. Different instances are used to parse different
+     * submissions on multiple threads concurrently, so they must not share mutable state.
+     * @return the new instance, or nothing if the language does not support concurrent parsing.
+     */
+    default Optional<Language> createParserInstance() {
+        return Optional.empty();
+    }
+
     /**
      * Determines whether a fixed-width font should be used to display that language.
      */
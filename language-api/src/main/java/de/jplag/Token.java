@@ -11,15 +11,15 @@ import org.slf4j.LoggerFactory;
  * The language parsers decide what is a token and what is not.
  */
 public class Token {
-    private Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final Logger logger = LoggerFactory.getLogger(Token.class);
     /** Indicates that the requested field has no value. */
     public static final int NO_VALUE = -1;
 
-    private int line;
-    private int column;
-    private int length;
-    private File file;
-    private TokenType type;
+    private final int line;
+    private final int column;
+    private final int length;
+    private final File file;
+    private final TokenType type;
 
     /**
      * Creates a token of type {@link SharedTokenType#FILE_END FILE_END} without information about line, column, and length.
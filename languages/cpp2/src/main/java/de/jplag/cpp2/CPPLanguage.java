@@ -2,6 +2,7 @@ package de.jplag.cpp2;
 
 import java.io.File;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import org.kohsuke.MetaInfServices;
@@ -47,4 +48,9 @@ public class CPPLanguage implements Language {
     public List<Token> parse(Set<File> files) throws ParsingException {
         return this.parser.scan(files);
     }
+
+    @Override
+    public Optional<Language> createParserInstance() {
+        return Optional.of(new CPPLanguage());
+    }
 }
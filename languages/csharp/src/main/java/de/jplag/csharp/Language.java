@@ -2,6 +2,7 @@ package de.jplag.csharp;
 
 import java.io.File;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import org.kohsuke.MetaInfServices;
@@ -50,4 +51,9 @@ public class Language implements de.jplag.Language {
     public List<Token> parse(Set<File> files) throws ParsingException {
         return parser.parse(files);
     }
+
+    @Override
+    public Optional<de.jplag.Language> createParserInstance() {
+        return Optional.of(new Language());
+    }
 }
@@ -21,4 +21,6 @@ class Language extends de.jplag.Language {
   override def minimumTokenMatch = 8
 
   override def parse(files: util.Set[File]): java.util.List[Token] = this.parser.parse(files.asScala.toSet).asJava
+
+  override def createParserInstance(): util.Optional[de.jplag.Language] = util.Optional.of(new Language)
 }
@@ -8,5 +8,9 @@ export type Metric = {
     description: string,
     metricThreshold: number,
     distribution: Array<number>,
-    comparisons: Array<ComparisonListElement>
+    comparisons: Array<ComparisonListElement>,
+    /**
+     * File names of the further pages of top comparisons that are not loaded yet.
+     */
+    pages: Array<string>
 }
\ No newline at end of file
@@ -34,18 +34,9 @@ export class OverviewFactory {
     const totalComparisons= json.total_comparisons as number;
     (json.metrics as Array<unknown>).forEach((jsonMetric) => {
       const metric = jsonMetric as Record<string, unknown>;
-      const comparisons = [] as Array<ComparisonListElement>;
-
-      (metric.topComparisons as Array<Record<string, unknown>>).forEach(
-        (jsonComparison,index) => {
-          const comparison: ComparisonListElement = {
-            id: index + 1 as number,
-            firstSubmissionId: jsonComparison.first_submission as string,
-            secondSubmissionId: jsonComparison.second_submission as string,
-            similarity: jsonComparison.similarity as number,
-          };
-          comparisons.push(comparison);
-        }
+      const comparisons = OverviewFactory.getTopComparisons(
+        metric.topComparisons as Array<Record<string, unknown>>,
+        0
       );
       metrics.push({
         metricName: metric.name as string,
@@ -53,6 +44,7 @@ export class OverviewFactory {
         distribution: metric.distribution as Array<number>,
         comparisons: comparisons,
         description: metric.description as string,
+        pages: (metric.top_comparison_pages as Array<string>) ?? [],
       });
     });
     store.commit("saveSubmissionNames", map);
@@ -69,6 +61,10 @@ export class OverviewFactory {
     }
     
     OverviewFactory.saveSubmissionsToComparisonNameMap(json);
+    store.commit(
+      "saveComparisonFileNamesFolder",
+      (json.comparison_file_names_folder as string) ?? ""
+    );
     return new Overview(
       submissionFolder,
       baseCodeFolder,
@@ -84,6 +80,23 @@ export class OverviewFactory {
     );
   }
 
+  /**
+   * Converts a page of top comparisons, whose ids continue after the given number of already loaded comparisons.
+   * @param jsonComparisons
+   * @param offset
+   */
+  static getTopComparisons(
+    jsonComparisons: Array<Record<string, unknown>>,
+    offset: number
+  ): Array<ComparisonListElement> {
+    return jsonComparisons.map((jsonComparison, index) => ({
+      id: offset + index + 1,
+      firstSubmissionId: jsonComparison.first_submission as string,
+      secondSubmissionId: jsonComparison.second_submission as string,
+      similarity: jsonComparison.similarity as number,
+    }));
+  }
+
   static compareVersions(jsonVersion: Version, reportViewerVersion: Version) {
     if(sessionStorage.getItem("versionAlert")===null) {
 
@@ -33,6 +33,10 @@ interface State {
 
   fileIdToDisplayName: Map<string, string>;
   submissionIdsToComparisonFileName: Map<string, Map<string, string>>;
+  /**
+   * Folder of the comparison file names of each submission if they are not part of the overview, otherwise empty.
+   */
+  comparisonFileNamesFolder: string;
 }
 
 interface File {
@@ -80,6 +84,7 @@ const store = createStore<State>({
      */
     fileString: "",
     fileIdToDisplayName: new Map(),
+    comparisonFileNamesFolder: "",
   },
   getters: {
     filesOfSubmission: (state) => (name: string) => {
@@ -124,6 +129,7 @@ const store = createStore<State>({
         single: false,
         fileString: "",
         fileIdToDisplayName: new Map(),
+        comparisonFileNamesFolder: "",
       });
     },
     addAnonymous(state: State, id) {
@@ -137,6 +143,43 @@ const store = createStore<State>({
     ) {
       state.submissionIdsToComparisonFileName = map;
     },
+    saveComparisonFileNamesFolder(state: State, folder: string) {
+      state.comparisonFileNamesFolder = folder;
+    },
+    /**
+     * Loads the comparison file names of a submission from its own file, if they are not part of the overview. The file
+     * is read from the report based on the used mode (zip, local).
+     */
+    loadComparisonFileNames(state: State, submissionId: string) {
+      if (
+        state.comparisonFileNamesFolder === "" ||
+        state.submissionIdsToComparisonFileName.has(submissionId)
+      ) {
+        return;
+      }
+      const path = `${state.comparisonFileNamesFolder}/${submissionId}.json`;
+      let fileNames;
+      if (state.local) {
+        try {
+          // eslint-disable-next-line @typescript-eslint/no-var-requires
+          fileNames = require(`../files/${path}`);
+        } catch (e) {
+          return;
+        }
+      } else {
+        const fileName = Object.keys(state.files).find((name) =>
+          name.endsWith(path)
+        );
+        if (fileName === undefined) {
+          return;
+        }
+        fileNames = JSON.parse(state.files[fileName]);
+      }
+      state.submissionIdsToComparisonFileName.set(
+        submissionId,
+        new Map(Object.entries(fileNames))
+      );
+    },
     removeAnonymous(state, id) {
       for (let i = 0; i < id.length; i++) {
         state.anonymous.delete(id[i]);
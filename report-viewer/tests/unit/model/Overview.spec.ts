@@ -74,7 +74,8 @@ test('overview', () => {
                 "similarity": 0
             }
         ],
-        "description": "Average of both program coverages. This is the default similarity which works in most cases: Matches with a high average similarity indicate that the programs work in a very similar way."
+        "description": "Average of both program coverages. This is the default similarity which works in most cases: Matches with a high average similarity indicate that the programs work in a very similar way.",
+        "pages": []
     },{
         "metricName": "MAX",
         "distribution": [5, 1, 0, 0, 0, 0, 0, 0, 0, 4],
@@ -141,7 +142,8 @@ test('overview', () => {
                 "similarity": 0
             }
         ],
-        "description": "Maximum of both program coverages. This ranking is especially useful if the programs are very different in size. This can happen when dead code was inserted to disguise the origin of the plagiarized program."
+        "description": "Maximum of both program coverages. This ranking is especially useful if the programs are very different in size. This can happen when dead code was inserted to disguise the origin of the plagiarized program.",
+        "pages": []
     }];
     const clusters: Array<Cluster> = [];
     const submissionIdsToComparisonFileName: Map<string,Map<string,string>> = new Map<string, Map<string, string>>();